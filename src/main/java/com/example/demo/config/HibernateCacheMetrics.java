@@ -0,0 +1,41 @@
+package com.example.demo.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * Đọc số liệu cache cấp 2 của Hibernate (hibernate.generate_statistics=true) để theo dõi hit rate.
+ */
+@Component
+@RequiredArgsConstructor
+public class HibernateCacheMetrics {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public Stats stats() {
+        Statistics s = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        long hits = s.getSecondLevelCacheHitCount();
+        long misses = s.getSecondLevelCacheMissCount();
+        long naturalIdHits = s.getNaturalIdCacheHitCount();
+        long naturalIdMisses = s.getNaturalIdCacheMissCount();
+        return new Stats(
+                s.isStatisticsEnabled(),
+                hits, misses, s.getSecondLevelCachePutCount(), hitRate(hits, misses),
+                naturalIdHits, naturalIdMisses, s.getNaturalIdCachePutCount(), hitRate(naturalIdHits, naturalIdMisses),
+                s.getEntityLoadCount()
+        );
+    }
+
+    private static double hitRate(long hits, long misses) {
+        long total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public record Stats(boolean statisticsEnabled,
+                        long entityHits, long entityMisses, long entityPuts, double entityHitRate,
+                        long naturalIdHits, long naturalIdMisses, long naturalIdPuts, double naturalIdHitRate,
+                        long entityLoadsFromDb) {}
+}
@@ -0,0 +1,68 @@
+package com.example.demo.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Chỉ bật khi cấu hình app.datasource.replica.urls; nếu không, Spring Boot tự tạo một DataSource primary như cũ.
+ * Replica dùng chung driver, username/password với primary (có thể ghi đè bằng app.datasource.replica.*).
+ * Pool replica do router tạo ra và đóng (ReadWriteRoutingDataSource.close()).
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.replica.urls")
+public class ReadReplicaConfig {
+
+    // Như pool mặc định của Spring Boot: nhận cấu hình spring.datasource.hikari.*, Spring đóng pool khi tắt
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        return primary;
+    }
+
+    @Bean
+    public ReadWriteRoutingDataSource routingDataSource(
+            DataSourceProperties properties,
+            @Qualifier("primaryDataSource") DataSource primary,
+            @Value("${app.datasource.replica.urls}") String[] replicaUrls,
+            @Value("${app.datasource.replica.username:${spring.datasource.username}}") String username,
+            @Value("${app.datasource.replica.password:${spring.datasource.password}}") String password,
+            @Value("${app.datasource.replica.read-your-writes-ms:2000}") long readYourWritesMs,
+            @Value("${app.datasource.replica.validation-timeout-seconds:1}") int validationTimeoutSeconds) {
+        List<DataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(properties.determineDriverClassName())
+                    .url(replicaUrls[i].trim())
+                    .username(username)
+                    .password(password)
+                    .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setReadOnly(true);
+            replicas.add(replica);
+        }
+        return new ReadWriteRoutingDataSource(primary, replicas, readYourWritesMs, validationTimeoutSeconds);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(ReadWriteRoutingDataSource routingDataSource) {
+        // Lấy connection thật ở câu lệnh đầu tiên, lúc đó cờ readOnly của transaction đã được đặt
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
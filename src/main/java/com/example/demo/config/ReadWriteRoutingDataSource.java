@@ -0,0 +1,196 @@
+package com.example.demo.config;
+
+import com.example.demo.security.AuthenticatedUser;
+import com.example.demo.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Định tuyến connection: transaction readOnly sang replica (round-robin trên các replica đang khỏe),
+ * còn lại sang primary. Replica lỗi khi lấy connection hoặc khi health check thì bị tạm loại,
+ * mọi lượt đọc rơi về primary cho tới khi replica khỏe lại.
+ * Read-your-writes: user vừa commit một transaction ghi sẽ đọc từ primary trong một khoảng ngắn
+ * để không thấy dữ liệu cũ do replica trễ.
+ * Phải bọc bằng LazyConnectionDataSourceProxy để connection được lấy sau khi transaction đã đặt cờ readOnly.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long readYourWritesMillis;
+    private final int validationTimeoutSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private final Map<Object, Long> recentWriters = new ConcurrentHashMap<>();
+
+    private final LongAdder primaryConnections = new LongAdder();
+    private final LongAdder replicaConnections = new LongAdder();
+    private final LongAdder fallbacks = new LongAdder();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas,
+                                      long readYourWritesMillis, int validationTimeoutSeconds) {
+        this.primary = primary;
+        for (int i = 0; i < replicas.size(); i++) {
+            this.replicas.add(new Replica("replica-" + (i + 1), replicas.get(i)));
+        }
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.validationTimeoutSeconds = validationTimeoutSeconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            rememberWriterOnCommit();
+            return primaryConnection();
+        }
+        if (wroteRecently(currentUserKey())) {
+            return primaryConnection();
+        }
+        Replica replica = nextHealthyReplica();
+        if (replica == null) {
+            fallbacks.increment();
+            return primaryConnection();
+        }
+        try {
+            Connection connection = replica.dataSource.getConnection();
+            replicaConnections.increment();
+            return connection;
+        } catch (SQLException e) {
+            replica.markDown(e);
+            fallbacks.increment();
+            return primaryConnection();
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new UnsupportedOperationException("Routing DataSource chỉ dùng thông tin đăng nhập của từng pool");
+    }
+
+    /** Kiểm tra từng replica; replica đã bị loại được đưa lại vào vòng khi kiểm tra thành công. */
+    @Scheduled(fixedDelayString = "${app.datasource.replica.health-check-interval-ms:5000}")
+    public void checkHealth() {
+        for (Replica replica : replicas) {
+            try (Connection c = replica.dataSource.getConnection()) {
+                if (c.isValid(validationTimeoutSeconds)) {
+                    replica.markUp();
+                } else {
+                    replica.markDown(null);
+                }
+            } catch (SQLException e) {
+                replica.markDown(e);
+            }
+        }
+        long cutoff = System.currentTimeMillis() - readYourWritesMillis;
+        recentWriters.values().removeIf(at -> at < cutoff);
+    }
+
+    /**
+     * Đóng pool của các replica khi context tắt (Spring tự gọi close() của bean). Pool replica chỉ router dùng;
+     * primary là bean riêng nên Spring đóng riêng.
+     */
+    public void close() {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable pool) {
+                try {
+                    pool.close();
+                } catch (Exception e) {
+                    log.warn("Closing read replica {} failed: {}", replica.name, e.getMessage());
+                }
+            }
+        }
+    }
+
+    public Stats stats() {
+        List<ReplicaStats> replicaStats = replicas.stream()
+                .map(r -> new ReplicaStats(r.name, r.healthy))
+                .toList();
+        return new Stats(primaryConnections.sum(), replicaConnections.sum(), fallbacks.sum(),
+                recentWriters.size(), replicaStats);
+    }
+
+    private Connection primaryConnection() throws SQLException {
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    private Replica nextHealthyReplica() {
+        int n = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            Replica r = replicas.get((start + i) % n);
+            if (r.healthy) {
+                return r;
+            }
+        }
+        return null;
+    }
+
+    private void rememberWriterOnCommit() {
+        Object user = currentUserKey();
+        if (user == null || readYourWritesMillis <= 0 || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        AfterCommit.run(() -> recentWriters.put(user, System.currentTimeMillis()));
+    }
+
+    private boolean wroteRecently(Object user) {
+        if (user == null) {
+            return false;
+        }
+        Long at = recentWriters.get(user);
+        return at != null && System.currentTimeMillis() - at < readYourWritesMillis;
+    }
+
+    private static Object currentUserKey() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user.id();
+        }
+        return null;
+    }
+
+    private static final class Replica {
+        final String name;
+        final DataSource dataSource;
+        volatile boolean healthy = true;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void markDown(SQLException cause) {
+            if (healthy) {
+                log.warn("Read replica {} marked down: {}", name, cause != null ? cause.getMessage() : "validation failed");
+            }
+            healthy = false;
+        }
+
+        void markUp() {
+            if (!healthy) {
+                log.info("Read replica {} is back up", name);
+            }
+            healthy = true;
+        }
+    }
+
+    public record ReplicaStats(String name, boolean healthy) {}
+
+    public record Stats(long primaryConnections, long replicaConnections, long fallbacks,
+                        int recentWriters, List<ReplicaStats> replicas) {}
+}
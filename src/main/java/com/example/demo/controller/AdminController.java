@@ -1,24 +1,53 @@
 package com.example.demo.controller;
 
+import com.example.demo.config.HibernateCacheMetrics;
+import com.example.demo.config.ReadWriteRoutingDataSource;
 import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.AuditDto;
+import com.example.demo.dto.TaskCursor;
 import com.example.demo.dto.TaskDto;
 import com.example.demo.dto.UserDto;
 import com.example.demo.entity.Task;
-import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.UserRepository;
+import com.example.demo.security.JwtService;
+import com.example.demo.security.PasswordHasher;
+import com.example.demo.security.PrincipalCache;
+import com.example.demo.security.RateLimitFilter;
+import com.example.demo.security.TokenRevocationStore;
 import com.example.demo.security.SecurityUtil;
+import com.example.demo.service.AuditLog;
+import com.example.demo.service.ExportFormat;
+import com.example.demo.service.TaskArchiver;
+import com.example.demo.service.TaskCounterStore;
+import com.example.demo.service.TaskDeadlineScheduler;
+import com.example.demo.service.TaskExporter;
+import com.example.demo.service.TaskSearchIndex;
 import com.example.demo.service.TaskService;
+import com.example.demo.service.UserDeletionService;
+import com.example.demo.service.UserExporter;
 import com.example.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequiredArgsConstructor
@@ -28,8 +57,23 @@ public class AdminController {
 
     private final TaskService taskService;
     private final UserService userService;
+    private final UserExporter userExporter;
+    private final UserDeletionService userDeletions;
     private final UserRepository userRepo;
     private final SecurityUtil securityUtil;
+    private final JwtService jwtService;
+    private final PrincipalCache principalCache;
+    private final PasswordHasher passwordHasher;
+    private final TokenRevocationStore revocations;
+    private final RateLimitFilter rateLimitFilter;
+    private final TaskCounterStore taskCounters;
+    private final TaskArchiver taskArchiver;
+    private final TaskSearchIndex taskSearchIndex;
+    private final TaskDeadlineScheduler taskDeadlines;
+    private final TaskExporter taskExporter;
+    private final ObjectProvider<ReadWriteRoutingDataSource> routingDataSource;
+    private final HibernateCacheMetrics hibernateCacheMetrics;
+    private final AuditLog auditLog;
 
     private void checkAdmin() {
         if (!securityUtil.isAdmin()) {
@@ -42,6 +86,10 @@ public class AdminController {
     @Operation(summary = "Lấy tất cả task của mọi user (chỉ ADMIN)")
     public ResponseEntity<ApiResponse<?>> getAllTasks(
             @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "mode", required = false) String mode,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "orderBy", required = false) String orderBy,
+            @RequestParam(name = "includeArchived", defaultValue = "false") boolean includeArchived,
             Pageable pageable
     ) {
         checkAdmin();
@@ -56,11 +104,28 @@ public class AdminController {
             }
         }
         
-        Page<Task> taskPage = taskService.findAll(pageable, statusEnum);
+        if ("cursor".equalsIgnoreCase(mode) && includeArchived) {
+            throw new BadRequestException("includeArchived chưa hỗ trợ mode=cursor");
+        }
+
+        if ("cursor".equalsIgnoreCase(mode)) {
+            TaskCursor cursor = TaskCursor.decode(after, TaskCursor.SortKey.fromParam(orderBy));
+            TaskDto.TaskCursorPage page = taskService.findAllByCursor(cursor, pageable.getPageSize(), statusEnum);
+            return ResponseEntity.ok(ApiResponse.success(200, "Lấy danh sách task thành công", page));
+        }
+
+        if ("slice".equalsIgnoreCase(mode)) {
+            Slice<TaskDto.TaskResponse> slice = includeArchived
+                    ? taskService.findSliceWithArchived(null, pageable, statusEnum)
+                    : taskService.findAllSlice(pageable, statusEnum);
+            return TaskResponses.slice(slice, pageable, statusEnum);
+        }
+
+        Page<TaskDto.TaskResponse> taskPage = includeArchived
+                ? taskService.findWithArchived(null, pageable, statusEnum)
+                : taskService.findAll(pageable, statusEnum);
         
-        List<TaskDto.TaskResponse> res = taskPage.getContent().stream()
-                .map(this::mapToResponse)
-                .toList();
+        List<TaskDto.TaskResponse> res = taskPage.getContent();
         
         String message = String.format(
                 "Lấy danh sách task thành công (trang %d/%d, tổng %d task%s)",
@@ -73,38 +138,155 @@ public class AdminController {
         return ResponseEntity.ok(ApiResponse.success(200, message, res));
     }
 
+    @GetMapping("/tasks/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export toàn bộ task dạng NDJSON hoặc CSV, ghi dần ra response (chỉ ADMIN)")
+    public ResponseEntity<StreamingResponseBody> exportTasks(
+            @RequestParam(name = "format", required = false) String format,
+            @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(name = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to
+    ) {
+        checkAdmin();
+
+        ExportFormat fmt = ExportFormat.fromParam(format);
+        Task.Status statusEnum = null;
+        if (status != null && !status.isEmpty()) {
+            try {
+                statusEnum = Task.Status.valueOf(status.toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("Status không hợp lệ. Chỉ chấp nhận: PENDING, IN_PROGRESS, COMPLETED");
+            }
+        }
+        taskExporter.validate(from, to);
+
+        // Body được ghi trên thread async của MVC, trong transaction chỉ đọc riêng
+        Task.Status filter = statusEnum;
+        StreamingResponseBody body = out -> taskExporter.export(out, fmt, filter, from, to);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fmt.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"tasks." + fmt.extension() + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Thống kê task trên mọi user, hoặc của một user qua userId (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> getTaskStats(@RequestParam(name = "userId", required = false) Integer userId) {
+        checkAdmin();
+
+        TaskDto.TaskStatsResponse res = userId == null ? taskService.statsAll() : taskService.stats(userId);
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy thống kê task thành công", res));
+    }
+
     @GetMapping("/users")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Lấy danh sách tất cả user (chỉ ADMIN)")
-    public ResponseEntity<ApiResponse<?>> getAllUsers() {
+    @Operation(summary = "Lấy danh sách user theo trang (keyset), lọc theo tiền tố email hoặc họ tên (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> getAllUsers(
+            @RequestParam(name = "email", required = false) String email,
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "after", required = false) String after,
+            Pageable pageable
+    ) {
         checkAdmin();
-        
-        List<User> users = userService.findAll();
-        List<UserDto.UserResponse> res = users.stream()
-                .map(this::mapToResponse)
-                .toList();
+
+        UserDto.UserCursorPage res = userService.findByCursor(email, name, after, pageable.getPageSize());
         return ResponseEntity.ok(ApiResponse.success(200, "Lấy danh sách user thành công", res));
     }
 
-    private TaskDto.TaskResponse mapToResponse(Task task) {
-        return new TaskDto.TaskResponse(
-                task.getId(),
-                task.getUser().getId(),
-                task.getTitle(),
-                task.getDescription(),
-                task.getStatus().toString(),
-                task.getDeadline(),
-                task.getCreatedAt(),
-                task.getUpdatedAt()
-        );
+    @GetMapping("/users/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Export toàn bộ user dạng NDJSON hoặc CSV, ghi dần ra response (chỉ ADMIN)")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(name = "format", required = false) String format) {
+        checkAdmin();
+
+        ExportFormat fmt = ExportFormat.fromParam(format);
+        StreamingResponseBody body = out -> userExporter.export(out, fmt);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(fmt.contentType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + fmt.extension() + "\"")
+                .body(body);
     }
 
-    private UserDto.UserResponse mapToResponse(User user) {
-        return new UserDto.UserResponse(
-                user.getId(),
-                user.getEmail(),
-                user.getFullName(),
-                user.getRole()
-        );
+    @GetMapping("/users/deletions")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Các job xóa user đang chạy và gần nhất (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> getUserDeletions() {
+        checkAdmin();
+
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy danh sách job xóa user thành công", userDeletions.jobs()));
+    }
+
+    @GetMapping("/users/{id}/deletion")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Tiến độ xóa một user (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> getUserDeletion(@PathVariable Integer id) {
+        checkAdmin();
+
+        UserDto.UserDeletionStatus res = userDeletions.status(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Không có job xóa cho user id: " + id));
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy tiến độ xóa user thành công", res));
+    }
+
+    @GetMapping("/audit")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Nhật ký thay đổi task/user, mới nhất trước (keyset), lọc theo đối tượng hoặc người thực hiện (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> getAuditLog(
+            @RequestParam(name = "entityType", required = false) String entityType,
+            @RequestParam(name = "entityId", required = false) Integer entityId,
+            @RequestParam(name = "actorId", required = false) Integer actorId,
+            @RequestParam(name = "after", required = false) String after,
+            Pageable pageable
+    ) {
+        checkAdmin();
+
+        AuditDto.AuditPage res = auditLog.find(entityType, entityId, actorId, after, pageable.getPageSize());
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy nhật ký thay đổi thành công", res));
+    }
+
+    @PostMapping("/users/{id}/revoke-tokens")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Thu hồi toàn bộ token của một user (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> revokeUserTokens(@PathVariable Integer id) {
+        checkAdmin();
+
+        userService.revokeAllTokens(id);
+        return ResponseEntity.ok(ApiResponse.success(200, "Đã thu hồi toàn bộ token của user", null));
+    }
+
+    @PostMapping("/tasks/search/rebuild")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Dựng lại index tìm kiếm task từ DB (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> rebuildTaskSearchIndex() {
+        checkAdmin();
+
+        // Chạy nền; index cũ vẫn phục vụ tìm kiếm cho tới khi dựng xong
+        boolean started = taskSearchIndex.rebuildAsync();
+        String message = started ? "Đã bắt đầu dựng lại index tìm kiếm" : "Index tìm kiếm đang được dựng lại";
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(202, message, null));
+    }
+
+    @GetMapping("/metrics")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Xem số liệu cache/bộ đếm nội bộ (chỉ ADMIN)")
+    public ResponseEntity<ApiResponse<?>> getMetrics() {
+        checkAdmin();
+
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("jwtCache", jwtService.cacheStats());
+        metrics.put("principalCache", principalCache.stats());
+        metrics.put("passwordHashExecutor", passwordHasher.stats());
+        metrics.put("revokedTokens", revocations.size());
+        metrics.put("rateLimiter", rateLimitFilter.stats());
+        metrics.put("taskCounters", taskCounters.stats());
+        metrics.put("taskArchive", taskArchiver.stats());
+        metrics.put("taskSearch", taskSearchIndex.stats());
+        metrics.put("taskDeadlines", taskDeadlines.stats());
+        metrics.put("userDeletion", userDeletions.stats());
+        metrics.put("audit", auditLog.stats());
+        metrics.put("hibernateCache", hibernateCacheMetrics.stats());
+        routingDataSource.ifAvailable(ds -> metrics.put("dataSourceRouting", ds.stats()));
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy số liệu thành công", metrics));
     }
 }
@@ -3,6 +3,7 @@ package com.example.demo.controller;
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.AuthDto;
 import com.example.demo.entity.User;
+import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.service.UserAuthService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -46,7 +47,35 @@ public class AuthController {
     @PostMapping("/login")
     @Operation(summary = "Đăng nhập và nhận JWT token")
     public ResponseEntity<ApiResponse<?>> login(@Valid @RequestBody AuthDto.LoginRequest req) {
-        String token = service.login(req.email(), req.password());
-        return ResponseEntity.ok(ApiResponse.success(200, "Đăng nhập thành công", new AuthDto.TokenResponse(token)));
+        AuthDto.TokenResponse tokens = service.login(req.email(), req.password());
+        return ResponseEntity.ok(ApiResponse.success(200, "Đăng nhập thành công", tokens));
+    }
+
+    /**
+     * Lấy access token mới bằng refresh token (refresh token cũ bị vô hiệu, trả về refresh token mới)
+     * - Truyền JSON: { "refreshToken": "..." }
+     */
+    @PostMapping("/refresh")
+    @Operation(summary = "Làm mới access token bằng refresh token")
+    public ResponseEntity<ApiResponse<?>> refresh(@Valid @RequestBody AuthDto.RefreshRequest req) {
+        AuthDto.TokenResponse tokens = service.refresh(req.refreshToken());
+        return ResponseEntity.ok(ApiResponse.success(200, "Làm mới token thành công", tokens));
+    }
+
+    /**
+     * Đăng xuất: access token trong header Authorization bị thu hồi ngay, không chờ hết hạn
+     * - Có thể truyền JSON: { "refreshToken": "..." } để thu hồi luôn refresh token
+     */
+    @PostMapping("/logout")
+    @Operation(summary = "Đăng xuất và thu hồi token")
+    public ResponseEntity<ApiResponse<?>> logout(
+            @RequestHeader(name = "Authorization", required = false) String authorization,
+            @RequestBody(required = false) AuthDto.LogoutRequest req
+    ) {
+        if (authorization == null || !authorization.startsWith("Bearer ")) {
+            throw new UnauthorizedException("Thiếu access token");
+        }
+        service.logout(authorization.substring(7), req == null ? null : req.refreshToken());
+        return ResponseEntity.ok(ApiResponse.success(200, "Đăng xuất thành công", null));
     }
 }
@@ -1,22 +1,31 @@
 package com.example.demo.controller;
 
 import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.TaskCursor;
 import com.example.demo.dto.TaskDto;
 import com.example.demo.entity.Task;
-import com.example.demo.entity.User;
-import com.example.demo.repository.UserRepository;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.exception.PreconditionFailedException;
+import com.example.demo.exception.UnauthorizedException;
+import com.example.demo.security.AuthenticatedUser;
 import com.example.demo.security.SecurityUtil;
+import com.example.demo.service.ExportFormat;
+import com.example.demo.service.TaskImporter;
 import com.example.demo.service.TaskService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
@@ -26,16 +35,16 @@ import java.util.List;
 public class TaskController {
 
     private final TaskService taskService;
-    private final UserRepository userRepo;
+    private final TaskImporter taskImporter;
     private final SecurityUtil securityUtil;
 
-    private User getCurrentUser() {
-        String email = securityUtil.getCurrentUserEmail();
-        if (email == null) {
-            throw new RuntimeException("User chưa đăng nhập");
+    private AuthenticatedUser getCurrentUser() {
+        // Principal đã có sẵn trong SecurityContext, không cần query lại bảng users
+        AuthenticatedUser principal = securityUtil.getCurrentUser();
+        if (principal == null) {
+            throw new UnauthorizedException("User chưa đăng nhập");
         }
-        return userRepo.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User không tồn tại"));
+        return principal;
     }
 
     private boolean isAdmin() {
@@ -45,7 +54,7 @@ public class TaskController {
     @PostMapping
     @Operation(summary = "Tạo task mới")
     public ResponseEntity<ApiResponse<?>> create(@Valid @RequestBody TaskDto.TaskCreateRequest body) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         
         Task task = Task.builder()
                 .title(body.title())
@@ -57,19 +66,62 @@ public class TaskController {
             task.setStatus(Task.Status.valueOf(body.status().toUpperCase()));
         }
 
-        Task saved = taskService.create(task, currentUser);
+        Task saved = taskService.create(task, currentUser.id());
         TaskDto.TaskResponse res = mapToResponse(saved);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success(201, "Task tạo thành công", res));
     }
 
+    @PostMapping("/batch")
+    @Operation(summary = "Tạo nhiều task trong một request")
+    public ResponseEntity<ApiResponse<?>> createBatch(@RequestBody TaskDto.TaskBatchRequest body) {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        TaskDto.TaskBatchResponse res = taskService.createBatch(body.tasks(), currentUser.id());
+        HttpStatus status = res.failed() == 0 ? HttpStatus.CREATED : HttpStatus.OK;
+        String message = String.format("Tạo %d/%d task thành công", res.created(), res.items().size());
+        return ResponseEntity.status(status)
+                .body(ApiResponse.success(status.value(), message, res));
+    }
+
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv", "application/octet-stream", "text/plain"})
+    @Operation(summary = "Import task từ file NDJSON hoặc CSV (gửi thẳng nội dung file trong body)")
+    public ResponseEntity<ApiResponse<?>> importTasks(
+            @RequestParam(name = "format", required = false) String format,
+            HttpServletRequest request
+    ) throws IOException {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        // Không có format thì suy từ Content-Type: text/csv là CSV, còn lại là NDJSON
+        ExportFormat fmt = format == null && request.getContentType() != null
+                && request.getContentType().startsWith(ExportFormat.CSV.contentType())
+                ? ExportFormat.CSV : ExportFormat.fromParam(format);
+        TaskDto.TaskImportResponse res = taskImporter.importTasks(request.getInputStream(), fmt, currentUser.id());
+        String message = String.format("Import %d/%d task thành công", res.created(), res.rows());
+        return ResponseEntity.ok(ApiResponse.success(200, message, res));
+    }
+
+    @GetMapping("/imports")
+    @Operation(summary = "Tiến độ các lần import đang chạy và gần nhất")
+    public ResponseEntity<ApiResponse<?>> imports() {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        // User thường chỉ thấy import của mình; ADMIN thấy mọi import
+        List<TaskDto.TaskImportProgress> res = taskImporter.progress(isAdmin() ? null : currentUser.id());
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy tiến độ import thành công", res));
+    }
+
     @GetMapping
     @Operation(summary = "Lấy danh sách task với phân trang, sắp xếp và filter")
     public ResponseEntity<ApiResponse<?>> findAll(
             @RequestParam(name = "status", required = false) String status,
+            @RequestParam(name = "mode", required = false) String mode,
+            @RequestParam(name = "after", required = false) String after,
+            @RequestParam(name = "orderBy", required = false) String orderBy,
+            @RequestParam(name = "includeArchived", defaultValue = "false") boolean includeArchived,
             Pageable pageable
     ) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         boolean admin = isAdmin();
         
         Task.Status statusEnum = null;
@@ -82,16 +134,44 @@ public class TaskController {
             }
         }
         
-        Page<Task> taskPage;
-        if (admin) {
+        Integer ownerId = admin ? null : currentUser.id();
+        if ("cursor".equalsIgnoreCase(mode) && includeArchived) {
+            throw new BadRequestException("includeArchived chưa hỗ trợ mode=cursor");
+        }
+
+        if ("cursor".equalsIgnoreCase(mode)) {
+            // Keyset: trang sau bắt đầu ngay sau dòng cuối của trang trước, không dùng OFFSET
+            TaskCursor cursor = TaskCursor.decode(after, TaskCursor.SortKey.fromParam(orderBy));
+            TaskDto.TaskCursorPage page = admin
+                    ? taskService.findAllByCursor(cursor, pageable.getPageSize(), statusEnum)
+                    : taskService.findByUserIdByCursor(currentUser.id(), cursor, pageable.getPageSize(), statusEnum);
+            return ResponseEntity.ok(ApiResponse.success(200, "Lấy danh sách task thành công", page));
+        }
+
+        if ("slice".equalsIgnoreCase(mode)) {
+            // Slice: không chạy SELECT COUNT(*), chỉ báo còn trang sau hay không
+            Slice<TaskDto.TaskResponse> slice;
+            if (includeArchived) {
+                slice = taskService.findSliceWithArchived(ownerId, pageable, statusEnum);
+            } else {
+                slice = admin
+                        ? taskService.findAllSlice(pageable, statusEnum)
+                        : taskService.findByUserIdSlice(currentUser.id(), pageable, statusEnum);
+            }
+            return TaskResponses.slice(slice, pageable, statusEnum);
+        }
+
+        Page<TaskDto.TaskResponse> taskPage;
+        if (includeArchived) {
+            // Gộp cả task COMPLETED đã chuyển sang bảng lưu trữ
+            taskPage = taskService.findWithArchived(ownerId, pageable, statusEnum);
+        } else if (admin) {
             taskPage = taskService.findAll(pageable, statusEnum);
         } else {
-            taskPage = taskService.findByUser(currentUser, pageable, statusEnum);
+            taskPage = taskService.findByUserId(currentUser.id(), pageable, statusEnum);
         }
 
-        List<TaskDto.TaskResponse> res = taskPage.getContent().stream()
-                .map(this::mapToResponse)
-                .toList();
+        List<TaskDto.TaskResponse> res = taskPage.getContent();
         
         String message = String.format(
                 "Lấy danh sách task thành công (trang %d/%d, tổng %d task%s)",
@@ -104,27 +184,55 @@ public class TaskController {
         return ResponseEntity.ok(ApiResponse.success(200, message, res));
     }
 
+    @GetMapping("/search")
+    @Operation(summary = "Tìm task theo từ khóa trong title/description")
+    public ResponseEntity<ApiResponse<?>> search(
+            @RequestParam(name = "q") String q,
+            @RequestParam(name = "size", defaultValue = "20") int size
+    ) {
+        AuthenticatedUser currentUser = getCurrentUser();
+        boolean admin = isAdmin();
+
+        // User thường chỉ thấy task của mình; ADMIN tìm trên mọi task
+        TaskDto.TaskSearchResponse res = taskService.search(q, size, currentUser.id(), admin);
+        String message = String.format("Tìm thấy %d task", res.totalHits());
+        return ResponseEntity.ok(ApiResponse.success(200, message, res));
+    }
+
+    @GetMapping("/stats")
+    @Operation(summary = "Thống kê task của user hiện tại theo status và số task quá hạn")
+    public ResponseEntity<ApiResponse<?>> stats() {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        TaskDto.TaskStatsResponse res = taskService.stats(currentUser.id());
+        return ResponseEntity.ok(ApiResponse.success(200, "Lấy thống kê task thành công", res));
+    }
+
     @GetMapping("/{id}")
     @Operation(summary = "Lấy task theo ID")
     public ResponseEntity<ApiResponse<?>> findById(@PathVariable Integer id) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         boolean admin = isAdmin();
         
-        Task task = taskService.findById(id, currentUser, admin);
-        TaskDto.TaskResponse res = mapToResponse(task);
-        return ResponseEntity.ok(ApiResponse.success(200, "Lấy task thành công", res));
+        TaskDto.TaskResponse res = taskService.getResponse(id, currentUser.id(), admin);
+        return ResponseEntity.ok()
+                .eTag(eTag(res.version()))
+                .body(ApiResponse.success(200, "Lấy task thành công", res));
     }
 
     @PutMapping("/{id}")
     @Operation(summary = "Cập nhật task")
     public ResponseEntity<ApiResponse<?>> update(@PathVariable Integer id,
+                                                  @RequestHeader(name = HttpHeaders.IF_MATCH, required = false) String ifMatch,
                                                   @Valid @RequestBody TaskDto.TaskUpdateRequest body) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         boolean admin = isAdmin();
         
+        // Builder mặc định status PENDING: để null khi body không gửi status thì task giữ status hiện tại
         Task input = Task.builder()
                 .title(body.title())
                 .description(body.description())
+                .status(null)
                 .deadline(body.deadline())
                 .build();
         
@@ -132,21 +240,85 @@ public class TaskController {
             input.setStatus(Task.Status.valueOf(body.status().toUpperCase()));
         }
 
-        Task updated = taskService.update(id, input, currentUser, admin);
-        TaskDto.TaskResponse res = mapToResponse(updated);
-        return ResponseEntity.ok(ApiResponse.success(200, "Task cập nhật thành công", res));
+        Integer expectedVersion = parseIfMatch(ifMatch);
+        TaskDto.TaskResponse res;
+        if (expectedVersion != null) {
+            res = taskService.updateIfMatch(id, input, expectedVersion, currentUser.id(), admin);
+        } else {
+            res = mapToResponse(taskService.update(id, input, currentUser.id(), admin));
+        }
+        return ResponseEntity.ok()
+                .eTag(eTag(res.version()))
+                .body(ApiResponse.success(200, "Task cập nhật thành công", res));
+    }
+
+    @PutMapping("/bulk/status")
+    @Operation(summary = "Đổi status của nhiều task")
+    public ResponseEntity<ApiResponse<?>> bulkUpdateStatus(@Valid @RequestBody TaskDto.TaskBulkStatusRequest body) {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        Task.Status status;
+        try {
+            status = Task.Status.valueOf(body.status().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(400, "Status không hợp lệ. Chỉ chấp nhận: PENDING, IN_PROGRESS, COMPLETED"));
+        }
+
+        TaskDto.TaskBulkResponse res = taskService.bulkUpdateStatus(body.ids(), status, currentUser.id(), isAdmin());
+        return ResponseEntity.ok(ApiResponse.success(200, "Cập nhật " + res.affected() + " task thành công", res));
+    }
+
+    @PutMapping("/bulk/deadline")
+    @Operation(summary = "Đổi deadline của nhiều task")
+    public ResponseEntity<ApiResponse<?>> bulkUpdateDeadline(@Valid @RequestBody TaskDto.TaskBulkDeadlineRequest body) {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        TaskDto.TaskBulkResponse res = taskService.bulkUpdateDeadline(body.ids(), body.deadline(), currentUser.id(), isAdmin());
+        return ResponseEntity.ok(ApiResponse.success(200, "Cập nhật " + res.affected() + " task thành công", res));
+    }
+
+    @PostMapping("/bulk/delete")
+    @Operation(summary = "Xóa nhiều task")
+    public ResponseEntity<ApiResponse<?>> bulkDelete(@Valid @RequestBody TaskDto.TaskBulkDeleteRequest body) {
+        AuthenticatedUser currentUser = getCurrentUser();
+
+        TaskDto.TaskBulkResponse res = taskService.bulkDelete(body.ids(), currentUser.id(), isAdmin());
+        return ResponseEntity.ok(ApiResponse.success(200, "Xóa " + res.affected() + " task thành công", res));
     }
 
     @DeleteMapping("/{id}")
     @Operation(summary = "Xóa task")
     public ResponseEntity<ApiResponse<?>> delete(@PathVariable Integer id) {
-        User currentUser = getCurrentUser();
+        AuthenticatedUser currentUser = getCurrentUser();
         boolean admin = isAdmin();
         
-        taskService.delete(id, currentUser, admin);
+        taskService.delete(id, currentUser.id(), admin);
         return ResponseEntity.ok(ApiResponse.success(200, "Task xóa thành công", null));
     }
 
+    private static String eTag(Integer version) {
+        return "\"" + version + "\"";
+    }
+
+    // If-Match: "3"; "*" (hoặc không gửi) nghĩa là không kiểm tra version.
+    // If-Match so sánh mạnh (RFC 7232 §3.1): ETag yếu W/"3" không bao giờ khớp nên trả 412
+    private static Integer parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            throw new PreconditionFailedException("If-Match không chấp nhận ETag yếu (W/)");
+        }
+        value = value.replace("\"", "");
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match không khớp với version hiện tại của task");
+        }
+    }
+
     private TaskDto.TaskResponse mapToResponse(Task task) {
         return new TaskDto.TaskResponse(
                 task.getId(),
@@ -156,7 +328,8 @@ public class TaskController {
                 task.getStatus().toString(),
                 task.getDeadline(),
                 task.getCreatedAt(),
-                task.getUpdatedAt()
+                task.getUpdatedAt(),
+                task.getVersion()
         );
     }
 }
@@ -0,0 +1,27 @@
+package com.example.demo.controller;
+
+import com.example.demo.dto.ApiResponse;
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Response danh sách task dùng chung cho TaskController và AdminController.
+ */
+final class TaskResponses {
+
+    private TaskResponses() {}
+
+    // mode=slice: không có tổng số, chỉ báo còn trang sau hay không
+    static ResponseEntity<ApiResponse<?>> slice(Slice<TaskDto.TaskResponse> slice, Pageable pageable, Task.Status status) {
+        String message = String.format(
+                "Lấy danh sách task thành công (trang %d, %s trang sau%s)",
+                pageable.getPageNumber() + 1,
+                slice.hasNext() ? "còn" : "không còn",
+                status != null ? ", status: " + status : ""
+        );
+        return ResponseEntity.ok(ApiResponse.success(200, message, slice.getContent()));
+    }
+}
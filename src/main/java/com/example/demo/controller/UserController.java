@@ -3,17 +3,17 @@ package com.example.demo.controller;
 import com.example.demo.dto.ApiResponse;
 import com.example.demo.dto.UserDto;
 import com.example.demo.entity.User;
+import com.example.demo.service.UserDeletionService;
 import com.example.demo.service.UserService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequiredArgsConstructor
 @RequestMapping("/api/users")
@@ -22,6 +22,7 @@ import java.util.List;
 public class UserController {
 
     private final UserService service;
+    private final UserDeletionService deletions;
 
     @PostMapping
     @Operation(summary = "Tạo người dùng mới")
@@ -40,12 +41,14 @@ public class UserController {
     }
 
     @GetMapping
-    @Operation(summary = "Lấy danh sách tất cả người dùng")
-    public ResponseEntity<ApiResponse<?>> getAll() {
-        List<User> users = service.findAll();
-        List<UserDto.UserResponse> res = users.stream()
-                .map(this::mapToResponse)
-                .toList();
+    @Operation(summary = "Lấy danh sách người dùng theo trang (keyset), lọc theo tiền tố email hoặc họ tên")
+    public ResponseEntity<ApiResponse<?>> getAll(
+            @RequestParam(name = "email", required = false) String email,
+            @RequestParam(name = "name", required = false) String name,
+            @RequestParam(name = "after", required = false) String after,
+            Pageable pageable
+    ) {
+        UserDto.UserCursorPage res = service.findByCursor(email, name, after, pageable.getPageSize());
         return ResponseEntity.ok(ApiResponse.success(200, "Lấy danh sách người dùng thành công", res));
     }
 
@@ -73,10 +76,13 @@ public class UserController {
     }
 
     @DeleteMapping("/{id}")
-    @Operation(summary = "Xóa người dùng")
+    @Operation(summary = "Xóa người dùng: vô hiệu hóa ngay, dữ liệu được xóa dần ở nền")
     public ResponseEntity<ApiResponse<?>> delete(@PathVariable Integer id) {
         service.delete(id);
-        return ResponseEntity.ok(ApiResponse.success(200, "Người dùng xóa thành công", null));
+        // Tiến độ xem qua GET /api/admin/users/{id}/deletion
+        UserDto.UserDeletionStatus res = deletions.status(id).orElse(null);
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(202, "Người dùng đã bị vô hiệu hóa, đang xóa dữ liệu", res));
     }
 
     private UserDto.UserResponse mapToResponse(User user) {
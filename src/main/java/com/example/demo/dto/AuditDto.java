@@ -0,0 +1,29 @@
+package com.example.demo.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public final class AuditDto {
+    private AuditDto() {}
+
+    // before/after là JSON đã lưu trong audit_log, trả nguyên văn (null khi tạo/xóa)
+    public record AuditEntry(
+            Long id,
+            LocalDateTime occurredAt,
+            Integer actorId,
+            String entityType,
+            Integer entityId,
+            String action,
+            @JsonRawValue String before,
+            @JsonRawValue String after
+    ) {}
+
+    // Mới nhất trước; nextCursor là id của dòng cuối trang, truyền lại qua tham số after
+    public record AuditPage(
+            List<AuditEntry> items,
+            String nextCursor,
+            boolean hasNext
+    ) {}
+}
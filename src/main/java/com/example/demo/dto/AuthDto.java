@@ -33,7 +33,14 @@ public class AuthDto {
             String password
     ) {}
 
-    public record TokenResponse(String token) {}
+    public record RefreshRequest(
+            @NotBlank(message = "Refresh token không được để trống")
+            String refreshToken
+    ) {}
+
+    public record LogoutRequest(String refreshToken) {}
+
+    public record TokenResponse(String token, String refreshToken) {}
 
     public record UserResponse(Integer id, String email, String fullName, String role) {}
 }
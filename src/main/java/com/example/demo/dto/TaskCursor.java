@@ -0,0 +1,82 @@
+package com.example.demo.dto;
+
+import com.example.demo.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Vị trí trong danh sách task khi phân trang theo keyset: (sort key, giá trị sort, id) của dòng cuối trang trước.
+ * Client chỉ nhận/gửi lại chuỗi mã hóa (tham số "after"), không cần biết cấu trúc bên trong.
+ */
+public record TaskCursor(SortKey sort, LocalDateTime key, Integer id, boolean noDeadline) {
+
+    // Giá trị biên để trang đầu dùng chung truy vấn seek với các trang sau
+    private static final LocalDateTime MIN_TIME = LocalDateTime.of(1000, 1, 1, 0, 0);
+    private static final LocalDateTime MAX_TIME = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    public enum SortKey {
+        ID("id"), CREATED_AT("createdAt"), DEADLINE("deadline");
+
+        private final String param;
+
+        SortKey(String param) {
+            this.param = param;
+        }
+
+        public static SortKey fromParam(String value) {
+            if (value == null || value.isEmpty()) {
+                return CREATED_AT;
+            }
+            for (SortKey k : values()) {
+                if (k.param.equalsIgnoreCase(value)) {
+                    return k;
+                }
+            }
+            throw new BadRequestException("orderBy không hợp lệ. Chỉ chấp nhận: id, createdAt, deadline");
+        }
+    }
+
+    public static TaskCursor first(SortKey sort) {
+        return switch (sort) {
+            case ID -> new TaskCursor(sort, null, 0, false);
+            case CREATED_AT -> new TaskCursor(sort, MAX_TIME, Integer.MAX_VALUE, false);
+            case DEADLINE -> new TaskCursor(sort, MIN_TIME, 0, false);
+        };
+    }
+
+    public static TaskCursor after(SortKey sort, TaskDto.TaskResponse last) {
+        return switch (sort) {
+            case ID -> new TaskCursor(sort, null, last.id(), false);
+            case CREATED_AT -> new TaskCursor(sort, last.createdAt(), last.id(), false);
+            case DEADLINE -> new TaskCursor(sort, last.deadline(), last.id(), last.deadline() == null);
+        };
+    }
+
+    public String encode() {
+        String raw = sort.name() + "|" + (key == null ? "" : key) + "|" + id + "|" + (noDeadline ? 1 : 0);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Giải mã cursor; nếu có thì sort của cursor phải trùng sort đang yêu cầu. */
+    public static TaskCursor decode(String value, SortKey expected) {
+        if (value == null || value.isEmpty()) {
+            return first(expected);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            SortKey sort = SortKey.valueOf(parts[0]);
+            if (sort != expected) {
+                throw new BadRequestException("Cursor không khớp với orderBy");
+            }
+            LocalDateTime key = parts[1].isEmpty() ? null : LocalDateTime.parse(parts[1]);
+            return new TaskCursor(sort, key, Integer.valueOf(parts[2]), "1".equals(parts[3]));
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor không hợp lệ", e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.demo.dto;
 
+import com.example.demo.entity.Task;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
 
 public final class TaskDto {
     private TaskDto() {}
@@ -20,6 +24,55 @@ public final class TaskDto {
             LocalDateTime deadline
     ) {}
 
+    public record TaskBatchRequest(
+            List<TaskCreateRequest> tasks
+    ) {}
+
+    // Kết quả từng task trong batch: id khi tạo thành công, error khi không hợp lệ
+    public record TaskBatchItemResult(
+            int index,
+            Integer id,
+            String error
+    ) {}
+
+    public record TaskBatchResponse(
+            int created,
+            int failed,
+            List<TaskBatchItemResult> items
+    ) {}
+
+    // row: số dòng trong file (tính từ 1, kể cả dòng tiêu đề CSV) nơi bắt đầu bản ghi lỗi
+    public record TaskImportError(
+            long row,
+            String error
+    ) {}
+
+    // errorsTruncated: có nhiều lỗi hơn số lỗi được liệt kê trong errors
+    public record TaskImportResponse(
+            String importId,
+            long rows,
+            long created,
+            long failed,
+            List<TaskImportError> errors,
+            boolean errorsTruncated,
+            long durationMillis,
+            double rowsPerSecond
+    ) {}
+
+    // Tiến độ một lần import (status: RUNNING, COMPLETED, FAILED); finishedAt = null khi đang chạy
+    public record TaskImportProgress(
+            String importId,
+            Integer userId,
+            String format,
+            String status,
+            long rows,
+            long created,
+            long failed,
+            double rowsPerSecond,
+            LocalDateTime startedAt,
+            LocalDateTime finishedAt
+    ) {}
+
     public record TaskUpdateRequest(
             @NotBlank(message = "Title không được để trống")
             @Size(max = 200, message = "Title tối đa 200 ký tự")
@@ -32,6 +85,33 @@ public final class TaskDto {
             LocalDateTime deadline
     ) {}
 
+    public record TaskBulkStatusRequest(
+            @NotEmpty(message = "Danh sách id không được để trống")
+            List<Integer> ids,
+
+            @NotBlank(message = "Status không được để trống")
+            String status
+    ) {}
+
+    // deadline = null nghĩa là xóa deadline của các task
+    public record TaskBulkDeadlineRequest(
+            @NotEmpty(message = "Danh sách id không được để trống")
+            List<Integer> ids,
+
+            LocalDateTime deadline
+    ) {}
+
+    public record TaskBulkDeleteRequest(
+            @NotEmpty(message = "Danh sách id không được để trống")
+            List<Integer> ids
+    ) {}
+
+    // rejectedIds: id không tồn tại hoặc không thuộc user hiện tại
+    public record TaskBulkResponse(
+            int affected,
+            List<Integer> rejectedIds
+    ) {}
+
     public record TaskResponse(
             Integer id,
             Integer userId,
@@ -40,6 +120,33 @@ public final class TaskDto {
             String status,
             LocalDateTime deadline,
             LocalDateTime createdAt,
-            LocalDateTime updatedAt
+            LocalDateTime updatedAt,
+            Integer version
+    ) {
+        // Dùng cho truy vấn projection "select new ...TaskResponse(...)" (status là enum trong entity)
+        public TaskResponse(Integer id, Integer userId, String title, String description, Task.Status status,
+                            LocalDateTime deadline, LocalDateTime createdAt, LocalDateTime updatedAt, Integer version) {
+            this(id, userId, title, description, status.name(), deadline, createdAt, updatedAt, version);
+        }
+    }
+
+    // totalHits: số task khớp trong index (có thể lớn hơn số item trả về)
+    public record TaskSearchResponse(
+            List<TaskResponse> items,
+            long totalHits
+    ) {}
+
+    // userId = null: thống kê trên mọi user (ADMIN). overdue: deadline đã qua và chưa COMPLETED
+    public record TaskStatsResponse(
+            Integer userId,
+            long total,
+            Map<String, Long> byStatus,
+            long overdue
+    ) {}
+
+    public record TaskCursorPage(
+            List<TaskResponse> items,
+            String nextCursor,
+            boolean hasNext
     ) {}
 }
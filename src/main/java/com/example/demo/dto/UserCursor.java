@@ -0,0 +1,54 @@
+package com.example.demo.dto;
+
+import com.example.demo.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Vị trí trong danh sách user khi phân trang theo keyset: (sort key, giá trị sort, id) của dòng cuối trang trước.
+ * Sort do filter quyết định: lọc theo tiền tố email thì sắp theo email, theo tiền tố họ tên thì theo (họ tên, id),
+ * không lọc thì theo id.
+ */
+public record UserCursor(SortKey sort, String key, Integer id) {
+
+    public enum SortKey { ID, EMAIL, NAME }
+
+    public static UserCursor first(SortKey sort) {
+        return new UserCursor(sort, "", 0);
+    }
+
+    public static UserCursor after(SortKey sort, UserDto.UserResponse last) {
+        return switch (sort) {
+            case ID -> new UserCursor(sort, "", last.id());
+            case EMAIL -> new UserCursor(sort, last.email(), last.id());
+            case NAME -> new UserCursor(sort, last.fullName(), last.id());
+        };
+    }
+
+    public String encode() {
+        // key để cuối vì email/họ tên có thể chứa dấu "|"
+        String raw = sort.name() + "|" + id + "|" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** Giải mã cursor; nếu có thì sort của cursor phải trùng sort của filter đang yêu cầu. */
+    public static UserCursor decode(String value, SortKey expected) {
+        if (value == null || value.isEmpty()) {
+            return first(expected);
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 3);
+            SortKey sort = SortKey.valueOf(parts[0]);
+            if (sort != expected) {
+                throw new BadRequestException("Cursor không khớp với filter");
+            }
+            return new UserCursor(sort, parts[2], Integer.valueOf(parts[1]));
+        } catch (BadRequestException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            throw new BadRequestException("Cursor không hợp lệ", e);
+        }
+    }
+}
@@ -5,6 +5,9 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.Size;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 public final class UserDto {
     private UserDto() {}
 
@@ -42,4 +45,22 @@ public final class UserDto {
     ) {}
 
     public record UserResponse(Integer id, String email, String fullName, String role) {}
+
+    // Tiến độ xóa user (status: PENDING, RUNNING, COMPLETED, FAILED); tasksTotal là số task lúc bắt đầu
+    public record UserDeletionStatus(
+            Integer userId,
+            String status,
+            long tasksTotal,
+            long tasksDeleted,
+            long archivedTasksDeleted,
+            LocalDateTime queuedAt,
+            LocalDateTime finishedAt,
+            String error
+    ) {}
+
+    public record UserCursorPage(
+            List<UserResponse> items,
+            String nextCursor,
+            boolean hasNext
+    ) {}
 }
@@ -0,0 +1,30 @@
+package com.example.demo.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Setter
+@Entity
+@Builder
+@Table(name = "revoked_tokens")
+public class RevokedToken {
+
+    // jti của access token
+    @Id
+    private Long jti;
+
+    @Column(name = "user_id", nullable = false)
+    private Integer userId;
+
+    // Hết hạn cùng access token; sau thời điểm này bản ghi có thể xóa
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    @Column(name = "revoked_at", nullable = false)
+    private LocalDateTime revokedAt;
+}
@@ -53,6 +53,11 @@ public class Task {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    // Tăng sau mỗi lần sửa; trả về client dưới dạng ETag để dùng với If-Match
+    @Version
+    @Column(nullable = false)
+    private Integer version;
+
     @PrePersist
     void onCreate() {
         if (createdAt == null) {
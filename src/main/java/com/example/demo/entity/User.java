@@ -4,6 +4,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.time.LocalDateTime;
 
@@ -14,6 +18,10 @@ import java.time.LocalDateTime;
 @Builder
 @Entity
 @Table(name = "users")
+// Cache cấp 2: tra theo id và theo email (natural id) không cần truy vấn DB; Hibernate tự cập nhật khi sửa/xóa
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
+@NaturalIdCache(region = "users-by-email")
 public class User {
 
     @Id
@@ -22,6 +30,7 @@ public class User {
 
     @NotBlank(message = "Email không được để trống")
     @Email(message = "Email không hợp lệ")
+    @NaturalId(mutable = true)
     @Column(name = "email", nullable = false, unique = true, length = 150)
     private String email;
 
@@ -42,6 +51,19 @@ public class User {
     @Builder.Default
     private String role = "USER";
 
+    // Tăng mỗi khi role/mật khẩu/email đổi để vô hiệu hóa các JWT đã cấp trước đó
+    @Column(name = "token_version", nullable = false)
+    @Builder.Default
+    private Integer tokenVersion = 0;
+
+    // Bị vô hiệu hóa (đang chờ xóa): không đăng nhập được, JWT đã cấp bị từ chối
+    @Column(name = "disabled", nullable = false)
+    @Builder.Default
+    private boolean disabled = false;
+
+    @Column(name = "delete_requested_at")
+    private LocalDateTime deleteRequestedAt;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
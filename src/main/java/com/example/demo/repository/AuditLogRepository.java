@@ -0,0 +1,126 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.AuditDto;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ghi/đọc audit_log và audit_outbox bằng JDBC batch (AuditLog). Chạy trong transaction hiện tại
+ * (JdbcTemplate dùng chung connection với JPA), nên ở chế độ outbox dòng audit commit cùng thay đổi.
+ */
+@Repository
+public class AuditLogRepository {
+
+    private static final String COLUMNS =
+            "occurred_at, actor_id, entity_type, entity_id, action, before_json, after_json";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AuditLogRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(List<Entry> entries) {
+        insertInto("audit_log", entries);
+    }
+
+    public void insertOutbox(List<Entry> entries) {
+        insertInto("audit_outbox", entries);
+    }
+
+    /**
+     * Chuyển tối đa limit dòng cũ nhất của outbox sang audit_log (giữ thứ tự) rồi xóa khỏi outbox.
+     * FOR UPDATE để hai instance không chuyển trùng cùng một dòng.
+     */
+    public int moveOutbox(int limit) {
+        List<Long> ids = new ArrayList<>(limit);
+        List<Entry> entries = jdbcTemplate.query(
+                "SELECT id, " + COLUMNS + " FROM audit_outbox ORDER BY id LIMIT ? FOR UPDATE",
+                (rs, i) -> {
+                    ids.add(rs.getLong("id"));
+                    return new Entry(rs.getTimestamp("occurred_at").toLocalDateTime(),
+                            rs.getObject("actor_id", Integer.class),
+                            rs.getString("entity_type"), rs.getInt("entity_id"), rs.getString("action"),
+                            rs.getString("before_json"), rs.getString("after_json"));
+                },
+                limit);
+        if (entries.isEmpty()) {
+            return 0;
+        }
+        insert(entries);
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        jdbcTemplate.update("DELETE FROM audit_outbox WHERE id IN (" + in + ")", ids.toArray());
+        return entries.size();
+    }
+
+    /**
+     * Một trang nhật ký mới nhất trước (id giảm dần), bắt đầu sau beforeId (null là trang đầu).
+     * Lọc theo đối tượng đọc theo idx_audit_entity, theo người thực hiện đọc theo idx_audit_actor.
+     */
+    public List<AuditDto.AuditEntry> find(String entityType, Integer entityId, Integer actorId, Long beforeId, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT id, " + COLUMNS + " FROM audit_log WHERE 1 = 1");
+        List<Object> args = new ArrayList<>();
+        if (entityType != null) {
+            sql.append(" AND entity_type = ?");
+            args.add(entityType);
+        }
+        if (entityId != null) {
+            sql.append(" AND entity_id = ?");
+            args.add(entityId);
+        }
+        if (actorId != null) {
+            sql.append(" AND actor_id = ?");
+            args.add(actorId);
+        }
+        if (beforeId != null) {
+            sql.append(" AND id < ?");
+            args.add(beforeId);
+        }
+        sql.append(" ORDER BY id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, i) -> new AuditDto.AuditEntry(
+                rs.getLong("id"),
+                rs.getTimestamp("occurred_at").toLocalDateTime(),
+                rs.getObject("actor_id", Integer.class),
+                rs.getString("entity_type"),
+                rs.getInt("entity_id"),
+                rs.getString("action"),
+                rs.getString("before_json"),
+                rs.getString("after_json")), args.toArray());
+    }
+
+    private void insertInto(String table, List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO " + table + " (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?)",
+                entries, entries.size(), (PreparedStatement ps, Entry e) -> setValues(ps, e));
+    }
+
+    private static void setValues(PreparedStatement ps, Entry e) throws SQLException {
+        ps.setTimestamp(1, Timestamp.valueOf(e.occurredAt()));
+        if (e.actorId() != null) {
+            ps.setInt(2, e.actorId());
+        } else {
+            ps.setNull(2, Types.INTEGER);
+        }
+        ps.setString(3, e.entityType());
+        ps.setInt(4, e.entityId());
+        ps.setString(5, e.action());
+        ps.setString(6, e.beforeJson());
+        ps.setString(7, e.afterJson());
+    }
+
+    // Một dòng nhật ký đã chuyển sang JSON, sẵn sàng INSERT
+    public record Entry(LocalDateTime occurredAt, Integer actorId, String entityType, Integer entityId,
+                        String action, String beforeJson, String afterJson) {}
+}
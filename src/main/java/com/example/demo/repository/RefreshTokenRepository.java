@@ -0,0 +1,43 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.RefreshToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    @Query("select r from RefreshToken r join fetch r.user where r.tokenHash = :tokenHash")
+    Optional<RefreshToken> findByTokenHashWithUser(@Param("tokenHash") String tokenHash);
+
+    // Đánh dấu đã dùng có điều kiện: 2 request refresh đồng thời chỉ có 1 request thắng
+    @Modifying
+    @Query("update RefreshToken r set r.usedAt = :now where r.id = :id and r.usedAt is null and r.revokedAt is null")
+    int markUsed(@Param("id") Long id, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revokedAt = :now where r.familyId = :familyId and r.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update RefreshToken r set r.revokedAt = :now where r.user.id = :userId and r.revokedAt is null")
+    int revokeAllForUser(@Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
+    // Xóa theo lô để không giữ lock lâu trên bảng. Native query không khai báo bảng bị sửa thì Hibernate
+    // xóa cả L2 cache (kể cả User) sau mỗi lô; query space chỉ ra là chỉ refresh_tokens bị ảnh hưởng
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "refresh_tokens"))
+    @Query(value = "DELETE FROM refresh_tokens WHERE expires_at < :before LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("before") LocalDateTime before, @Param("batchSize") int batchSize);
+}
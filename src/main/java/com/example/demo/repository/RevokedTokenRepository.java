@@ -0,0 +1,38 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.RevokedToken;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, Long> {
+
+    @Query("select r.jti as jti, r.expiresAt as expiresAt from RevokedToken r where r.expiresAt > :now")
+    List<RevokedView> findActive(@Param("now") LocalDateTime now);
+
+    @Query("select r.jti as jti, r.expiresAt as expiresAt from RevokedToken r " +
+            "where r.revokedAt > :since and r.expiresAt > :now")
+    List<RevokedView> findActiveRevokedAfter(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now);
+
+    // Query space: lô xóa này không làm mất các entry User trong L2 cache
+    @Modifying
+    @Transactional
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "revoked_tokens"))
+    @Query(value = "DELETE FROM revoked_tokens WHERE expires_at < :before LIMIT :batchSize", nativeQuery = true)
+    int deleteExpiredBatch(@Param("before") LocalDateTime before, @Param("batchSize") int batchSize);
+
+    interface RevokedView {
+        Long getJti();
+        LocalDateTime getExpiresAt();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import com.example.demo.exception.BadRequestException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Truy cập bảng lạnh tasks_archive bằng JDBC: chuyển task COMPLETED cũ từ tasks sang theo lô,
+ * và đọc danh sách gộp tasks + tasks_archive (UNION ALL) cho includeArchived.
+ * Chạy trong transaction hiện tại (JdbcTemplate dùng chung connection với JPA).
+ */
+@Repository
+public class TaskArchiveRepository {
+
+    private static final String COLUMNS = "id, user_id, title, description, status, deadline, created_at, updated_at, version";
+
+    // Thuộc tính sort của Pageable -> cột SQL; chỉ nhận các cột có trong cả hai bảng
+    private static final Map<String, String> SORT_COLUMNS = Map.of(
+            "id", "id",
+            "title", "title",
+            "status", "status",
+            "deadline", "deadline",
+            "createdAt", "created_at",
+            "updatedAt", "updated_at"
+    );
+
+    private static final RowMapper<TaskDto.TaskResponse> RESPONSE_MAPPER = (rs, i) -> new TaskDto.TaskResponse(
+            rs.getInt("id"),
+            rs.getInt("user_id"),
+            rs.getString("title"),
+            rs.getString("description"),
+            rs.getString("status"),
+            toLocalDateTime(rs.getTimestamp("deadline")),
+            toLocalDateTime(rs.getTimestamp("created_at")),
+            toLocalDateTime(rs.getTimestamp("updated_at")),
+            rs.getInt("version")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public TaskArchiveRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Khóa tối đa limit task COMPLETED có updated_at trước completedBefore (cũ nhất trước).
+     * SKIP LOCKED: bỏ qua dòng đang bị transaction khác giữ, job không bao giờ phải chờ request của user.
+     */
+    public List<ArchiveRef> lockArchivable(LocalDateTime completedBefore, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, user_id FROM tasks WHERE status = 'COMPLETED' AND updated_at < ? " +
+                "ORDER BY updated_at LIMIT ? FOR UPDATE SKIP LOCKED",
+                (rs, i) -> new ArchiveRef(rs.getInt("id"), rs.getInt("user_id")),
+                Timestamp.valueOf(completedBefore), limit);
+    }
+
+    /** Chép các task (đã khóa bằng lockArchivable) sang tasks_archive rồi xóa khỏi tasks. */
+    public int moveToArchive(List<Integer> ids, LocalDateTime archivedAt) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(Timestamp.valueOf(archivedAt));
+        args.addAll(ids);
+
+        int copied = jdbcTemplate.update(
+                "INSERT INTO tasks_archive (" + COLUMNS + ", archived_at) " +
+                "SELECT " + COLUMNS + ", ? FROM tasks WHERE id IN (" + in + ")",
+                args.toArray());
+        int deleted = jdbcTemplate.update("DELETE FROM tasks WHERE id IN (" + in + ")", ids.toArray());
+        if (copied != deleted) {
+            // Rollback cả lô: không để task vừa mất khỏi tasks mà không có trong tasks_archive
+            throw new IllegalStateException("Archive copied " + copied + " rows but deleted " + deleted);
+        }
+        return deleted;
+    }
+
+    /**
+     * Một trang của danh sách gộp tasks + tasks_archive. userId/status = null nghĩa là không lọc.
+     * Mỗi nhánh tự sắp xếp và chỉ lấy offset + limit dòng đầu (đi theo index của từng bảng),
+     * sau đó mới gộp, sắp xếp lại và cắt trang.
+     */
+    public List<TaskDto.TaskResponse> findWithArchived(Integer userId, Task.Status status, Sort sort,
+                                                       long offset, int limit) {
+        String orderBy = orderBy(sort);
+        long branchLimit = offset + limit;
+        List<Object> args = new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder("SELECT ").append(COLUMNS).append(" FROM (");
+        sql.append("(SELECT ").append(COLUMNS).append(" FROM tasks").append(where(userId, status, args))
+                .append(orderBy).append(" LIMIT ?)");
+        args.add(branchLimit);
+        if (archiveMayContain(status)) {
+            // Bảng lưu trữ chỉ có task COMPLETED nên không cần lọc status
+            sql.append(" UNION ALL (SELECT ").append(COLUMNS).append(" FROM tasks_archive")
+                    .append(where(userId, null, args)).append(orderBy).append(" LIMIT ?)");
+            args.add(branchLimit);
+        }
+        sql.append(") t").append(orderBy).append(" LIMIT ? OFFSET ?");
+        args.add(limit);
+        args.add(offset);
+
+        return jdbcTemplate.query(sql.toString(), RESPONSE_MAPPER, args.toArray());
+    }
+
+    /** Số task trong tasks_archive (chỉ có COMPLETED); userId = null nghĩa là mọi user. */
+    public long countArchived(Integer userId, Task.Status status) {
+        if (!archiveMayContain(status)) {
+            return 0;
+        }
+        Long count = userId == null
+                ? jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks_archive", Long.class)
+                : jdbcTemplate.queryForObject("SELECT COUNT(*) FROM tasks_archive WHERE user_id = ?", Long.class, userId);
+        return count == null ? 0 : count;
+    }
+
+    private static boolean archiveMayContain(Task.Status status) {
+        return status == null || status == Task.Status.COMPLETED;
+    }
+
+    private static String where(Integer userId, Task.Status status, List<Object> args) {
+        List<String> conditions = new ArrayList<>(2);
+        if (userId != null) {
+            conditions.add("user_id = ?");
+            args.add(userId);
+        }
+        if (status != null) {
+            conditions.add("status = ?");
+            args.add(status.name());
+        }
+        return conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions);
+    }
+
+    private static String orderBy(Sort sort) {
+        List<String> parts = new ArrayList<>();
+        boolean hasId = false;
+        for (Sort.Order order : sort) {
+            String column = SORT_COLUMNS.get(order.getProperty());
+            if (column == null) {
+                throw new BadRequestException("Không sắp xếp được theo '" + order.getProperty()
+                        + "'. Chỉ chấp nhận: id, title, status, deadline, createdAt, updatedAt");
+            }
+            hasId |= column.equals("id");
+            parts.add(column + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        if (!hasId) {
+            // Thêm id để thứ tự ổn định giữa các trang khi giá trị sort trùng nhau
+            parts.add("id ASC");
+        }
+        return " ORDER BY " + String.join(", ", parts);
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp ts) {
+        return ts == null ? null : ts.toLocalDateTime();
+    }
+
+    public record ArchiveRef(int id, int userId) {}
+}
@@ -0,0 +1,88 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Task;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ghi nhiều task bằng JDBC batch. Task dùng IDENTITY nên Hibernate không gom batch INSERT được;
+ * đi thẳng JDBC thì driver MySQL (rewriteBatchedStatements=true) gộp mỗi lô thành một câu INSERT nhiều dòng.
+ * Chạy trong transaction hiện tại (JdbcTemplate dùng chung connection với JPA).
+ */
+@Repository
+public class TaskBatchWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO tasks (title, description, status, deadline, user_id, created_at, updated_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, 0)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public TaskBatchWriter(JdbcTemplate jdbcTemplate,
+                           @Value("${app.tasks.batch.jdbc-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Insert toàn bộ task của một user; id sinh ra được gán lại vào từng task theo đúng thứ tự.
+     * created_at/updated_at/version được ghi tường minh và gán vào entity như khi persist, không dựa vào
+     * giá trị mặc định của DB (task trả về và snapshot audit không có version null).
+     */
+    public void insertAll(List<Task> tasks, Integer userId) {
+        LocalDateTime now = LocalDateTime.now();
+        for (int from = 0; from < tasks.size(); from += batchSize) {
+            List<Task> chunk = tasks.subList(from, Math.min(from + batchSize, tasks.size()));
+            KeyHolder keys = new GeneratedKeyHolder();
+            jdbcTemplate.batchUpdate(
+                    con -> con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Task t = chunk.get(i);
+                            t.setCreatedAt(now);
+                            t.setUpdatedAt(now);
+                            t.setVersion(0);
+                            ps.setString(1, t.getTitle());
+                            ps.setString(2, t.getDescription());
+                            ps.setString(3, t.getStatus().name());
+                            if (t.getDeadline() != null) {
+                                ps.setTimestamp(4, Timestamp.valueOf(t.getDeadline()));
+                            } else {
+                                ps.setNull(4, Types.TIMESTAMP);
+                            }
+                            ps.setInt(5, userId);
+                            ps.setTimestamp(6, Timestamp.valueOf(now));
+                            ps.setTimestamp(7, Timestamp.valueOf(now));
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return chunk.size();
+                        }
+                    },
+                    keys);
+
+            List<Map<String, Object>> keyList = keys.getKeyList();
+            for (int i = 0; i < chunk.size() && i < keyList.size(); i++) {
+                // Tên cột khóa khác nhau theo driver (GENERATED_KEY với MySQL, ID với H2)
+                Object key = keyList.get(i).values().iterator().next();
+                chunk.get(i).setId(((Number) key).intValue());
+            }
+        }
+    }
+}
@@ -1,13 +1,27 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.TaskDto;
 import com.example.demo.entity.Task;
 import com.example.demo.entity.User;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Integer> {
@@ -17,13 +31,227 @@ public interface TaskRepository extends JpaRepository<Task, Integer> {
 
     Page<Task> findByUser(User user, Pageable pageable);
 
-    List<Task> findByUser_Id(Integer userId);
+    // Viết JPQL tường minh: query dẫn xuất từ tên "User_Id" sinh LEFT JOIN users và lọc trên users.id,
+    // nên MySQL không dùng được index (user_id, ...) của bảng tasks. t.user.id đọc thẳng cột user_id.
+    @Query("select t from Task t where t.user.id = :userId")
+    List<Task> findByUser_Id(@Param("userId") Integer userId);
 
-    Page<Task> findByUser_Id(Integer userId, Pageable pageable);
+    @Query("select t from Task t where t.user.id = :userId")
+    Page<Task> findByUser_Id(@Param("userId") Integer userId, Pageable pageable);
 
     Page<Task> findByStatus(Task.Status status, Pageable pageable);
 
     Page<Task> findByUserAndStatus(User user, Task.Status status, Pageable pageable);
 
-    Page<Task> findByUser_IdAndStatus(Integer userId, Task.Status status, Pageable pageable);
+    @Query("select t from Task t where t.user.id = :userId and t.status = :status")
+    Page<Task> findByUser_IdAndStatus(@Param("userId") Integer userId, @Param("status") Task.Status status, Pageable pageable);
+
+    // ===== Bulk update/delete: điều kiện sở hữu nằm trong SQL, userId = null (ADMIN) bỏ qua điều kiện này =====
+
+    // Khóa các dòng sẽ bị sửa/xóa và lấy (id, user_id, status, deadline) cũ để cập nhật bộ đếm và lịch nhắc deadline
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select t.id as id, t.user.id as userId, t.status as status, t.deadline as deadline from Task t " +
+            "where t.id in :ids and (:userId is null or t.user.id = :userId)")
+    List<TaskRefView> lockRefs(@Param("ids") Collection<Integer> ids, @Param("userId") Integer userId);
+
+    // Như lockRefs nhưng lấy đủ TaskResponse cho xóa hàng loạt: bản trước của audit (xóa xong không còn gì để đọc)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(SELECT_RESPONSE + "from Task t where t.id in :ids and (:userId is null or t.user.id = :userId)")
+    List<TaskDto.TaskResponse> lockResponses(@Param("ids") Collection<Integer> ids, @Param("userId") Integer userId);
+
+    @Modifying
+    @Query("update Task t set t.status = :status, t.updatedAt = :now, t.version = t.version + 1 " +
+            "where t.id in :ids and (:userId is null or t.user.id = :userId)")
+    int updateStatusByIds(@Param("ids") Collection<Integer> ids, @Param("userId") Integer userId,
+            @Param("status") Task.Status status, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("update Task t set t.deadline = :deadline, t.updatedAt = :now, t.version = t.version + 1 " +
+            "where t.id in :ids and (:userId is null or t.user.id = :userId)")
+    int updateDeadlineByIds(@Param("ids") Collection<Integer> ids, @Param("userId") Integer userId,
+            @Param("deadline") LocalDateTime deadline, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("delete from Task t where t.id in :ids and (:userId is null or t.user.id = :userId)")
+    int deleteByIds(@Param("ids") Collection<Integer> ids, @Param("userId") Integer userId);
+
+    /**
+     * Cập nhật có điều kiện theo version (If-Match); status = null giữ status hiện tại.
+     * Trả về 0 nếu task không tồn tại, không thuộc user, hoặc version đã đổi.
+     */
+    @Modifying
+    @Query("update Task t set t.title = :title, t.description = :description, " +
+            "t.status = coalesce(:status, t.status), t.deadline = :deadline, " +
+            "t.updatedAt = :now, t.version = t.version + 1 " +
+            "where t.id = :id and t.version = :version and (:userId is null or t.user.id = :userId)")
+    int updateIfVersion(@Param("id") Integer id, @Param("userId") Integer userId, @Param("version") Integer version,
+            @Param("title") String title, @Param("description") String description,
+            @Param("status") Task.Status status, @Param("deadline") LocalDateTime deadline,
+            @Param("now") LocalDateTime now);
+
+    interface TaskRefView {
+        Integer getId();
+        Integer getUserId();
+        Task.Status getStatus();
+        LocalDateTime getDeadline();
+    }
+
+    /**
+     * Task chưa COMPLETED có deadline trong [from, to) cho TaskDeadlineScheduler.
+     * Quét theo khoảng trên idx_tasks_deadline, chỉ đọc đúng cửa sổ thời gian cần nạp.
+     */
+    @Query("select t.id as id, t.user.id as userId, t.title as title, t.deadline as deadline from Task t " +
+            "where t.deadline >= :from and t.deadline < :to and t.status <> com.example.demo.entity.Task.Status.COMPLETED")
+    List<DeadlineView> findDeadlinesBetween(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    interface DeadlineView {
+        Integer getId();
+        Integer getUserId();
+        String getTitle();
+        LocalDateTime getDeadline();
+    }
+
+    // ===== Projection: select thẳng vào TaskResponse, không tạo entity/proxy User, không snapshot dirty-checking =====
+    // t.user.id đọc cột user_id của bảng tasks, không join sang users.
+
+    String SELECT_RESPONSE = "select new com.example.demo.dto.TaskDto$TaskResponse(" +
+            "t.id, t.user.id, t.title, t.description, t.status, t.deadline, t.createdAt, t.updatedAt, t.version) ";
+
+    @Query(SELECT_RESPONSE + "from Task t where t.id = :id")
+    Optional<TaskDto.TaskResponse> findResponseById(@Param("id") Integer id);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.id in :ids")
+    List<TaskDto.TaskResponse> findResponsesByIds(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Đọc tuần tự toàn bộ task (lọc theo status, createdAt trong [from, to); null = không lọc) cho export.
+     * Fetch size Integer.MIN_VALUE: MySQL Connector/J trả từng dòng thay vì nạp cả kết quả vào bộ nhớ.
+     * Projection DTO nên persistence context không giữ entity nào, bộ nhớ không tăng theo số dòng.
+     * Phải gọi trong transaction và đóng Stream sau khi đọc xong.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_RESPONSE + "from Task t where (:status is null or t.status = :status) " +
+            "and (:from is null or t.createdAt >= :from) and (:to is null or t.createdAt < :to) order by t.id")
+    Stream<TaskDto.TaskResponse> streamForExport(@Param("status") Task.Status status,
+            @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // ===== Slice: chỉ lấy size + 1 dòng để biết còn trang sau, không chạy SELECT COUNT(*) =====
+
+    @Query(SELECT_RESPONSE + "from Task t")
+    Slice<TaskDto.TaskResponse> findAllSliced(Pageable pageable);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.status = :status")
+    Slice<TaskDto.TaskResponse> findSliceByStatus(@Param("status") Task.Status status, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId")
+    Slice<TaskDto.TaskResponse> findSliceByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.status = :status")
+    Slice<TaskDto.TaskResponse> findSliceByUserIdAndStatus(@Param("userId") Integer userId,
+            @Param("status") Task.Status status, Pageable pageable);
+
+    /** Nạp bộ đếm task theo (user, status) cho TaskCounterStore. */
+    @Query("select t.user.id as userId, t.status as status, count(t) as total from Task t group by t.user.id, t.status")
+    List<StatusCountView> countGroupByUserAndStatus();
+
+    @Query("select t.user.id as userId, t.status as status, count(t) as total from Task t " +
+            "where t.user.id = :userId group by t.user.id, t.status")
+    List<StatusCountView> countGroupByStatusForUser(@Param("userId") Integer userId);
+
+    interface StatusCountView {
+        Integer getUserId();
+        Task.Status getStatus();
+        long getTotal();
+    }
+
+    /** Số task quá hạn (deadline đã qua, chưa COMPLETED) theo user, dùng khi nạp lại TaskCounterStore. */
+    @Query("select t.user.id as userId, count(t) as total from Task t " +
+            "where t.deadline < :now and t.status <> com.example.demo.entity.Task.Status.COMPLETED group by t.user.id")
+    List<OverdueCountView> countOverdueGroupByUser(@Param("now") LocalDateTime now);
+
+    @Query("select count(t) from Task t " +
+            "where t.user.id = :userId and t.deadline < :now and t.status <> com.example.demo.entity.Task.Status.COMPLETED")
+    long countOverdueForUser(@Param("userId") Integer userId, @Param("now") LocalDateTime now);
+
+    interface OverdueCountView {
+        Integer getUserId();
+        long getTotal();
+    }
+
+    /** TaskSearchIndex so với mốc commit của index khi khởi động. */
+    boolean existsByUpdatedAtAfter(LocalDateTime since);
+
+    // ===== Keyset (cursor) pagination =====
+    // Mỗi truy vấn "seek" bắt đầu ngay sau (sort key, id) của dòng cuối trang trước, nên
+    // độ trễ không phụ thuộc số trang. Thứ tự cố định: id tăng dần, createdAt giảm dần,
+    // deadline tăng dần (task không có deadline nằm cuối, đọc bằng seek...WithoutDeadline).
+    // "key <= :key and (key < :key or id < :id)" tương đương "key < :key or (key = :key and id < :id)",
+    // nhưng có cận trên riêng cho key nên index (..., key) được dùng để quét khoảng thay vì chỉ lọc theo tiền tố.
+
+    @Query(SELECT_RESPONSE + "from Task t where t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekAllById(@Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.createdAt <= :createdAt and (t.createdAt < :createdAt or t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<TaskDto.TaskResponse> seekAllByCreatedAt(@Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.deadline >= :deadline and (t.deadline > :deadline or t.id > :id) " +
+            "order by t.deadline asc, t.id asc")
+    List<TaskDto.TaskResponse> seekAllByDeadline(@Param("deadline") LocalDateTime deadline,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.deadline is null and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekAllWithoutDeadline(@Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.status = :status and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekAllByStatusById(@Param("status") Task.Status status, @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.status = :status and t.createdAt <= :createdAt and (t.createdAt < :createdAt or t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<TaskDto.TaskResponse> seekAllByStatusByCreatedAt(@Param("status") Task.Status status, @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.status = :status and t.deadline >= :deadline and (t.deadline > :deadline or t.id > :id) " +
+            "order by t.deadline asc, t.id asc")
+    List<TaskDto.TaskResponse> seekAllByStatusByDeadline(@Param("status") Task.Status status, @Param("deadline") LocalDateTime deadline,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.status = :status and t.deadline is null and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekAllByStatusWithoutDeadline(@Param("status") Task.Status status, @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekByUserById(@Param("userId") Integer userId, @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.createdAt <= :createdAt and (t.createdAt < :createdAt or t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<TaskDto.TaskResponse> seekByUserByCreatedAt(@Param("userId") Integer userId, @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.deadline >= :deadline and (t.deadline > :deadline or t.id > :id) " +
+            "order by t.deadline asc, t.id asc")
+    List<TaskDto.TaskResponse> seekByUserByDeadline(@Param("userId") Integer userId, @Param("deadline") LocalDateTime deadline,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.deadline is null and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekByUserWithoutDeadline(@Param("userId") Integer userId, @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.status = :status and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekByUserAndStatusById(@Param("userId") Integer userId, @Param("status") Task.Status status, @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.status = :status and t.createdAt <= :createdAt and (t.createdAt < :createdAt or t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<TaskDto.TaskResponse> seekByUserAndStatusByCreatedAt(@Param("userId") Integer userId, @Param("status") Task.Status status, @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.status = :status and t.deadline >= :deadline and (t.deadline > :deadline or t.id > :id) " +
+            "order by t.deadline asc, t.id asc")
+    List<TaskDto.TaskResponse> seekByUserAndStatusByDeadline(@Param("userId") Integer userId, @Param("status") Task.Status status, @Param("deadline") LocalDateTime deadline,
+            @Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from Task t where t.user.id = :userId and t.status = :status and t.deadline is null and t.id > :id order by t.id asc")
+    List<TaskDto.TaskResponse> seekByUserAndStatusWithoutDeadline(@Param("userId") Integer userId, @Param("status") Task.Status status, @Param("id") Integer id, Pageable limit);
 }
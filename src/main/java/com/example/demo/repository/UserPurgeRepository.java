@@ -0,0 +1,45 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Task;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Xóa dữ liệu của user đang bị xóa theo từng lô bằng JDBC (UserDeletionService), thay cho một câu
+ * ON DELETE CASCADE duy nhất. Chạy trong transaction hiện tại; mỗi lô chỉ khóa limit dòng.
+ */
+@Repository
+public class UserPurgeRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserPurgeRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** Tối đa limit task của user theo id tăng dần (đọc theo idx_tasks_user). */
+    public List<TaskRef> findTasks(Integer userId, int limit) {
+        return jdbcTemplate.query(
+                "SELECT id, status FROM tasks WHERE user_id = ? ORDER BY id LIMIT ?",
+                (rs, i) -> new TaskRef(rs.getInt("id"), Task.Status.valueOf(rs.getString("status"))),
+                userId, limit);
+    }
+
+    public int deleteTasks(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String in = String.join(",", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM tasks WHERE id IN (" + in + ")", ids.toArray());
+    }
+
+    /** Xóa tối đa limit task lưu trữ của user (không có index tìm kiếm, bộ đếm nên không cần id). */
+    public int deleteArchivedTasks(Integer userId, int limit) {
+        return jdbcTemplate.update("DELETE FROM tasks_archive WHERE user_id = ? LIMIT ?", userId, limit);
+    }
+
+    public record TaskRef(Integer id, Task.Status status) {}
+}
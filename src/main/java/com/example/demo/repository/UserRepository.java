@@ -1,13 +1,57 @@
 package com.example.demo.repository;
 
+import com.example.demo.dto.UserDto;
 import com.example.demo.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
-import java.util.Optional;
+import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface UserRepository extends JpaRepository<User,Integer> {
+public interface UserRepository extends JpaRepository<User,Integer>, UserRepositoryCustom {
     boolean existsByEmail(String email);
-    Optional<User> findByEmail(String email);
+
+    List<TokenVersionView> findByTokenVersionGreaterThan(Integer tokenVersion);
+
+    interface TokenVersionView {
+        Integer getId();
+        Integer getTokenVersion();
+    }
+
+    // User đã yêu cầu xóa nhưng chưa xóa xong (UserDeletionService chạy tiếp khi khởi động)
+    @Query("select u.id from User u where u.deleteRequestedAt is not null order by u.deleteRequestedAt")
+    List<Integer> findPendingDeletionIds();
+
+    // Projection cho danh sách user: không đọc cột password, không tạo entity
+    String SELECT_RESPONSE = "select new com.example.demo.dto.UserDto$UserResponse(u.id, u.email, u.fullName, u.role) ";
+
+    // ===== Keyset (cursor) pagination =====
+    // prefix là mẫu LIKE "abc%" (ký tự đặc biệt đã escape bằng "!"). Mỗi trang đọc tiếp trên index
+    // ngay sau dòng cuối trang trước: theo id, theo email (unique) hoặc theo (full_name, id).
+
+    @Query(SELECT_RESPONSE + "from User u where u.id > :id order by u.id asc")
+    List<UserDto.UserResponse> seekById(@Param("id") Integer id, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from User u where u.email like :prefix escape '!' and u.email > :email order by u.email asc")
+    List<UserDto.UserResponse> seekByEmailPrefix(@Param("prefix") String prefix, @Param("email") String email, Pageable limit);
+
+    @Query(SELECT_RESPONSE + "from User u where u.fullName like :prefix escape '!' " +
+            "and (u.fullName > :name or (u.fullName = :name and u.id > :id)) order by u.fullName asc, u.id asc")
+    List<UserDto.UserResponse> seekByNamePrefix(@Param("prefix") String prefix, @Param("name") String name,
+            @Param("id") Integer id, Pageable limit);
+
+    // Export: giống TaskRepository.streamForExport, MySQL Connector/J đọc từng dòng thay vì nạp cả result set
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(SELECT_RESPONSE + "from User u order by u.id")
+    Stream<UserDto.UserResponse> streamForExport();
 }
@@ -0,0 +1,11 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.User;
+
+import java.util.Optional;
+
+public interface UserRepositoryCustom {
+
+    /** Tra user theo email qua natural id: dùng cache email -> id rồi cache entity, không chạy câu SELECT khi cache trúng. */
+    Optional<User> findByEmail(String email);
+}
@@ -0,0 +1,26 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    // Không readOnly: transaction readOnly được định tuyến sang replica, mà User đọc ở đây được đưa vào cache cấp 2
+    // dùng chung cho mọi request. Bản cũ từ replica đang trễ (chưa thấy disabled / email mới) sẽ nằm lại trong cache,
+    // nên lượt đọc cho xác thực luôn chạy trên primary
+    @Override
+    @Transactional
+    public Optional<User> findByEmail(String email) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(User.class)
+                .loadOptional(email);
+    }
+}
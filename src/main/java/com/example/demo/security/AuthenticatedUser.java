@@ -0,0 +1,18 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+
+/**
+ * Principal đặt vào SecurityContext sau khi xác thực JWT.
+ * Chứa đủ thông tin để controller/service không phải truy vấn lại bảng users.
+ */
+public record AuthenticatedUser(Integer id, String email, String fullName, String role) {
+
+    public static AuthenticatedUser from(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.getFullName(), user.getRole());
+    }
+
+    public boolean isAdmin() {
+        return "ADMIN".equalsIgnoreCase(role);
+    }
+}
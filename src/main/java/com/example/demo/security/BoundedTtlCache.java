@@ -0,0 +1,93 @@
+package com.example.demo.security;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache trong bộ nhớ giới hạn theo số entry, mỗi entry có thời điểm hết hạn riêng.
+ * Khi đầy sẽ dọn các entry hết hạn trước, sau đó mới loại bớt 1/10 số entry để không phải dọn lại ở mỗi lần put.
+ * maxSize <= 0 nghĩa là tắt cache (get luôn miss, put không làm gì).
+ */
+public class BoundedTtlCache<K, V> {
+
+    private final int maxSize;
+    private final Map<K, Entry<V>> entries;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public BoundedTtlCache(int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new ConcurrentHashMap<>(Math.max(16, maxSize));
+    }
+
+    public V get(K key, long nowMillis) {
+        if (maxSize <= 0) {
+            misses.increment();
+            return null;
+        }
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        if (entry.expiresAt() <= nowMillis) {
+            if (entries.remove(key, entry)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value();
+    }
+
+    public void put(K key, V value, long expiresAtMillis, long nowMillis) {
+        if (maxSize <= 0) {
+            return;
+        }
+        if (entries.size() >= maxSize) {
+            evict(nowMillis);
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public Stats stats() {
+        return new Stats(entries.size(), maxSize, hits.sum(), misses.sum(), evictions.sum());
+    }
+
+    private void evict(long nowMillis) {
+        // Lượt 1: bỏ các entry đã hết hạn
+        entries.values().removeIf(e -> {
+            boolean expired = e.expiresAt() <= nowMillis;
+            if (expired) {
+                evictions.increment();
+            }
+            return expired;
+        });
+        // Lượt 2: vẫn còn đầy thì bỏ bớt 1/10 số entry
+        int toRemove = entries.size() - maxSize + Math.max(1, maxSize / 10);
+        Iterator<Entry<V>> it = entries.values().iterator();
+        while (toRemove > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+            evictions.increment();
+            toRemove--;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {}
+
+    public record Stats(int size, int maxSize, long hits, long misses, long evictions) {}
+}
@@ -21,6 +21,9 @@ import java.util.List;
 public class JwtAuthFilter extends OncePerRequestFilter {
     private final JwtService jwt;
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final TokenRevocationStore revocations;
 
     @Override
     protected void doFilterInternal(HttpServletRequest req,
@@ -32,25 +35,57 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         if (header != null && header.startsWith("Bearer ")) {
             String token = header.substring(7);
+            var claims = jwt.verify(token);
 
-            if (jwt.valid(token)) {
-                String email = jwt.email(token);
+            if (claims.isPresent() && !revocations.isRevoked(claims.get().jti())) {
+                AuthenticatedUser principal = resolvePrincipal(claims.get());
 
-                var user = userRepository.findByEmail(email);
-                String role = user.isPresent() ? user.get().getRole() : "USER";
+                if (principal != null) {
+                    String authority = "ROLE_" + principal.role().toUpperCase();
+                    var authorities = List.of(new SimpleGrantedAuthority(authority));
 
-                String authority = "ROLE_" + role.toUpperCase();
-                var authorities = List.of(new SimpleGrantedAuthority(authority));
+                    var auth = new UsernamePasswordAuthenticationToken(
+                            principal, null, authorities);
 
-                var auth = new UsernamePasswordAuthenticationToken(
-                        email, null, authorities);
+                    auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
 
-                auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
-
-                SecurityContextHolder.getContext().setAuthentication(auth);
+                    SecurityContextHolder.getContext().setAuthentication(auth);
+                }
             }
         }
 
         chain.doFilter(req, res);
     }
+
+    private AuthenticatedUser resolvePrincipal(JwtClaims claims) {
+        if (claims.isSelfContained()) {
+            // Token mang sẵn uid + role: chỉ kiểm tra version trong bộ nhớ, không truy vấn DB
+            if (!tokenVersions.isCurrent(claims.uid(), claims.version())) {
+                return null;
+            }
+            return new AuthenticatedUser(claims.uid(), claims.subject(), claims.name(), claims.role());
+        }
+        // Token cấp trước khi có claim role: tra principal qua cache/DB, rồi kiểm tra version như trên
+        // (token thiếu claim ver được coi là version 0, nên bị từ chối sau khi user đã đăng xuất mọi nơi)
+        AuthenticatedUser principal = loadPrincipal(claims.subject());
+        if (principal == null || !tokenVersions.isCurrent(principal.id(), claims.version())) {
+            return null;
+        }
+        return principal;
+    }
+
+    private AuthenticatedUser loadPrincipal(String email) {
+        AuthenticatedUser principal = principalCache.get(email);
+        if (principal == null) {
+            // User bị vô hiệu hóa (đang chờ xóa) không được xác thực
+            principal = userRepository.findByEmail(email)
+                    .filter(user -> !user.isDisabled())
+                    .map(AuthenticatedUser::from)
+                    .orElse(null);
+            if (principal != null) {
+                principalCache.put(principal);
+            }
+        }
+        return principal;
+    }
 }
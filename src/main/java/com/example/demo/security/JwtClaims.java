@@ -0,0 +1,20 @@
+package com.example.demo.security;
+
+import java.time.Instant;
+
+/**
+ * Claims đã được xác thực chữ ký của một access token.
+ * role/name/version có thể null với token được cấp trước khi token mang đủ thông tin user;
+ * jti = 0 nghĩa là token không có id (không thu hồi riêng lẻ được).
+ */
+public record JwtClaims(long jti, String subject, Integer uid, String name, String role, int version, Instant expiresAt) {
+
+    public boolean isExpired(long nowMillis) {
+        return expiresAt.toEpochMilli() <= nowMillis;
+    }
+
+    /** Token có đủ uid + role để dựng principal mà không cần truy vấn DB. */
+    public boolean isSelfContained() {
+        return uid != null && role != null;
+    }
+}
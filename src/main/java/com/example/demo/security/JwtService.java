@@ -1,6 +1,9 @@
 package com.example.demo.security;
 
+import com.example.demo.entity.User;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
@@ -9,25 +12,37 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.security.Key;
+import java.security.SecureRandom;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @Component
 public class JwtService {
     @Value("${spring.security.jwt.secret:12345678901234567890123456789012}")
     private String secret;
 
+    @Value("${spring.security.jwt.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+
     private static final long EXP_MS = 1000 * 60 * 60;
+    private static final SecureRandom RANDOM = new SecureRandom();
 
     private Key key;
+    private JwtParser parser;
+    private VerifiedTokenCache cache;
 
     @PostConstruct
     public void init() {
         this.key = Keys.hmacShaKeyFor(secret.getBytes());
+        this.parser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.cache = new VerifiedTokenCache(cacheMaxSize);
     }
 
     public String generateToken(String email, Integer userId) {
         return Jwts.builder()
+                .setId(newJti())
                 .setSubject(email)
                 .addClaims(Map.of("uid", userId))
                 .setIssuedAt(new Date())
@@ -36,24 +51,99 @@ public class JwtService {
                 .compact();
     }
 
+    /**
+     * Token tự chứa uid, role, tên và token_version của user.
+     * Khi role/mật khẩu đổi, token_version tăng và các token cũ bị từ chối (xem TokenVersionRegistry).
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("uid", user.getId());
+        claims.put("role", user.getRole());
+        claims.put("name", user.getFullName());
+        claims.put("ver", user.getTokenVersion());
+        return Jwts.builder()
+                .setId(newJti())
+                .setSubject(user.getEmail())
+                .addClaims(claims)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + EXP_MS))
+                .signWith(key, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    /**
+     * Verify token đúng một lần và trả về claims.
+     * Token đã verify trước đó (và chưa hết hạn) được lấy từ cache, bỏ qua bước tính HMAC.
+     */
+    public Optional<JwtClaims> verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return Optional.empty();
+        }
+        long now = System.currentTimeMillis();
+        JwtClaims cached = cache.get(token, now);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+        try {
+            JwtClaims claims = parse(token);
+            cache.put(token, claims, now);
+            return Optional.of(claims);
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
     public String email(String token) {
-        return Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token)
-                .getBody().getSubject();
+        return parse(token).subject();
     }
 
     public Integer userId(String token) {
-        Object v = Jwts.parserBuilder().setSigningKey(key).build()
-                .parseClaimsJws(token).getBody().get("uid");
-        return v == null ? null : Integer.valueOf(v.toString());
+        return parse(token).uid();
     }
 
     public boolean valid(String token) {
+        return verify(token).isPresent();
+    }
+
+    public BoundedTtlCache.Stats cacheStats() {
+        return cache.stats();
+    }
+
+    // jti dạng số để danh sách thu hồi tra cứu bằng long, không cần tạo String
+    private static String newJti() {
+        long jti;
+        do {
+            jti = RANDOM.nextLong();
+        } while (jti == 0);
+        return Long.toString(jti);
+    }
+
+    private static long parseJti(String id) {
+        if (id == null) {
+            return 0;
+        }
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
-        } catch (JwtException e) {
-            return false;
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private JwtClaims parse(String token) {
+        Claims body = parser.parseClaimsJws(token).getBody();
+        if (body.getExpiration() == null) {
+            throw new JwtException("Token không có thời hạn");
         }
+        Object uid = body.get("uid");
+        Object ver = body.get("ver");
+        return new JwtClaims(
+                parseJti(body.getId()),
+                body.getSubject(),
+                uid == null ? null : Integer.valueOf(uid.toString()),
+                body.get("name", String.class),
+                body.get("role", String.class),
+                ver == null ? 0 : Integer.parseInt(ver.toString()),
+                body.getExpiration().toInstant()
+        );
     }
 }
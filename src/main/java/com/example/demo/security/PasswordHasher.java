@@ -0,0 +1,146 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Chạy BCrypt trên một thread pool riêng có giới hạn (số thread + hàng đợi).
+ * Khi login/register dồn dập, request bị từ chối nhanh với 503 thay vì chiếm hết thread Tomcat,
+ * nhờ vậy các API khác (/api/tasks) vẫn giữ được độ trễ.
+ */
+@Slf4j
+@Component
+public class PasswordHasher {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMs;
+    private final long retryAfterSeconds;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder totalWaitNanos = new LongAdder();
+    private final LongAdder totalHashNanos = new LongAdder();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+
+    public PasswordHasher(BCryptPasswordEncoder encoder,
+                          @Value("${app.security.password-hash.threads:0}") int threads,
+                          @Value("${app.security.password-hash.queue-capacity:64}") int queueCapacity,
+                          @Value("${app.security.password-hash.timeout-ms:5000}") long timeoutMs,
+                          @Value("${app.security.password-hash.retry-after-seconds:2}") long retryAfterSeconds) {
+        this.encoder = encoder;
+        this.timeoutMs = timeoutMs;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        // Mặc định dùng một nửa số CPU để luôn còn CPU cho các request khác
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger seq = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize,
+                0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "password-hash-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+    }
+
+    public String encode(String rawPassword) {
+        return submit(() -> encoder.encode(rawPassword));
+    }
+
+    public boolean matches(String rawPassword, String encodedPassword) {
+        return submit(() -> encoder.matches(rawPassword, encodedPassword));
+    }
+
+    public Stats stats() {
+        long done = completed.sum();
+        return new Stats(
+                executor.getMaximumPoolSize(),
+                executor.getActiveCount(),
+                executor.getQueue().size(),
+                executor.getQueue().remainingCapacity(),
+                done,
+                rejected.sum(),
+                timedOut.sum(),
+                done == 0 ? 0 : totalWaitNanos.sum() / done / 1_000,
+                maxWaitNanos.get() / 1_000,
+                done == 0 ? 0 : totalHashNanos.sum() / done / 1_000,
+                maxHashNanos.get() / 1_000
+        );
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> hashing) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                record(totalWaitNanos, maxWaitNanos, startedAt - submittedAt);
+                try {
+                    return hashing.call();
+                } finally {
+                    record(totalHashNanos, maxHashNanos, System.nanoTime() - startedAt);
+                    completed.increment();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Password hash queue full ({} queued), rejecting request", executor.getQueue().size());
+            throw new ServiceUnavailableException("Hệ thống đang bận, vui lòng thử lại sau", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new ServiceUnavailableException("Hệ thống đang bận, vui lòng thử lại sau", retryAfterSeconds, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new ServiceUnavailableException("Yêu cầu bị gián đoạn", retryAfterSeconds, e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void record(LongAdder total, AtomicLong max, long nanos) {
+        total.add(nanos);
+        max.accumulateAndGet(nanos, Math::max);
+    }
+
+    public record Stats(int threads, int active, int queueDepth, int queueRemaining,
+                        long completed, long rejected, long timedOut,
+                        long avgWaitMicros, long maxWaitMicros,
+                        long avgHashMicros, long maxHashMicros) {}
+}
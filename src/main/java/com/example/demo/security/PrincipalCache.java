@@ -0,0 +1,51 @@
+package com.example.demo.security;
+
+import com.example.demo.util.AfterCommit;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Cache email -> AuthenticatedUser để JwtAuthFilter không phải gọi findByEmail ở mỗi request.
+ * Entry có TTL; khi user bị sửa/xóa thì service gọi {@link #evict(String)} để xóa ngay.
+ */
+@Component
+public class PrincipalCache {
+
+    private final long ttlMillis;
+    private final BoundedTtlCache<String, AuthenticatedUser> cache;
+
+    public PrincipalCache(@Value("${app.security.principal-cache.ttl-seconds:300}") long ttlSeconds,
+                          @Value("${app.security.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.cache = new BoundedTtlCache<>(maxSize);
+    }
+
+    public AuthenticatedUser get(String email) {
+        return cache.get(email, System.currentTimeMillis());
+    }
+
+    public void put(AuthenticatedUser principal) {
+        long now = System.currentTimeMillis();
+        cache.put(principal.email(), principal, now + ttlMillis, now);
+    }
+
+    /**
+     * Xóa entry ngay lập tức, và xóa thêm một lần sau khi transaction commit
+     * để request chạy song song không nạp lại dữ liệu cũ vào cache.
+     */
+    public void evict(String email) {
+        if (email == null) {
+            return;
+        }
+        cache.remove(email);
+        AfterCommit.run(() -> cache.remove(email));
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public BoundedTtlCache.Stats stats() {
+        return cache.stats();
+    }
+}
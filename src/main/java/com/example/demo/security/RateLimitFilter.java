@@ -0,0 +1,118 @@
+package com.example.demo.security;
+
+import com.example.demo.dto.ApiResponse;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Giới hạn tần suất request theo nhóm route, đặt ngay sau JwtAuthFilter.
+ * - /api/auth/**: theo IP (chưa đăng nhập, mỗi lần login tốn một phép BCrypt)
+ * - /api/tasks/**: theo user id
+ * - còn lại: theo user id nếu đã đăng nhập, ngược lại theo IP
+ */
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final boolean enabled;
+    private final TokenBucketRateLimiter authLimiter;
+    private final TokenBucketRateLimiter taskLimiter;
+    private final TokenBucketRateLimiter defaultLimiter;
+    private final SecurityUtil securityUtil;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(SecurityUtil securityUtil,
+                           ObjectMapper objectMapper,
+                           @Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.auth.capacity:10}") int authCapacity,
+                           @Value("${app.rate-limit.auth.refill-per-second:0.2}") double authRefill,
+                           @Value("${app.rate-limit.tasks.capacity:100}") int taskCapacity,
+                           @Value("${app.rate-limit.tasks.refill-per-second:20}") double taskRefill,
+                           @Value("${app.rate-limit.default.capacity:60}") int defaultCapacity,
+                           @Value("${app.rate-limit.default.refill-per-second:10}") double defaultRefill) {
+        this.securityUtil = securityUtil;
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.authLimiter = new TokenBucketRateLimiter(authCapacity, authRefill);
+        this.taskLimiter = new TokenBucketRateLimiter(taskCapacity, taskRefill);
+        this.defaultLimiter = new TokenBucketRateLimiter(defaultCapacity, defaultRefill);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest req,
+                                    HttpServletResponse res,
+                                    FilterChain chain)
+            throws ServletException, IOException {
+
+        String uri = req.getRequestURI();
+        Integer userId = securityUtil.getCurrentUserId();
+        TokenBucketRateLimiter limiter;
+        String key;
+        if (uri.startsWith("/api/auth/")) {
+            limiter = authLimiter;
+            key = "ip:" + req.getRemoteAddr();
+        } else if (uri.startsWith("/api/tasks")) {
+            limiter = taskLimiter;
+            key = userId != null ? "u:" + userId : "ip:" + req.getRemoteAddr();
+        } else {
+            limiter = defaultLimiter;
+            key = userId != null ? "u:" + userId : "ip:" + req.getRemoteAddr();
+        }
+
+        TokenBucketRateLimiter.Decision decision = limiter.tryAcquire(key, System.nanoTime());
+        res.setHeader("X-RateLimit-Limit", String.valueOf(limiter.capacity()));
+        res.setHeader("X-RateLimit-Remaining", String.valueOf(decision.remaining()));
+
+        if (!decision.allowed()) {
+            log.warn("Rate limit exceeded: key={}, uri={}", key, uri);
+            res.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSeconds()));
+            res.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            res.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(res.getWriter(),
+                    ApiResponse.error(429, "Quá nhiều request, vui lòng thử lại sau"));
+            return;
+        }
+
+        chain.doFilter(req, res);
+    }
+
+    @Scheduled(fixedDelayString = "${app.rate-limit.evict-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        long idle = TimeUnit.MINUTES.toNanos(1);
+        authLimiter.evictIdle(now, idle);
+        taskLimiter.evictIdle(now, idle);
+        defaultLimiter.evictIdle(now, idle);
+    }
+
+    public Map<String, TokenBucketRateLimiter.Stats> stats() {
+        Map<String, TokenBucketRateLimiter.Stats> stats = new LinkedHashMap<>();
+        stats.put("auth", authLimiter.stats());
+        stats.put("tasks", taskLimiter.stats());
+        stats.put("default", defaultLimiter.stats());
+        return stats;
+    }
+}
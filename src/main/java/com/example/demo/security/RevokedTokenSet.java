@@ -0,0 +1,160 @@
+package com.example.demo.security;
+
+/**
+ * Tập các jti (long) đã bị thu hồi, kèm thời điểm hết hạn của token tương ứng.
+ * Đọc không khóa và không cấp phát: Bloom filter loại nhanh đa số token hợp lệ,
+ * sau đó mới dò bảng băm địa chỉ mở (linear probing) trên mảng long.
+ * Ghi (thu hồi) hiếm nên dùng copy-on-write: mỗi lần ghi dựng snapshot mới và bỏ luôn các entry đã hết hạn.
+ */
+public class RevokedTokenSet {
+
+    private static final int BLOOM_HASHES = 3;
+
+    private volatile Snapshot snapshot = Snapshot.build(new long[0], new long[0], 0);
+
+    public boolean contains(long jti) {
+        if (jti == 0) {
+            return false;
+        }
+        Snapshot s = snapshot;
+        if (s.size == 0 || !s.mightContain(jti)) {
+            return false;
+        }
+        return s.indexOf(jti) >= 0;
+    }
+
+    public synchronized void add(long jti, long expiresAtMillis) {
+        if (jti == 0) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Snapshot s = snapshot;
+        long[] ids = new long[s.size + 1];
+        long[] exps = new long[s.size + 1];
+        int n = s.copyLive(ids, exps, now, jti);
+        ids[n] = jti;
+        exps[n] = expiresAtMillis;
+        snapshot = Snapshot.build(ids, exps, n + 1);
+    }
+
+    public synchronized void addAll(long[] jtis, long[] expiresAtMillis) {
+        long now = System.currentTimeMillis();
+        Snapshot s = snapshot;
+        long[] ids = new long[s.size + jtis.length];
+        long[] exps = new long[s.size + jtis.length];
+        int n = s.copyLive(ids, exps, now, 0);
+        for (int i = 0; i < jtis.length; i++) {
+            if (jtis[i] != 0 && expiresAtMillis[i] > now) {
+                ids[n] = jtis[i];
+                exps[n] = expiresAtMillis[i];
+                n++;
+            }
+        }
+        snapshot = Snapshot.build(ids, exps, n);
+    }
+
+    /** Bỏ các jti mà token đã hết hạn (token hết hạn thì đằng nào cũng bị từ chối). */
+    public synchronized int purgeExpired() {
+        long now = System.currentTimeMillis();
+        Snapshot s = snapshot;
+        long[] ids = new long[s.size];
+        long[] exps = new long[s.size];
+        int n = s.copyLive(ids, exps, now, 0);
+        snapshot = Snapshot.build(ids, exps, n);
+        return s.size - n;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    private static long mix(long x) {
+        // splitmix64 finalizer
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    private static final class Snapshot {
+        final long[] table;
+        final long[] expiries;
+        final int mask;
+        final long[] bloom;
+        final int bloomMask;
+        final int size;
+
+        private Snapshot(long[] table, long[] expiries, long[] bloom, int size) {
+            this.table = table;
+            this.expiries = expiries;
+            this.mask = table.length - 1;
+            this.bloom = bloom;
+            this.bloomMask = bloom.length * 64 - 1;
+            this.size = size;
+        }
+
+        static Snapshot build(long[] ids, long[] exps, int count) {
+            int capacity = Integer.highestOneBit(Math.max(8, count * 2 - 1)) << 1;
+            long[] table = new long[capacity];
+            long[] expiries = new long[capacity];
+            // ~16 bit/entry với 3 hàm băm: tỉ lệ dương tính giả < 0.5%
+            int bloomBits = Integer.highestOneBit(Math.max(1024, count * 16 - 1)) << 1;
+            long[] bloom = new long[bloomBits / 64];
+            Snapshot s = new Snapshot(table, expiries, bloom, count);
+            for (int i = 0; i < count; i++) {
+                s.insert(ids[i], exps[i]);
+            }
+            return s;
+        }
+
+        boolean mightContain(long jti) {
+            long h = mix(jti);
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                int bit = (int) (h >>> (i * 21)) & bloomMask;
+                if ((bloom[bit >>> 6] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int indexOf(long jti) {
+            int i = (int) mix(jti) & mask;
+            while (true) {
+                long v = table[i];
+                if (v == jti) {
+                    return i;
+                }
+                if (v == 0) {
+                    return -1;
+                }
+                i = (i + 1) & mask;
+            }
+        }
+
+        int copyLive(long[] ids, long[] exps, long now, long skip) {
+            int n = 0;
+            for (int i = 0; i < table.length; i++) {
+                if (table[i] != 0 && table[i] != skip && expiries[i] > now) {
+                    ids[n] = table[i];
+                    exps[n] = expiries[i];
+                    n++;
+                }
+            }
+            return n;
+        }
+
+        private void insert(long jti, long expiresAt) {
+            int i = (int) mix(jti) & mask;
+            while (table[i] != 0 && table[i] != jti) {
+                i = (i + 1) & mask;
+            }
+            table[i] = jti;
+            expiries[i] = expiresAt;
+            long h = mix(jti);
+            for (int k = 0; k < BLOOM_HASHES; k++) {
+                int bit = (int) (h >>> (k * 21)) & bloomMask;
+                bloom[bit >>> 6] |= 1L << bit;
+            }
+        }
+    }
+}
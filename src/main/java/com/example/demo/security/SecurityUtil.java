@@ -11,10 +11,28 @@ public class SecurityUtil {
 
     private final JwtService jwtService;
 
+    public AuthenticatedUser getCurrentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated() && auth.getPrincipal() instanceof AuthenticatedUser user) {
+            return user;
+        }
+        return null;
+    }
+
+    public Integer getCurrentUserId() {
+        AuthenticatedUser user = getCurrentUser();
+        return user == null ? null : user.id();
+    }
+
     public String getCurrentUserEmail() {
         Authentication auth = SecurityContextHolder.getContext().getAuthentication();
         if (auth != null && auth.isAuthenticated()) {
-            return (String) auth.getPrincipal();
+            if (auth.getPrincipal() instanceof AuthenticatedUser user) {
+                return user.email();
+            }
+            if (auth.getPrincipal() instanceof String email) {
+                return email;
+            }
         }
         return null;
     }
@@ -0,0 +1,75 @@
+package com.example.demo.security;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket cài đặt theo GCRA: trạng thái mỗi bucket chỉ là một số long (thời điểm "đến hạn lý thuyết" - TAT),
+ * cập nhật bằng CAS nên không cần khóa. Map bucket là ConcurrentHashMap (đọc không khóa, ghi khóa theo bin).
+ * Bucket đã nạp đầy (không còn nợ token) coi như rảnh và bị dọn bởi {@link #evictIdle(long)}.
+ */
+public class TokenBucketRateLimiter {
+
+    private final int capacity;
+    private final long emissionIntervalNanos;
+    private final long burstToleranceNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public TokenBucketRateLimiter(int capacity, double refillPerSecond) {
+        this.capacity = capacity;
+        this.emissionIntervalNanos = (long) (1_000_000_000L / refillPerSecond);
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+    }
+
+    public Decision tryAcquire(String key, long nowNanos) {
+        AtomicLong tat = buckets.computeIfAbsent(key, k -> new AtomicLong(nowNanos));
+        while (true) {
+            long current = tat.get();
+            long base = Math.max(current, nowNanos);
+            long next = base + emissionIntervalNanos;
+            long debt = base - nowNanos;
+            if (debt > burstToleranceNanos) {
+                rejected.increment();
+                long retryAfterNanos = debt - burstToleranceNanos;
+                return new Decision(false, 0, retryAfterNanos);
+            }
+            if (tat.compareAndSet(current, next)) {
+                allowed.increment();
+                int remaining = (int) ((burstToleranceNanos - debt) / emissionIntervalNanos);
+                return new Decision(true, remaining, 0);
+            }
+        }
+    }
+
+    /** Xóa các bucket đã nạp đầy trước thời điểm nowNanos - idleNanos. */
+    public int evictIdle(long nowNanos, long idleNanos) {
+        int before = buckets.size();
+        buckets.values().removeIf(tat -> tat.get() + idleNanos <= nowNanos);
+        return before - buckets.size();
+    }
+
+    public int evictIdle(long nowNanos) {
+        return evictIdle(nowNanos, 0);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public Stats stats() {
+        return new Stats(buckets.size(), allowed.sum(), rejected.sum());
+    }
+
+    public record Decision(boolean allowed, int remaining, long retryAfterNanos) {
+
+        public long retryAfterSeconds() {
+            return Math.max(1, (retryAfterNanos + 999_999_999L) / 1_000_000_000L);
+        }
+    }
+
+    public record Stats(int buckets, long allowed, long rejected) {}
+}
@@ -0,0 +1,133 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.RevokedToken;
+import com.example.demo.repository.RevokedTokenRepository;
+import com.example.demo.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Danh sách access token bị thu hồi (đăng xuất, token bị lộ).
+ * Bảng revoked_tokens là nguồn dữ liệu gốc; JwtAuthFilter chỉ đọc {@link RevokedTokenSet} trong bộ nhớ.
+ * Nạp toàn bộ khi khởi động, sau đó định kỳ nạp thêm các dòng mới (để thấy token do instance khác thu hồi);
+ * mỗi instance tự cập nhật ngay sau khi chính nó thu hồi.
+ */
+@Slf4j
+@Component
+public class TokenRevocationStore {
+
+    // revoked_at được gán trước khi transaction commit và theo đồng hồ của instance khác:
+    // đọc lùi một khoảng để không bỏ sót dòng commit muộn
+    private static final long REFRESH_LOOKBACK_SECONDS = 60;
+
+    private final RevokedTokenRepository repo;
+    private final int cleanupBatchSize;
+    private final RevokedTokenSet revoked = new RevokedTokenSet();
+    private volatile LocalDateTime lastLoaded;
+
+    public TokenRevocationStore(RevokedTokenRepository repo,
+                                @Value("${app.security.revocation.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.repo = repo;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            merge(repo.findActive(now), now);
+            log.info("Loaded {} revoked tokens", revoked.size());
+        } catch (Exception e) {
+            log.error("Could not load revoked tokens", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.security.revocation.refresh-interval-ms:30000}",
+            fixedDelayString = "${app.security.revocation.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime since = lastLoaded;
+            if (since == null) {
+                // Lần nạp đầu thất bại: nạp lại toàn bộ
+                merge(repo.findActive(now), now);
+            } else {
+                merge(repo.findActiveRevokedAfter(since.minusSeconds(REFRESH_LOOKBACK_SECONDS), now), now);
+            }
+        } catch (Exception e) {
+            log.error("Revoked token refresh failed", e);
+        }
+    }
+
+    // Bỏ các jti đã có trong bộ nhớ: khoảng đọc lùi trả về lại những dòng đã nạp
+    private void merge(List<RevokedTokenRepository.RevokedView> rows, LocalDateTime now) {
+        long[] jtis = new long[rows.size()];
+        long[] expiries = new long[rows.size()];
+        int n = 0;
+        for (RevokedTokenRepository.RevokedView row : rows) {
+            if (!revoked.contains(row.getJti())) {
+                jtis[n] = row.getJti();
+                expiries[n] = toMillis(row.getExpiresAt());
+                n++;
+            }
+        }
+        if (n > 0) {
+            revoked.addAll(Arrays.copyOf(jtis, n), Arrays.copyOf(expiries, n));
+        }
+        lastLoaded = now;
+    }
+
+    public boolean isRevoked(long jti) {
+        return revoked.contains(jti);
+    }
+
+    /** Ghi vào DB trong transaction hiện tại; bộ nhớ được cập nhật sau khi commit. */
+    public void revoke(JwtClaims claims) {
+        if (claims.jti() == 0) {
+            // Token không có jti thì không đưa vào danh sách được; chỉ hết hiệu lực khi hết hạn hoặc tăng token_version
+            log.warn("Token of {} has no jti and cannot be revoked", claims.subject());
+            return;
+        }
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(claims.expiresAt(), ZoneId.systemDefault());
+        repo.save(RevokedToken.builder()
+                .jti(claims.jti())
+                .userId(claims.uid())
+                .expiresAt(expiresAt)
+                .revokedAt(LocalDateTime.now())
+                .build());
+
+        long expiresAtMillis = claims.expiresAt().toEpochMilli();
+        AfterCommit.run(() -> revoked.add(claims.jti(), expiresAtMillis));
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.revocation.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        revoked.purgeExpired();
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int deleted;
+            do {
+                deleted = repo.deleteExpiredBatch(now, cleanupBatchSize);
+            } while (deleted == cleanupBatchSize);
+        } catch (Exception e) {
+            log.error("Revoked token cleanup failed", e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Giữ token_version hiện tại của các user đã từng bị tăng version (đa số user có version 0 nên map rất nhỏ).
+ * JwtAuthFilter so sánh claim "ver" của token với map này thay vì truy vấn bảng users.
+ * Map được nạp lại từ DB khi khởi động và định kỳ sau đó (để thấy version do instance khác tăng);
+ * mỗi instance tự cập nhật ngay khi UserService đổi user.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenVersionRegistry {
+
+    private final UserRepository userRepository;
+    private final Map<Integer, Integer> versions = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reload();
+            log.info("Loaded token versions for {} users", versions.size());
+        } catch (Exception e) {
+            log.error("Could not load token versions", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.security.token-version.refresh-interval-ms:60000}",
+            fixedDelayString = "${app.security.token-version.refresh-interval-ms:60000}")
+    public void refresh() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Token version refresh failed", e);
+        }
+    }
+
+    // Version chỉ tăng nên gộp bằng max: lần đọc DB cũ hơn không ghi đè version vừa cập nhật trong bộ nhớ
+    private void reload() {
+        userRepository.findByTokenVersionGreaterThan(0)
+                .forEach(v -> versions.merge(v.getId(), v.getTokenVersion(), Math::max));
+    }
+
+    public boolean isCurrent(Integer userId, int tokenVersion) {
+        Integer current = versions.get(userId);
+        return current == null || tokenVersion >= current;
+    }
+
+    /** Ghi nhận version mới sau khi transaction đổi user đã commit. */
+    public void update(Integer userId, int tokenVersion) {
+        AfterCommit.run(() -> versions.merge(userId, tokenVersion, Math::max));
+    }
+
+    public int size() {
+        return versions.size();
+    }
+}
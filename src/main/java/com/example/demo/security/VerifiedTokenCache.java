@@ -0,0 +1,45 @@
+package com.example.demo.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * Cache các token đã verify chữ ký, key là SHA-256 của token (không giữ token gốc trong bộ nhớ).
+ * Entry hết hạn cùng lúc với token; giới hạn số entry do {@link BoundedTtlCache} đảm nhận.
+ */
+public class VerifiedTokenCache {
+
+    private final BoundedTtlCache<String, JwtClaims> cache;
+
+    public VerifiedTokenCache(int maxSize) {
+        this.cache = new BoundedTtlCache<>(maxSize);
+    }
+
+    public JwtClaims get(String token, long nowMillis) {
+        return cache.get(digest(token), nowMillis);
+    }
+
+    public void put(String token, JwtClaims claims, long nowMillis) {
+        cache.put(digest(token), claims, claims.expiresAt().toEpochMilli(), nowMillis);
+    }
+
+    public void clear() {
+        cache.clear();
+    }
+
+    public BoundedTtlCache.Stats stats() {
+        return cache.stats();
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] hash = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+}
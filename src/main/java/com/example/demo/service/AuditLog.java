@@ -0,0 +1,283 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AuditDto;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.repository.AuditLogRepository;
+import com.example.demo.security.SecurityUtil;
+import com.example.demo.util.AfterCommit;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Nhật ký thay đổi task/user (ai, lúc nào, trước/sau) mà không thêm một câu INSERT vào mỗi request.
+ * <ul>
+ *   <li>async (mặc định): sau khi transaction commit, thay đổi vào hàng đợi vòng có giới hạn buffer-size;
+ *   thread nền gom tối đa batch-size dòng mỗi lần thành một JDBC batch. Đầy thì bỏ dòng mới (đếm dropped),
+ *   request không bao giờ phải chờ; tắt đột ngột thì mất các dòng còn trong hàng đợi.</li>
+ *   <li>outbox: dòng audit được INSERT vào audit_outbox trong chính transaction của thay đổi (commit/rollback
+ *   cùng nhau, không mất khi crash); thread nền chuyển outbox sang audit_log theo lô.</li>
+ *   <li>off: không ghi.</li>
+ * </ul>
+ * before/after là snapshot bất biến (record, Map không sửa nữa), chỉ chuyển sang JSON trên thread nền ở chế độ async.
+ */
+@Slf4j
+@Component
+public class AuditLog {
+
+    private static final int MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final AuditLogRepository repository;
+    private final SecurityUtil securityUtil;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate tx;
+    private final Mode mode;
+    private final int capacity;
+    private final int batchSize;
+    private final long flushMillis;
+    private final BlockingQueue<Event> buffer;
+
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+    private volatile boolean running = true;
+
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "audit-writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    public AuditLog(AuditLogRepository repository,
+                    SecurityUtil securityUtil,
+                    ObjectMapper objectMapper,
+                    PlatformTransactionManager transactionManager,
+                    @Value("${app.audit.mode:async}") String mode,
+                    @Value("${app.audit.buffer-size:10000}") int bufferSize,
+                    @Value("${app.audit.batch-size:500}") int batchSize,
+                    @Value("${app.audit.flush-interval-ms:200}") long flushMillis) {
+        this.repository = repository;
+        this.securityUtil = securityUtil;
+        this.objectMapper = objectMapper;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.mode = Mode.valueOf(mode.trim().toUpperCase());
+        this.capacity = Math.max(1, bufferSize);
+        this.batchSize = Math.max(1, batchSize);
+        this.flushMillis = Math.max(1, flushMillis);
+        this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** Chạy thread nền khi ứng dụng sẵn sàng (sau Flyway); thay đổi trước đó chờ trong hàng đợi/outbox. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (mode == Mode.ASYNC) {
+            writer.execute(this::writeLoop);
+        } else if (mode == Mode.OUTBOX) {
+            writer.execute(this::relayLoop);
+        }
+    }
+
+    /** Ghi nốt hàng đợi (async) trước khi tắt; outbox còn lại được chuyển ở lần khởi động sau. */
+    @PreDestroy
+    public void close() {
+        running = false;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                log.warn("Audit writer did not finish, {} buffered entries lost", buffer.size());
+                writer.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            writer.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void record(EntityType type, Integer entityId, Action action, Object before, Object after) {
+        recordAll(List.of(new Change(type, entityId, action, before, after)));
+    }
+
+    /** Ghi nhận các thay đổi của transaction hiện tại; người thực hiện lấy từ SecurityContext (null: hệ thống). */
+    public void recordAll(List<Change> changes) {
+        if (mode == Mode.OFF || changes.isEmpty()) {
+            return;
+        }
+        Integer actorId = securityUtil.getCurrentUserId();
+        LocalDateTime now = LocalDateTime.now();
+        List<Event> events = changes.stream().map(c -> new Event(now, actorId, c)).toList();
+        if (mode == Mode.OUTBOX) {
+            repository.insertOutbox(events.stream().map(this::toEntry).toList());
+            return;
+        }
+        // Transaction rollback thì thay đổi không xảy ra, không ghi
+        AfterCommit.run(() -> enqueue(events));
+    }
+
+    /**
+     * Một trang nhật ký, mới nhất trước. entityId chỉ dùng kèm entityType (index theo cặp này);
+     * after là nextCursor của trang trước.
+     */
+    @Transactional(readOnly = true)
+    public AuditDto.AuditPage find(String entityType, Integer entityId, Integer actorId, String after, int size) {
+        EntityType type = null;
+        if (entityType != null && !entityType.isBlank()) {
+            try {
+                type = EntityType.valueOf(entityType.trim().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                throw new BadRequestException("entityType không hợp lệ. Chỉ chấp nhận: TASK, USER");
+            }
+        }
+        if (entityId != null && type == null) {
+            throw new BadRequestException("entityId phải đi kèm entityType");
+        }
+        Long beforeId = null;
+        if (after != null && !after.isEmpty()) {
+            try {
+                beforeId = Long.valueOf(after);
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("Cursor không hợp lệ", e);
+            }
+        }
+
+        // Lấy dư 1 dòng để biết còn trang sau
+        List<AuditDto.AuditEntry> rows = repository.find(type == null ? null : type.name(), entityId, actorId,
+                beforeId, size + 1);
+        boolean hasNext = rows.size() > size;
+        List<AuditDto.AuditEntry> items = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? String.valueOf(items.get(items.size() - 1).id()) : null;
+        return new AuditDto.AuditPage(items, next, hasNext);
+    }
+
+    public Stats stats() {
+        return new Stats(mode.name(), buffer.size(), capacity, written.get(), dropped.get(), failedBatches.get());
+    }
+
+    private void enqueue(List<Event> events) {
+        for (Event e : events) {
+            if (!buffer.offer(e)) {
+                dropped.incrementAndGet();
+            }
+        }
+    }
+
+    private void writeLoop() {
+        List<Event> batch = new ArrayList<>(batchSize);
+        long reportedDrops = 0;
+        while (running || !buffer.isEmpty()) {
+            try {
+                Event first = buffer.poll(flushMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                buffer.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+            long drops = dropped.get();
+            if (drops > reportedDrops) {
+                log.warn("Audit buffer full or writes failing: {} entries dropped so far", drops);
+                reportedDrops = drops;
+            }
+        }
+    }
+
+    private void write(List<Event> batch) throws InterruptedException {
+        List<AuditLogRepository.Entry> entries = batch.stream().map(this::toEntry).toList();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                tx.executeWithoutResult(s -> repository.insert(entries));
+                written.addAndGet(entries.size());
+                return;
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                if (attempt >= MAX_ATTEMPTS) {
+                    dropped.addAndGet(entries.size());
+                    log.error("Dropped {} audit entries after {} failed attempts", entries.size(), attempt, e);
+                    return;
+                }
+                log.warn("Audit batch of {} entries failed (attempt {}), retrying", entries.size(), attempt, e);
+                Thread.sleep(RETRY_DELAY_MILLIS * attempt);
+            }
+        }
+    }
+
+    private void relayLoop() {
+        while (running) {
+            long wait;
+            try {
+                Integer moved = tx.execute(s -> repository.moveOutbox(batchSize));
+                int n = moved == null ? 0 : moved;
+                written.addAndGet(n);
+                // Lô đầy: outbox còn dòng, chuyển tiếp ngay
+                wait = n < batchSize ? flushMillis : 0;
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                log.error("Audit outbox relay failed", e);
+                wait = RETRY_DELAY_MILLIS;
+            }
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private AuditLogRepository.Entry toEntry(Event e) {
+        return new AuditLogRepository.Entry(e.occurredAt(), e.actorId(), e.change().type().name(),
+                e.change().entityId(), e.change().action().name(),
+                toJson(e.change().before()), toJson(e.change().after()));
+    }
+
+    private String toJson(Object snapshot) {
+        if (snapshot == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(snapshot);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not serialize audit snapshot {}", snapshot.getClass().getSimpleName(), e);
+            return null;
+        }
+    }
+
+    public enum Mode { ASYNC, OUTBOX, OFF }
+
+    public enum EntityType { TASK, USER }
+
+    public enum Action { CREATE, UPDATE, DELETE }
+
+    // before/after: null khi tạo (before) hoặc xóa (after)
+    public record Change(EntityType type, Integer entityId, Action action, Object before, Object after) {}
+
+    public record Stats(String mode, int buffered, int capacity, long written, long dropped, long failedBatches) {}
+
+    private record Event(LocalDateTime occurredAt, Integer actorId, Change change) {}
+}
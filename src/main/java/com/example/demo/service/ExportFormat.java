@@ -0,0 +1,38 @@
+package com.example.demo.service;
+
+import com.example.demo.exception.BadRequestException;
+
+import java.util.Locale;
+
+/** Định dạng file cho export/import task và export user: NDJSON (mỗi dòng một object JSON) hoặc CSV có dòng tiêu đề. */
+public enum ExportFormat {
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+    public String contentType() {
+        return contentType;
+    }
+
+    public String extension() {
+        return extension;
+    }
+
+    public static ExportFormat fromParam(String value) {
+        if (value == null || value.isBlank()) {
+            return NDJSON;
+        }
+        try {
+            return valueOf(value.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Định dạng không hợp lệ. Chỉ chấp nhận: ndjson, csv");
+        }
+    }
+}
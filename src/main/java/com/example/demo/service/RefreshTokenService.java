@@ -0,0 +1,134 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.RefreshToken;
+import com.example.demo.entity.User;
+import com.example.demo.exception.UnauthorizedException;
+import com.example.demo.repository.RefreshTokenRepository;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.UUID;
+
+/**
+ * Refresh token xoay vòng: mỗi lần refresh, token cũ bị đánh dấu đã dùng và một token mới được cấp trong cùng family.
+ * Kiểm tra refresh token chỉ tốn một phép SHA-256 và một lần tra theo index token_hash, không dùng BCrypt.
+ */
+@Slf4j
+@Service
+public class RefreshTokenService {
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final RefreshTokenRepository repo;
+    private final long ttlDays;
+    private final int cleanupBatchSize;
+
+    public RefreshTokenService(RefreshTokenRepository repo,
+                               @Value("${app.security.refresh-token.ttl-days:14}") long ttlDays,
+                               @Value("${app.security.refresh-token.cleanup-batch-size:1000}") int cleanupBatchSize) {
+        this.repo = repo;
+        this.ttlDays = ttlDays;
+        this.cleanupBatchSize = cleanupBatchSize;
+    }
+
+    @Transactional
+    public String issue(User user) {
+        return create(user, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Đổi refresh token lấy token mới. Nếu token đã dùng hoặc đã bị thu hồi (dấu hiệu bị đánh cắp)
+     * thì thu hồi toàn bộ family; thay đổi này vẫn được commit dù request bị từ chối.
+     */
+    @Transactional(dontRollbackOn = UnauthorizedException.class)
+    public Rotation rotate(String rawToken) {
+        RefreshToken current = repo.findByTokenHashWithUser(hash(rawToken))
+                .orElseThrow(() -> new UnauthorizedException("Refresh token không hợp lệ"));
+        // User đang chờ xóa: từ chối trước markUsed để không bị coi là dùng lại token (không báo động giả)
+        if (current.getUser().isDisabled()) {
+            throw new UnauthorizedException("Refresh token không hợp lệ");
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        if (current.getExpiresAt().isBefore(now)) {
+            throw new UnauthorizedException("Refresh token đã hết hạn");
+        }
+        if (repo.markUsed(current.getId(), now) == 0) {
+            int revoked = repo.revokeFamily(current.getFamilyId(), now);
+            log.warn("Refresh token reuse detected: userId={}, family={}, revoked={}",
+                    current.getUser().getId(), current.getFamilyId(), revoked);
+            throw new UnauthorizedException("Refresh token đã được sử dụng, vui lòng đăng nhập lại");
+        }
+
+        User user = current.getUser();
+        String next = create(user, current.getFamilyId());
+        log.info("Refresh token rotated: userId={}", user.getId());
+        return new Rotation(user, next);
+    }
+
+    /** Thu hồi cả family của refresh token (khi đăng xuất). Token không tồn tại thì bỏ qua. */
+    @Transactional
+    public void revokeFamily(String rawToken) {
+        repo.findByTokenHashWithUser(hash(rawToken))
+                .ifPresent(t -> repo.revokeFamily(t.getFamilyId(), LocalDateTime.now()));
+    }
+
+    @Transactional
+    public int revokeAllForUser(Integer userId) {
+        return repo.revokeAllForUser(userId, LocalDateTime.now());
+    }
+
+    @Scheduled(fixedDelayString = "${app.security.refresh-token.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            int total = 0;
+            int deleted;
+            do {
+                // Mỗi lô là một transaction ngắn riêng
+                deleted = repo.deleteExpiredBatch(now, cleanupBatchSize);
+                total += deleted;
+            } while (deleted == cleanupBatchSize);
+            if (total > 0) {
+                log.info("Deleted {} expired refresh tokens", total);
+            }
+        } catch (Exception e) {
+            log.error("Refresh token cleanup failed", e);
+        }
+    }
+
+    private String create(User user, String familyId) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        repo.save(RefreshToken.builder()
+                .user(user)
+                .tokenHash(hash(raw))
+                .familyId(familyId)
+                .expiresAt(LocalDateTime.now().plusDays(ttlDays))
+                .build());
+        return raw;
+    }
+
+    private static String hash(String raw) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(raw.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 không khả dụng", e);
+        }
+    }
+
+    public record Rotation(User user, String refreshToken) {}
+}
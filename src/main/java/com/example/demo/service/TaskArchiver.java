@@ -0,0 +1,132 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskArchiveRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Định kỳ chuyển task COMPLETED lâu ngày từ tasks sang tasks_archive để bảng nóng và index của nó không phình mãi.
+ * Mỗi lô (batch-size dòng) là một transaction ngắn riêng: khóa dòng bằng SKIP LOCKED, chép, xóa, commit,
+ * nên không giữ khóa lâu và không chặn request đang sửa task.
+ */
+@Slf4j
+@Component
+public class TaskArchiver {
+
+    private final TaskArchiveRepository archiveRepository;
+    private final TaskCounterStore counters;
+    private final TaskSearchIndex searchIndex;
+    private final TransactionTemplate tx;
+    private final boolean enabled;
+    private final int minAgeDays;
+    private final int batchSize;
+
+    private final LongAdder runs = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder rowsMoved = new LongAdder();
+    private final LongAdder totalDurationMillis = new LongAdder();
+    private final AtomicLong maxDurationMillis = new AtomicLong();
+    private volatile LastRun lastRun;
+
+    public TaskArchiver(TaskArchiveRepository archiveRepository,
+                        TaskCounterStore counters,
+                        TaskSearchIndex searchIndex,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.tasks.archive.enabled:true}") boolean enabled,
+                        @Value("${app.tasks.archive.min-age-days:90}") int minAgeDays,
+                        @Value("${app.tasks.archive.batch-size:500}") int batchSize) {
+        this.archiveRepository = archiveRepository;
+        this.counters = counters;
+        this.searchIndex = searchIndex;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.minAgeDays = minAgeDays;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(initialDelayString = "${app.tasks.archive.interval-ms:3600000}",
+            fixedDelayString = "${app.tasks.archive.interval-ms:3600000}")
+    public void archiveCompleted() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            archive(LocalDateTime.now().minusDays(minAgeDays));
+        } catch (Exception e) {
+            failures.increment();
+            log.error("Task archival failed", e);
+        }
+    }
+
+    /** Chuyển toàn bộ task COMPLETED có updated_at trước completedBefore, theo từng lô. Trả về số task đã chuyển. */
+    public long archive(LocalDateTime completedBefore) {
+        long start = System.nanoTime();
+        long total = 0;
+        int moved;
+        try {
+            do {
+                Integer n = tx.execute(status -> moveBatch(completedBefore));
+                moved = n == null ? 0 : n;
+                total += moved;
+                rowsMoved.add(moved);
+            } while (moved == batchSize);
+        } finally {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            runs.increment();
+            totalDurationMillis.add(millis);
+            maxDurationMillis.accumulateAndGet(millis, Math::max);
+            lastRun = new LastRun(LocalDateTime.now(), total, millis);
+        }
+        if (total > 0) {
+            log.info("Archived {} completed tasks older than {}", total, completedBefore);
+        }
+        return total;
+    }
+
+    private int moveBatch(LocalDateTime completedBefore) {
+        List<TaskArchiveRepository.ArchiveRef> refs = archiveRepository.lockArchivable(completedBefore, batchSize);
+        if (refs.isEmpty()) {
+            return 0;
+        }
+        List<Integer> ids = refs.stream().map(TaskArchiveRepository.ArchiveRef::id).toList();
+        int moved = archiveRepository.moveToArchive(ids, LocalDateTime.now());
+
+        // Bộ đếm và index tìm kiếm chỉ tính bảng nóng; cập nhật sau khi lô commit
+        searchIndex.remove(ids);
+        Map<Integer, Long> perUser = new HashMap<>();
+        refs.forEach(r -> perUser.merge(r.userId(), 1L, Long::sum));
+        perUser.forEach((userId, n) -> counters.deleted(userId, Task.Status.COMPLETED, n));
+        return moved;
+    }
+
+    public Stats stats() {
+        long n = runs.sum();
+        LastRun last = lastRun;
+        return new Stats(
+                enabled,
+                n,
+                failures.sum(),
+                rowsMoved.sum(),
+                n == 0 ? 0 : totalDurationMillis.sum() / n,
+                maxDurationMillis.get(),
+                last
+        );
+    }
+
+    public record LastRun(LocalDateTime finishedAt, long rowsMoved, long durationMillis) {}
+
+    public record Stats(boolean enabled, long runs, long failures, long rowsMoved,
+                        long avgDurationMillis, long maxDurationMillis, LastRun lastRun) {}
+}
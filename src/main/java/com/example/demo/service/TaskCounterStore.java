@@ -0,0 +1,245 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskRepository;
+import com.example.demo.util.AfterCommit;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Đếm số task theo (user, status) trong bộ nhớ để trả tổng số trang mà không cần SELECT COUNT(*) mỗi request.
+ * Nạp một lần bằng GROUP BY khi khởi động, sau đó TaskService cộng/trừ sau khi transaction commit.
+ * Định kỳ nạp lại từ DB để sửa sai lệch (ghi từ instance khác, ghi xen giữa lúc đang nạp).
+ * Số task quá hạn đổi theo thời gian nên không cộng/trừ trực tiếp: khi một task của user vừa quá hạn
+ * (TaskDeadlineEvent.OVERDUE) hoặc bị sửa khi deadline đã qua, user đó bị đánh dấu cần đếm lại: lần đọc số của
+ * chính user đó đếm lại ngay (hai truy vấn của riêng user), còn số tổng (ADMIN) được đếm lại trên thread lập lịch
+ * sau tối đa recount-interval-ms. Đọc số của user khác hay số tổng không bao giờ truy vấn DB.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TaskCounterStore {
+
+    private static final Task.Status[] STATUSES = Task.Status.values();
+    // Mỗi user một mảng: các ô đầu là số task theo status, ô cuối là số task quá hạn
+    private static final int OVERDUE = STATUSES.length;
+    private static final int SLOTS = STATUSES.length + 1;
+
+    private final TaskRepository taskRepository;
+
+    private volatile Counters counters;
+    // User có số đếm không còn chính xác (không biết status cũ); đếm lại khi đọc user đó hoặc ở lần recountDirty sau
+    private final Set<Integer> dirtyUsers = ConcurrentHashMap.newKeySet();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Could not load task counters", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.tasks.counters.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${app.tasks.counters.reconcile-interval-ms:3600000}")
+    public void reconcile() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Task counter reconcile failed", e);
+        }
+    }
+
+    /** Đếm lại các user bị đánh dấu để số tổng (ADMIN) không lệch lâu; chạy nền, không nằm trên request. */
+    @Scheduled(initialDelayString = "${app.tasks.counters.recount-interval-ms:1000}",
+            fixedDelayString = "${app.tasks.counters.recount-interval-ms:1000}")
+    public void recountDirty() {
+        Counters c = counters;
+        if (c == null || dirtyUsers.isEmpty()) {
+            return;
+        }
+        try {
+            for (Integer userId : dirtyUsers) {
+                recount(c, userId);
+            }
+        } catch (Exception e) {
+            log.error("Task counter recount failed", e);
+        }
+    }
+
+    /** Đọc lại toàn bộ số đếm từ DB (một truy vấn GROUP BY user_id, status). */
+    public synchronized void reload() {
+        dirtyUsers.clear();
+        Counters fresh = new Counters();
+        for (TaskRepository.StatusCountView row : taskRepository.countGroupByUserAndStatus()) {
+            fresh.add(row.getUserId(), row.getStatus().ordinal(), row.getTotal());
+        }
+        for (TaskRepository.OverdueCountView row : taskRepository.countOverdueGroupByUser(LocalDateTime.now())) {
+            fresh.add(row.getUserId(), OVERDUE, row.getTotal());
+        }
+        counters = fresh;
+        log.info("Loaded task counters for {} users", fresh.byUser.size());
+    }
+
+    /** Số task của một user; status = null nghĩa là mọi status. */
+    public long count(Integer userId, Task.Status status) {
+        AtomicLongArray row = loaded(userId).byUser.get(userId);
+        return row == null ? 0 : sum(row, status);
+    }
+
+    /** Số task của mọi user (ADMIN); status = null nghĩa là mọi status. */
+    public long countAll(Task.Status status) {
+        return sum(loaded().total, status);
+    }
+
+    /** Số task theo từng status và số task quá hạn của một user, đọc O(1) từ bộ nhớ. */
+    public Counts counts(Integer userId) {
+        AtomicLongArray row = loaded(userId).byUser.get(userId);
+        return row == null ? toCounts(new AtomicLongArray(SLOTS)) : toCounts(row);
+    }
+
+    /** Như counts(userId) nhưng cộng trên mọi user (ADMIN). */
+    public Counts countsAll() {
+        return toCounts(loaded().total);
+    }
+
+    // Task vừa quá hạn: không cộng trực tiếp (lần đếm lại có thể đã tính task này), chỉ đánh dấu đếm lại user
+    @EventListener(TaskDeadlineEvent.class)
+    public void onDeadline(TaskDeadlineEvent event) {
+        if (event.type() == TaskDeadlineEvent.Type.OVERDUE) {
+            dirtyUsers.add(event.userId());
+        }
+    }
+
+    public void created(Integer userId, Task.Status status) {
+        created(userId, status, 1);
+    }
+
+    public void created(Integer userId, Task.Status status, long count) {
+        AfterCommit.run(() -> loaded().add(userId, status.ordinal(), count));
+    }
+
+    public void deleted(Integer userId, Task.Status status) {
+        deleted(userId, status, 1);
+    }
+
+    public void deleted(Integer userId, Task.Status status, long count) {
+        AfterCommit.run(() -> loaded().add(userId, status.ordinal(), -count));
+    }
+
+    /**
+     * Đánh dấu cần đếm lại task của user (sau khi commit), dùng khi không biết status trước khi sửa
+     * hoặc khi thay đổi có thể làm đổi số task quá hạn.
+     */
+    public void invalidate(Integer userId) {
+        AfterCommit.run(() -> dirtyUsers.add(userId));
+    }
+
+    public void statusChanged(Integer userId, Task.Status from, Task.Status to) {
+        if (from == to) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            Counters c = loaded();
+            c.add(userId, from.ordinal(), -1);
+            c.add(userId, to.ordinal(), 1);
+        });
+    }
+
+    public Stats stats() {
+        Counters c = counters;
+        if (c == null) {
+            return new Stats(false, 0, 0);
+        }
+        return new Stats(true, c.byUser.size(), sum(c.total, null));
+    }
+
+    private Counters loaded() {
+        Counters c = counters;
+        if (c == null) {
+            // Lần nạp khi khởi động thất bại (DB chưa sẵn sàng): thử lại ở lần dùng đầu tiên
+            synchronized (this) {
+                if (counters == null) {
+                    reload();
+                }
+                c = counters;
+            }
+        }
+        return c;
+    }
+
+    // Như loaded() nhưng đếm lại trước nếu chính user này đang bị đánh dấu
+    private Counters loaded(Integer userId) {
+        Counters c = loaded();
+        recount(c, userId);
+        return c;
+    }
+
+    // Ai xóa được dấu thì đếm lại, nên mỗi lần đánh dấu chỉ tốn một lần đếm (request hoặc thread nền)
+    private void recount(Counters c, Integer userId) {
+        if (dirtyUsers.remove(userId)) {
+            try {
+                c.replace(userId, taskRepository.countGroupByStatusForUser(userId),
+                        taskRepository.countOverdueForUser(userId, LocalDateTime.now()));
+            } catch (RuntimeException e) {
+                dirtyUsers.add(userId);
+                throw e;
+            }
+        }
+    }
+
+    private static long sum(AtomicLongArray row, Task.Status status) {
+        if (status != null) {
+            return Math.max(0, row.get(status.ordinal()));
+        }
+        long total = 0;
+        for (int i = 0; i < STATUSES.length; i++) {
+            total += row.get(i);
+        }
+        return Math.max(0, total);
+    }
+
+    private static Counts toCounts(AtomicLongArray row) {
+        Map<Task.Status, Long> byStatus = new EnumMap<>(Task.Status.class);
+        for (Task.Status status : STATUSES) {
+            byStatus.put(status, sum(row, status));
+        }
+        return new Counts(sum(row, null), byStatus, Math.max(0, row.get(OVERDUE)));
+    }
+
+    private static final class Counters {
+        final ConcurrentHashMap<Integer, AtomicLongArray> byUser = new ConcurrentHashMap<>();
+        final AtomicLongArray total = new AtomicLongArray(SLOTS);
+
+        void add(Integer userId, int slot, long delta) {
+            byUser.computeIfAbsent(userId, k -> new AtomicLongArray(SLOTS)).addAndGet(slot, delta);
+            total.addAndGet(slot, delta);
+        }
+
+        void replace(Integer userId, List<TaskRepository.StatusCountView> rows, long overdue) {
+            long[] fresh = new long[SLOTS];
+            rows.forEach(r -> fresh[r.getStatus().ordinal()] = r.getTotal());
+            fresh[OVERDUE] = overdue;
+            AtomicLongArray row = byUser.computeIfAbsent(userId, k -> new AtomicLongArray(SLOTS));
+            for (int i = 0; i < fresh.length; i++) {
+                total.addAndGet(i, fresh[i] - row.getAndSet(i, fresh[i]));
+            }
+        }
+    }
+
+    public record Counts(long total, Map<Task.Status, Long> byStatus, long overdue) {}
+
+    public record Stats(boolean loaded, int users, long tasks) {}
+}
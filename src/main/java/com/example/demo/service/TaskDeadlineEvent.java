@@ -0,0 +1,13 @@
+package com.example.demo.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Phát qua ApplicationEventPublisher khi task sắp tới hạn (DUE_SOON) hoặc vừa quá hạn (OVERDUE).
+ * Nhận bằng @EventListener(TaskDeadlineEvent.class); listener nên idempotent vì sau khi khởi động lại
+ * task sắp tới hạn có thể được báo DUE_SOON lần nữa.
+ */
+public record TaskDeadlineEvent(Type type, Integer taskId, Integer userId, LocalDateTime deadline) {
+
+    public enum Type { DUE_SOON, OVERDUE }
+}
@@ -0,0 +1,270 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskRepository;
+import com.example.demo.util.AfterCommit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Nhắc deadline bằng timing wheel trong bộ nhớ thay vì quét bảng tasks mỗi phút.
+ * Chỉ giữ các task chưa COMPLETED có deadline trong cửa sổ [hiện tại, hiện tại + window); cửa sổ được nạp
+ * thêm định kỳ bằng truy vấn theo khoảng trên idx_tasks_deadline (mỗi lần chỉ đọc phần mới), nên khởi động
+ * lại chỉ cần nạp lại một cửa sổ. TaskService báo thay đổi sau khi transaction commit.
+ */
+@Slf4j
+@Component
+public class TaskDeadlineScheduler {
+
+    private static final int WHEEL_SIZE = 60;
+
+    private final TaskRepository taskRepository;
+    private final ApplicationEventPublisher publisher;
+    private final boolean enabled;
+    private final Duration dueSoon;
+    private final Duration window;
+
+    // Các field dưới đây được bảo vệ bởi this
+    private final TimingWheel<TaskDeadlineEvent> wheel;
+    private final Map<Integer, Timers> scheduled = new HashMap<>();
+    // Khác null trong lúc nạp cửa sổ: task bị sửa/xóa trong lúc đó không bị ghi đè bằng dữ liệu vừa đọc
+    private Set<Integer> touchedDuringLoad;
+    // Task có deadline trước mốc này đã nằm trong wheel (hoặc đã qua)
+    private volatile LocalDateTime loadedUntil;
+
+    private final LongAdder dueSoonEvents = new LongAdder();
+    private final LongAdder overdueEvents = new LongAdder();
+    private volatile LastLoad lastLoad;
+
+    public TaskDeadlineScheduler(TaskRepository taskRepository,
+                                 ApplicationEventPublisher publisher,
+                                 @Value("${app.tasks.deadlines.enabled:true}") boolean enabled,
+                                 @Value("${app.tasks.deadlines.due-soon-minutes:60}") long dueSoonMinutes,
+                                 @Value("${app.tasks.deadlines.window-minutes:180}") long windowMinutes,
+                                 @Value("${app.tasks.deadlines.tick-ms:1000}") long tickMs) {
+        this.taskRepository = taskRepository;
+        this.publisher = publisher;
+        this.enabled = enabled;
+        this.dueSoon = Duration.ofMinutes(dueSoonMinutes);
+        this.window = Duration.ofMinutes(windowMinutes);
+        this.wheel = new TimingWheel<>(tickMs, WHEEL_SIZE, System.currentTimeMillis());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            loadWindow(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Could not load task deadlines", e);
+        }
+    }
+
+    @Scheduled(initialDelayString = "${app.tasks.deadlines.reload-interval-ms:1800000}",
+            fixedDelayString = "${app.tasks.deadlines.reload-interval-ms:1800000}")
+    public void extendWindow() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            loadWindow(LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Task deadline window reload failed", e);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.tasks.deadlines.tick-ms:1000}")
+    public void tick() {
+        if (enabled) {
+            advanceTo(System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Nạp các deadline trong [loadedUntil, now + window). Lần đầu bắt đầu từ now:
+     * task đã quá hạn trước khi khởi động không được báo lại.
+     */
+    public void loadWindow(LocalDateTime now) {
+        long start = System.nanoTime();
+        LocalDateTime from;
+        LocalDateTime to = now.plus(window);
+        synchronized (this) {
+            from = loadedUntil == null ? now : loadedUntil;
+            if (!to.isAfter(from)) {
+                return;
+            }
+            // Dời mốc trước khi đọc: task được tạo/sửa trong lúc đọc tự vào wheel qua schedule()
+            loadedUntil = to;
+            touchedDuringLoad = new HashSet<>();
+        }
+
+        List<TaskRepository.DeadlineView> rows;
+        try {
+            rows = taskRepository.findDeadlinesBetween(from, to);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                touchedDuringLoad = null;
+                loadedUntil = from;
+            }
+            throw e;
+        }
+
+        List<TaskDeadlineEvent> due = new ArrayList<>();
+        synchronized (this) {
+            for (TaskRepository.DeadlineView row : rows) {
+                if (!touchedDuringLoad.contains(row.getId())) {
+                    put(row.getId(), row.getUserId(), row.getDeadline(), due);
+                }
+            }
+            touchedDuringLoad = null;
+        }
+        due.forEach(this::publish);
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        lastLoad = new LastLoad(LocalDateTime.now(), from, to, rows.size(), millis);
+        log.info("Loaded {} task deadlines between {} and {} in {} ms", rows.size(), from, to, millis);
+    }
+
+    /**
+     * Đặt lại lịch nhắc của một task (sau khi transaction hiện tại commit).
+     * Task COMPLETED hoặc không có deadline thì chỉ hủy lịch cũ.
+     */
+    public void schedule(Integer taskId, Integer userId, LocalDateTime deadline, Task.Status status) {
+        if (!enabled) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            List<TaskDeadlineEvent> due = new ArrayList<>();
+            synchronized (this) {
+                touch(taskId);
+                Timers current = scheduled.get(taskId);
+                if (status != Task.Status.COMPLETED && current != null && current.deadline().equals(deadline)) {
+                    // Deadline không đổi (sửa tiêu đề, mô tả...): giữ lịch cũ, không báo DUE_SOON lần nữa
+                    return;
+                }
+                cancelLocked(taskId);
+                if (status != Task.Status.COMPLETED) {
+                    put(taskId, userId, deadline, due);
+                }
+            }
+            due.forEach(this::publish);
+        });
+    }
+
+    /** Hủy lịch nhắc của các task (sau khi transaction hiện tại commit). */
+    public void cancel(Collection<Integer> taskIds) {
+        if (!enabled || taskIds.isEmpty()) {
+            return;
+        }
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                for (Integer id : taskIds) {
+                    touch(id);
+                    cancelLocked(id);
+                }
+            }
+        });
+    }
+
+    /** Chạy các timer đã tới hạn tính đến nowMs và phát sự kiện tương ứng. */
+    public void advanceTo(long nowMs) {
+        List<TaskDeadlineEvent> due = new ArrayList<>();
+        synchronized (this) {
+            wheel.advance(nowMs, event -> {
+                if (event.type() == TaskDeadlineEvent.Type.OVERDUE) {
+                    scheduled.remove(event.taskId());
+                }
+                due.add(event);
+            });
+        }
+        due.forEach(this::publish);
+    }
+
+    public Stats stats() {
+        synchronized (this) {
+            return new Stats(enabled, scheduled.size(), wheel.size(), loadedUntil,
+                    dueSoonEvents.sum(), overdueEvents.sum(), lastLoad);
+        }
+    }
+
+    private void put(Integer taskId, Integer userId, LocalDateTime deadline, List<TaskDeadlineEvent> due) {
+        if (deadline == null || loadedUntil == null || !deadline.isBefore(loadedUntil)) {
+            // Ngoài cửa sổ: lần nạp sau sẽ đọc task này từ DB
+            return;
+        }
+        long deadlineMs = toMillis(deadline);
+        if (deadlineMs <= wheel.currentTime()) {
+            // Deadline đã qua: không báo lại mỗi lần sửa task
+            return;
+        }
+        TaskDeadlineEvent soon = new TaskDeadlineEvent(TaskDeadlineEvent.Type.DUE_SOON, taskId, userId, deadline);
+        TaskDeadlineEvent overdue = new TaskDeadlineEvent(TaskDeadlineEvent.Type.OVERDUE, taskId, userId, deadline);
+
+        TimingWheel.Timer<TaskDeadlineEvent> soonTimer = wheel.schedule(deadlineMs - dueSoon.toMillis(), soon);
+        if (soonTimer == null) {
+            // Đã trong khoảng "sắp tới hạn": báo ngay
+            due.add(soon);
+        }
+        TimingWheel.Timer<TaskDeadlineEvent> overdueTimer = wheel.schedule(deadlineMs, overdue);
+        if (overdueTimer == null) {
+            due.add(overdue);
+            return;
+        }
+        scheduled.put(taskId, new Timers(deadline, soonTimer, overdueTimer));
+    }
+
+    private void cancelLocked(Integer taskId) {
+        Timers timers = scheduled.remove(taskId);
+        if (timers != null) {
+            wheel.cancel(timers.dueSoon());
+            wheel.cancel(timers.overdue());
+        }
+    }
+
+    private void touch(Integer taskId) {
+        if (touchedDuringLoad != null) {
+            touchedDuringLoad.add(taskId);
+        }
+    }
+
+    private void publish(TaskDeadlineEvent event) {
+        (event.type() == TaskDeadlineEvent.Type.DUE_SOON ? dueSoonEvents : overdueEvents).increment();
+        log.debug("Task {} {} (deadline {})", event.taskId(), event.type(), event.deadline());
+        try {
+            publisher.publishEvent(event);
+        } catch (Exception e) {
+            log.error("Task deadline listener failed for task {}", event.taskId(), e);
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private record Timers(LocalDateTime deadline, TimingWheel.Timer<TaskDeadlineEvent> dueSoon,
+                          TimingWheel.Timer<TaskDeadlineEvent> overdue) {}
+
+    public record LastLoad(LocalDateTime finishedAt, LocalDateTime from, LocalDateTime to, int tasks, long durationMillis) {}
+
+    public record Stats(boolean enabled, int tasks, int timers, LocalDateTime loadedUntil,
+                        long dueSoonEvents, long overdueEvents, LastLoad lastLoad) {}
+}
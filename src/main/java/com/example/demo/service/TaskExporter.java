@@ -0,0 +1,135 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.repository.TaskRepository;
+import com.example.demo.util.Csv;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Ghi toàn bộ task ra response theo dạng NDJSON (mỗi dòng một object) hoặc CSV, đọc tuần tự từ
+ * TaskRepository.streamForExport trong một transaction chỉ đọc. Mỗi dòng được ghi ngay ra output,
+ * không gom vào List, nên bộ nhớ dùng không phụ thuộc số task.
+ */
+@Slf4j
+@Component
+public class TaskExporter {
+
+    private static final String CSV_HEADER = "id,userId,title,description,status,deadline,createdAt,updatedAt,version";
+
+    private final TaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTx;
+    private final int flushEveryRows;
+
+    public TaskExporter(TaskRepository taskRepository,
+                        ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.tasks.export.flush-every-rows:1000}") int flushEveryRows) {
+        this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.flushEveryRows = Math.max(1, flushEveryRows);
+    }
+
+    /** Kiểm tra tham số trước khi trả header: lỗi sau khi đã bắt đầu ghi body thì không báo về client được. */
+    public void validate(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new BadRequestException("from phải trước to");
+        }
+    }
+
+    /** Ghi task thỏa điều kiện ra out, trả về số dòng đã ghi. Không đóng out. */
+    public long export(OutputStream out, ExportFormat format, Task.Status status, LocalDateTime from, LocalDateTime to) {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            readTx.executeWithoutResult(tx -> {
+                try (Stream<TaskDto.TaskResponse> tasks = taskRepository.streamForExport(status, from, to)) {
+                    if (format == ExportFormat.CSV) {
+                        writeCsv(out, tasks, rows);
+                    } else {
+                        writeNdjson(out, tasks, rows);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            // Header đã gửi đi: chỉ ghi log, client nhận file bị cắt ngang
+            log.error("Task export failed after {} rows", rows[0], e);
+            throw e;
+        }
+        log.info("Exported {} tasks as {} in {} ms", rows[0], format, (System.nanoTime() - start) / 1_000_000);
+        return rows[0];
+    }
+
+    private void writeNdjson(OutputStream out, Stream<TaskDto.TaskResponse> tasks, long[] rows) throws IOException {
+        JsonGenerator gen = objectMapper.createGenerator(out);
+        // Không đóng out khi đóng generator: container tự đóng response
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        try (gen) {
+            forEach(tasks, rows, gen::flush, task -> {
+                try {
+                    gen.writeObject(task);
+                    gen.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private void writeCsv(OutputStream out, Stream<TaskDto.TaskResponse> tasks, long[] rows) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writer.write(CSV_HEADER);
+        writer.write("\r\n");
+        forEach(tasks, rows, writer::flush, task -> {
+            try {
+                writer.write(task.id() + "," + task.userId() + "," + Csv.field(task.title())
+                        + "," + Csv.field(task.description()) + "," + task.status() + "," + Csv.field(task.deadline()) + "," + Csv.field(task.createdAt())
+                        + "," + Csv.field(task.updatedAt()) + "," + task.version() + "\r\n");
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private void forEach(Stream<TaskDto.TaskResponse> tasks, long[] rows, Flusher flush,
+                         Consumer<TaskDto.TaskResponse> write) throws IOException {
+        var it = tasks.iterator();
+        while (it.hasNext()) {
+            write.accept(it.next());
+            // Đẩy dữ liệu ra client định kỳ để không giữ cả lô lớn trong buffer
+            if (++rows[0] % flushEveryRows == 0) {
+                flush.flush();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Flusher {
+        void flush() throws IOException;
+    }
+}
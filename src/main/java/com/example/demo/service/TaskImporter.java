@@ -0,0 +1,419 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.util.Csv;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.stream.Stream;
+
+/**
+ * Import task từ NDJSON hoặc CSV, đọc dần từng bản ghi từ request body thay vì nạp cả file.
+ * Bản ghi hợp lệ được gom thành lô chunk-size và ghi bằng TaskService.importChunk, mỗi lô một
+ * transaction riêng; lô đã commit được giữ lại nếu import dừng giữa chừng. Luồng request chỉ đọc
+ * tiếp khi lô trước đã ghi xong nên client gửi nhanh hơn DB ghi sẽ bị TCP chặn lại, bộ nhớ dùng
+ * chỉ phụ thuộc chunk-size và max-record-chars.
+ */
+@Slf4j
+@Component
+public class TaskImporter {
+
+    private static final int MAX_FINISHED = 50;
+    private static final int PROGRESS_LOG_EVERY_CHUNKS = 100;
+
+    private final TaskService taskService;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final int maxReportedErrors;
+    private final int maxRecordChars;
+
+    private final Map<String, Job> running = new ConcurrentHashMap<>();
+    private final Deque<Job> finished = new ConcurrentLinkedDeque<>();
+
+    public TaskImporter(TaskService taskService,
+                        ObjectMapper objectMapper,
+                        @Value("${app.tasks.import.chunk-size:1000}") int chunkSize,
+                        @Value("${app.tasks.import.max-reported-errors:1000}") int maxReportedErrors,
+                        @Value("${app.tasks.import.max-record-chars:65536}") int maxRecordChars) {
+        this.taskService = taskService;
+        this.objectMapper = objectMapper;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxReportedErrors = Math.max(0, maxReportedErrors);
+        this.maxRecordChars = Math.max(1, maxRecordChars);
+    }
+
+    /**
+     * Đọc hết in và tạo task cho userId. Bản ghi lỗi (sai cú pháp, không qua validate) được bỏ qua
+     * và liệt kê trong kết quả; lỗi đọc stream hoặc lỗi DB làm dừng import.
+     */
+    public TaskDto.TaskImportResponse importTasks(InputStream in, ExportFormat format, Integer userId) {
+        Job job = new Job(UUID.randomUUID().toString(), userId, format);
+        running.put(job.id, job);
+        log.info("Task import {} started for userId={} as {}", job.id, userId, format);
+        try {
+            Source source = new Source(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Chunk chunk = new Chunk(job);
+            if (format == ExportFormat.CSV) {
+                readCsv(source, chunk);
+            } else {
+                readNdjson(source, chunk);
+            }
+            chunk.flush();
+            job.finish(Status.COMPLETED);
+        } catch (IOException e) {
+            job.finish(Status.FAILED);
+            log.warn("Task import {} aborted after {} rows: {}", job.id, job.rows, e.getMessage());
+            throw new BadRequestException("Không đọc được dữ liệu import sau " + job.rows
+                    + " dòng (đã tạo " + job.created + " task)");
+        } catch (BadRequestException e) {
+            job.finish(Status.FAILED);
+            log.warn("Task import {} rejected: {}", job.id, e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            job.finish(Status.FAILED);
+            log.error("Task import {} failed after {} rows", job.id, job.rows, e);
+            throw e;
+        } finally {
+            running.remove(job.id);
+            finished.addFirst(job);
+            while (finished.size() > MAX_FINISHED) {
+                finished.pollLast();
+            }
+        }
+        log.info("Task import {} finished: {} rows, {} created, {} failed in {} ms ({} rows/s)",
+                job.id, job.rows, job.created, job.failed, job.durationMillis(), Math.round(job.rowsPerSecond()));
+        return new TaskDto.TaskImportResponse(job.id, job.rows, job.created, job.failed, List.copyOf(job.errors),
+                job.errorsTruncated, job.durationMillis(), job.rowsPerSecond());
+    }
+
+    /** Import đang chạy và các lần gần nhất đã xong, mới nhất trước; userId = null lấy của mọi user. */
+    public List<TaskDto.TaskImportProgress> progress(Integer userId) {
+        return Stream.concat(running.values().stream().sorted(Comparator.comparing((Job j) -> j.startedAt).reversed()),
+                        finished.stream())
+                .filter(job -> userId == null || userId.equals(job.userId))
+                .map(Job::toProgress)
+                .toList();
+    }
+
+    private void readNdjson(Source source, Chunk chunk) throws IOException {
+        StringBuilder line = new StringBuilder();
+        while (true) {
+            long row = source.line;
+            int end = source.readLine(line, maxRecordChars);
+            if (end == Source.EOF && line.isEmpty()) {
+                return;
+            }
+            if (end == Source.TOO_LONG) {
+                chunk.reject(row, "Dòng dài quá " + maxRecordChars + " ký tự");
+            } else if (!line.toString().isBlank()) {
+                try {
+                    chunk.add(row, objectMapper.readValue(line.toString(), TaskDto.TaskCreateRequest.class));
+                } catch (JsonProcessingException e) {
+                    chunk.reject(row, "JSON không hợp lệ: " + e.getOriginalMessage());
+                }
+            }
+            if (end == Source.EOF) {
+                return;
+            }
+        }
+    }
+
+    private void readCsv(Source source, Chunk chunk) throws IOException {
+        List<String> fields = new ArrayList<>();
+        int end;
+        do {
+            end = source.readCsvRecord(fields, maxRecordChars);
+            if (end == Source.TOO_LONG) {
+                throw new BadRequestException("Dòng tiêu đề CSV quá dài");
+            }
+        } while (end != Source.EOF && isBlank(fields));
+        if (isBlank(fields)) {
+            return;
+        }
+        CsvColumns columns = CsvColumns.of(fields);
+
+        while (end != Source.EOF) {
+            long row = source.line;
+            end = source.readCsvRecord(fields, maxRecordChars);
+            if (end == Source.TOO_LONG) {
+                chunk.reject(row, "Bản ghi dài quá " + maxRecordChars + " ký tự");
+            } else if (!isBlank(fields)) {
+                try {
+                    chunk.add(row, columns.toRequest(fields));
+                } catch (DateTimeParseException e) {
+                    chunk.reject(row, "Deadline không hợp lệ, cần dạng yyyy-MM-ddTHH:mm:ss");
+                }
+            }
+        }
+    }
+
+    private static boolean isBlank(List<String> fields) {
+        return fields.isEmpty() || (fields.size() == 1 && fields.get(0).isBlank());
+    }
+
+    // Vị trí các cột theo dòng tiêu đề; cột khác (id, userId, createdAt... của file export) được bỏ qua
+    private record CsvColumns(int title, int description, int status, int deadline) {
+
+        static CsvColumns of(List<String> header) {
+            List<String> names = header.stream().map(h -> h.trim().toLowerCase(Locale.ROOT)).toList();
+            if (!names.contains("title")) {
+                throw new BadRequestException("CSV thiếu cột title trong dòng tiêu đề");
+            }
+            return new CsvColumns(names.indexOf("title"), names.indexOf("description"),
+                    names.indexOf("status"), names.indexOf("deadline"));
+        }
+
+        TaskDto.TaskCreateRequest toRequest(List<String> fields) {
+            String deadline = get(fields, this.deadline);
+            return new TaskDto.TaskCreateRequest(get(fields, title), get(fields, description), get(fields, status),
+                    deadline != null ? LocalDateTime.parse(deadline.trim()) : null);
+        }
+
+        // Ô trống hoặc thiếu cột được coi là null; bỏ dấu ' mà file export thêm trước giá trị dạng công thức
+        private static String get(List<String> fields, int index) {
+            if (index < 0 || index >= fields.size() || fields.get(index).isEmpty()) {
+                return null;
+            }
+            return Csv.unescapeFormula(fields.get(index));
+        }
+    }
+
+    /** Gom bản ghi hợp lệ thành lô; lỗi được đánh số theo dòng trong file. */
+    private final class Chunk {
+        private final Job job;
+        private final List<TaskDto.TaskCreateRequest> items = new ArrayList<>(chunkSize);
+        private final long[] rows = new long[chunkSize];
+        private int chunks;
+
+        Chunk(Job job) {
+            this.job = job;
+        }
+
+        void add(long row, TaskDto.TaskCreateRequest item) {
+            rows[items.size()] = row;
+            items.add(item);
+            if (items.size() == chunkSize) {
+                flush();
+            }
+        }
+
+        void reject(long row, String error) {
+            job.rows++;
+            job.failed++;
+            job.addError(row, error, maxReportedErrors);
+        }
+
+        void flush() {
+            if (items.isEmpty()) {
+                return;
+            }
+            String[] errors = taskService.importChunk(items, job.userId);
+            for (int i = 0; i < errors.length; i++) {
+                if (errors[i] == null) {
+                    job.created++;
+                } else {
+                    job.failed++;
+                    job.addError(rows[i], errors[i], maxReportedErrors);
+                }
+            }
+            job.rows += items.size();
+            items.clear();
+            if (++chunks % PROGRESS_LOG_EVERY_CHUNKS == 0) {
+                log.info("Task import {}: {} rows, {} created ({} rows/s)",
+                        job.id, job.rows, job.created, Math.round(job.rowsPerSecond()));
+            }
+        }
+    }
+
+    private enum Status { RUNNING, COMPLETED, FAILED }
+
+    // Chỉ luồng import ghi vào Job; volatile để GET /api/tasks/imports đọc được tiến độ mới
+    private static final class Job {
+        private final String id;
+        private final Integer userId;
+        private final ExportFormat format;
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final List<TaskDto.TaskImportError> errors = new ArrayList<>();
+        private volatile long rows;
+        private volatile long created;
+        private volatile long failed;
+        private volatile long endNanos;
+        private volatile LocalDateTime finishedAt;
+        private volatile Status status = Status.RUNNING;
+        private boolean errorsTruncated;
+
+        Job(String id, Integer userId, ExportFormat format) {
+            this.id = id;
+            this.userId = userId;
+            this.format = format;
+        }
+
+        void addError(long row, String error, int max) {
+            if (errors.size() < max) {
+                errors.add(new TaskDto.TaskImportError(row, error));
+            } else {
+                errorsTruncated = true;
+            }
+        }
+
+        void finish(Status status) {
+            endNanos = System.nanoTime();
+            finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        long durationMillis() {
+            return ((finishedAt != null ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+        }
+
+        double rowsPerSecond() {
+            long nanos = (finishedAt != null ? endNanos : System.nanoTime()) - startNanos;
+            return nanos > 0 ? rows * 1_000_000_000.0 / nanos : 0;
+        }
+
+        TaskDto.TaskImportProgress toProgress() {
+            return new TaskDto.TaskImportProgress(id, userId, format.name(), status.name(), rows, created, failed,
+                    rowsPerSecond(), startedAt, finishedAt);
+        }
+    }
+
+    /**
+     * Đọc ký tự qua buffer riêng (không dùng BufferedReader.read() vì mỗi lần gọi đều lấy lock)
+     * và đếm số dòng để báo lỗi. Bản ghi dài quá giới hạn vẫn được đọc hết nhưng không giữ lại.
+     */
+    static final class Source {
+        static final int EOF = -1;
+        static final int END_OF_RECORD = 0;
+        static final int TOO_LONG = 1;
+
+        private final Reader in;
+        private final char[] buf = new char[8192];
+        private int pos;
+        private int len;
+        private long line = 1;
+
+        Source(Reader in) throws IOException {
+            this.in = in;
+            // Bỏ BOM UTF-8 mà Excel hay thêm vào đầu file CSV
+            int first = read();
+            if (first != '\uFEFF' && first != -1) {
+                pos--;
+                if (first == '\n') {
+                    line--;
+                }
+            }
+        }
+
+        private int read() throws IOException {
+            if (pos == len) {
+                int n = in.read(buf, 0, buf.length);
+                if (n <= 0) {
+                    len = 0;
+                    pos = 0;
+                    return -1;
+                }
+                len = n;
+                pos = 0;
+            }
+            char c = buf[pos++];
+            if (c == '\n') {
+                line++;
+            }
+            return c;
+        }
+
+        /** Đọc một dòng (bỏ \r cuối dòng) vào out. */
+        int readLine(StringBuilder out, int maxChars) throws IOException {
+            out.setLength(0);
+            boolean tooLong = false;
+            int c;
+            while ((c = read()) != -1 && c != '\n') {
+                if (out.length() < maxChars) {
+                    out.append((char) c);
+                } else {
+                    tooLong = true;
+                }
+            }
+            if (!out.isEmpty() && out.charAt(out.length() - 1) == '\r') {
+                out.setLength(out.length() - 1);
+            }
+            if (tooLong) {
+                out.setLength(0);
+                return TOO_LONG;
+            }
+            return c == -1 ? EOF : END_OF_RECORD;
+        }
+
+        /**
+         * Đọc một bản ghi CSV theo RFC 4180 vào fields: ô có thể bọc trong nháy kép, "" là một dấu
+         * nháy, trong nháy kép được phép có dấu phẩy và xuống dòng.
+         */
+        int readCsvRecord(List<String> fields, int maxChars) throws IOException {
+            fields.clear();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            int chars = 0;
+            int c;
+            while ((c = read()) != -1) {
+                if (quoted) {
+                    if (c == '"') {
+                        int next = read();
+                        if (next != '"') {
+                            quoted = false;
+                            if (next == -1) {
+                                c = -1;
+                                break;
+                            }
+                            pos--;
+                            if (next == '\n') {
+                                line--;
+                            }
+                            continue;
+                        }
+                    }
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                    continue;
+                } else if (c == '\n') {
+                    break;
+                } else if (c == '\r') {
+                    continue;
+                } else if (c == '"' && field.isEmpty()) {
+                    quoted = true;
+                    continue;
+                }
+                if (++chars <= maxChars) {
+                    field.append((char) c);
+                }
+            }
+            fields.add(field.toString());
+            if (chars > maxChars) {
+                fields.clear();
+                return TOO_LONG;
+            }
+            return c == -1 ? EOF : END_OF_RECORD;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.repository.TaskRepository;
+import com.example.demo.util.AfterCommit;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.LowerCaseFilter;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.miscellaneous.ASCIIFoldingFilter;
+import org.apache.lucene.analysis.standard.StandardTokenizer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Index tìm kiếm toàn văn (Lucene) trên title + description của task, lưu trên đĩa local của instance.
+ * TaskService ghi vào index sau khi transaction commit; searcher được mở lại định kỳ (near-real-time)
+ * nên task mới/sửa tìm thấy được sau khoảng refresh-interval-ms. Index có thể dựng lại từ DB bất kỳ lúc nào.
+ * Kết quả chỉ là danh sách id: TaskService đọc lại task từ DB nên doc cũ sót trong index không lộ ra ngoài.
+ * Mỗi commit ghi kèm mốc thời gian; khi khởi động, index thiếu task (mất thay đổi chưa commit do crash,
+ * hoặc DB được sửa lúc ứng dụng tắt) được dựng lại.
+ */
+@Slf4j
+@Component
+public class TaskSearchIndex {
+
+    private static final String F_ID = "id";
+    private static final String F_USER = "userId";
+    private static final String F_TITLE = "title";
+    private static final String F_DESCRIPTION = "description";
+    private static final String F_GENERATION = "gen";
+    // Commit user data: mọi thay đổi task trước mốc này đã nằm trong commit
+    private static final String COMMIT_INDEXED_UNTIL = "indexedUntil";
+    // updated_at được gán trước khi transaction commit, index chỉ được ghi sau đó
+    private static final long MARKER_MARGIN_SECONDS = 5;
+
+    // Bỏ dấu tiếng Việt (ASCII folding) để "hoc" khớp "Học"
+    static final Analyzer ANALYZER = new Analyzer() {
+        @Override
+        protected TokenStreamComponents createComponents(String fieldName) {
+            StandardTokenizer tokenizer = new StandardTokenizer();
+            TokenStream stream = new ASCIIFoldingFilter(new LowerCaseFilter(tokenizer));
+            return new TokenStreamComponents(tokenizer, stream);
+        }
+    };
+
+    private static final int LATENCY_WINDOW = 4096;
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate readTx;
+    private final String indexDir;
+    private final boolean rebuildOnStartup;
+    private final int rebuildBatchSize;
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+    // Mỗi lần dựng lại tăng generation; doc không mang generation hiện tại sau khi dựng xong là doc cũ
+    private volatile String generation = "0";
+    // Khác null trong lúc dựng lại (bảo vệ bởi this): task được ghi/xóa trong lúc đó không bị ghi đè bằng dữ liệu vừa đọc
+    private Set<Integer> touchedDuringRebuild;
+
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "task-search-rebuild");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean rebuilding = new AtomicBoolean();
+    private volatile LastRebuild lastRebuild;
+
+    private final LongAdder queries = new LongAdder();
+    private final AtomicLongArray latencyMicros = new AtomicLongArray(LATENCY_WINDOW);
+    private final AtomicLong latencySeq = new AtomicLong();
+
+    public TaskSearchIndex(TaskRepository taskRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${app.tasks.search.index-dir:data/task-index}") String indexDir,
+                           @Value("${app.tasks.search.rebuild-on-startup:false}") boolean rebuildOnStartup,
+                           @Value("${app.tasks.search.rebuild-batch-size:5000}") int rebuildBatchSize) {
+        this.taskRepository = taskRepository;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.indexDir = indexDir;
+        this.rebuildOnStartup = rebuildOnStartup;
+        this.rebuildBatchSize = rebuildBatchSize;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        // index-dir để trống: index trong bộ nhớ (dùng cho test)
+        directory = indexDir == null || indexDir.isBlank()
+                ? new ByteBuffersDirectory()
+                : FSDirectory.open(Path.of(indexDir));
+        writer = new IndexWriter(directory, new IndexWriterConfig(ANALYZER)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        log.info("Task search index opened at {} ({} docs)", indexDir, writer.getDocStats().numDocs);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildIfNeeded() {
+        try {
+            if (rebuildOnStartup || isStale()) {
+                rebuildAsync();
+            }
+        } catch (Exception e) {
+            log.error("Could not check task search index against the database", e);
+            rebuildAsync();
+        }
+    }
+
+    // Index lệch DB khi số doc khác số task, hoặc có task đổi sau commit cuối của index
+    private boolean isStale() {
+        int docs = writer.getDocStats().numDocs;
+        String marker = markerOf(writer.getLiveCommitData());
+        if (docs == 0 || marker == null) {
+            return true;
+        }
+        LocalDateTime indexedUntil = LocalDateTime.parse(marker).minusSeconds(MARKER_MARGIN_SECONDS);
+        Boolean stale = readTx.execute(s -> taskRepository.count() != docs
+                || taskRepository.existsByUpdatedAtAfter(indexedUntil));
+        if (Boolean.TRUE.equals(stale)) {
+            log.info("Task search index is behind the database (committed until {}, {} docs)", marker, docs);
+            return true;
+        }
+        return false;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        rebuildExecutor.shutdownNow();
+        searcherManager.close();
+        try {
+            commitWithMarker();
+        } finally {
+            writer.close();
+            directory.close();
+        }
+    }
+
+    /** Thêm hoặc thay doc của task (sau khi transaction hiện tại commit). */
+    public void put(Integer id, Integer userId, String title, String description) {
+        AfterCommit.run(() -> {
+            touch(List.of(id));
+            write(id, userId, title, description);
+        });
+    }
+
+    public void put(TaskDto.TaskResponse task) {
+        put(task.id(), task.userId(), task.title(), task.description());
+    }
+
+    /** Xóa doc của các task (sau khi transaction hiện tại commit). */
+    public void remove(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Term[] terms = ids.stream().map(id -> new Term(F_ID, id.toString())).toArray(Term[]::new);
+        AfterCommit.run(() -> {
+            touch(ids);
+            try {
+                writer.deleteDocuments(terms);
+            } catch (IOException e) {
+                log.error("Could not remove {} tasks from search index", terms.length, e);
+            }
+        });
+    }
+
+    /**
+     * Tìm theo cú pháp đơn giản (các từ đều phải có; "cụm từ", tiền tố*, -loại trừ).
+     * ownerId = null nghĩa là tìm trên task của mọi user (ADMIN).
+     */
+    public Hits search(String text, Integer ownerId, int limit) {
+        long start = System.nanoTime();
+        SimpleQueryParser parser = new SimpleQueryParser(ANALYZER, Map.of(F_TITLE, 2f, F_DESCRIPTION, 1f));
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(parser.parse(text), BooleanClause.Occur.MUST);
+        if (ownerId != null) {
+            query.add(new TermQuery(new Term(F_USER, ownerId.toString())), BooleanClause.Occur.FILTER);
+        }
+
+        IndexSearcher searcher = null;
+        try {
+            searcher = searcherManager.acquire();
+            TopDocs top = searcher.search(query.build(), limit);
+            StoredFields fields = searcher.storedFields();
+            List<Integer> ids = new ArrayList<>(top.scoreDocs.length);
+            for (ScoreDoc sd : top.scoreDocs) {
+                ids.add(Integer.valueOf(fields.document(sd.doc, Set.of(F_ID)).get(F_ID)));
+            }
+            return new Hits(ids, top.totalHits.value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            release(searcher);
+            recordLatency(System.nanoTime() - start);
+        }
+    }
+
+    /** Mở lại searcher nếu index có thay đổi (near-real-time, chưa cần commit xuống đĩa). */
+    @Scheduled(fixedDelayString = "${app.tasks.search.refresh-interval-ms:500}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (Exception e) {
+            log.error("Task search index refresh failed", e);
+        }
+    }
+
+    // Commit cả khi index không đổi để mốc trong commit theo kịp các thay đổi task không chạm tới index
+    @Scheduled(fixedDelayString = "${app.tasks.search.commit-interval-ms:60000}")
+    public void commit() {
+        try {
+            commitWithMarker();
+        } catch (Exception e) {
+            log.error("Task search index commit failed", e);
+        }
+    }
+
+    // Mốc lấy trước commit: mọi doc đã ghi vào writer trước đó đều nằm trong commit này
+    private void commitWithMarker() throws IOException {
+        writer.setLiveCommitData(Map.of(COMMIT_INDEXED_UNTIL, LocalDateTime.now().toString()).entrySet());
+        writer.commit();
+    }
+
+    /** Dựng lại index từ DB trên thread nền. Trả về false nếu đang có lần dựng lại khác chạy. */
+    public boolean rebuildAsync() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        rebuildExecutor.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.error("Task search index rebuild failed", e);
+            } finally {
+                rebuilding.set(false);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Đọc toàn bộ task theo id tăng dần (keyset, mỗi lô một transaction chỉ đọc) và ghi đè vào index.
+     * Index cũ vẫn trả kết quả trong lúc dựng; doc cũ chỉ bị xóa khi đã đọc xong.
+     */
+    public long rebuild() throws IOException {
+        long start = System.nanoTime();
+        String gen = Long.toString(System.currentTimeMillis());
+        // Mốc lấy trước khi đọc: task đổi sau đó tự vào index qua put()/remove()
+        LocalDateTime startedAt = LocalDateTime.now();
+        synchronized (this) {
+            generation = gen;
+            touchedDuringRebuild = new HashSet<>();
+        }
+        long total = 0;
+        int lastId = 0;
+        try {
+            while (true) {
+                int after = lastId;
+                List<TaskDto.TaskResponse> rows = readTx.execute(
+                        s -> taskRepository.seekAllById(after, PageRequest.of(0, rebuildBatchSize)));
+                if (rows == null || rows.isEmpty()) {
+                    break;
+                }
+                // Giữ lock trong lúc ghi: put()/remove() đồng thời chờ lô này, rồi ghi đè hoặc xóa doc vừa ghi
+                synchronized (this) {
+                    for (TaskDto.TaskResponse row : rows) {
+                        if (!touchedDuringRebuild.contains(row.id())) {
+                            write(row.id(), row.userId(), row.title(), row.description());
+                        }
+                    }
+                }
+                total += rows.size();
+                lastId = rows.get(rows.size() - 1).id();
+            }
+        } finally {
+            synchronized (this) {
+                touchedDuringRebuild = null;
+            }
+        }
+        writer.deleteDocuments(new BooleanQuery.Builder()
+                .add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(F_GENERATION, gen)), BooleanClause.Occur.MUST_NOT)
+                .build());
+        writer.setLiveCommitData(Map.of(COMMIT_INDEXED_UNTIL, startedAt.toString()).entrySet());
+        writer.commit();
+        searcherManager.maybeRefresh();
+
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        lastRebuild = new LastRebuild(LocalDateTime.now(), total, millis);
+        log.info("Task search index rebuilt: {} tasks in {} ms", total, millis);
+        return total;
+    }
+
+    public Stats stats() {
+        long n = latencySeq.get();
+        int size = (int) Math.min(n, LATENCY_WINDOW);
+        long[] samples = new long[size];
+        for (int i = 0; i < size; i++) {
+            samples[i] = latencyMicros.get(i);
+        }
+        Arrays.sort(samples);
+        return new Stats(
+                writer.getDocStats().numDocs,
+                rebuilding.get(),
+                queries.sum(),
+                percentile(samples, 0.50),
+                percentile(samples, 0.99),
+                size == 0 ? 0 : samples[size - 1],
+                lastRebuild
+        );
+    }
+
+    private void write(Integer id, Integer userId, String title, String description) {
+        Document doc = new Document();
+        doc.add(new StringField(F_ID, id.toString(), Field.Store.YES));
+        doc.add(new StringField(F_USER, userId.toString(), Field.Store.NO));
+        doc.add(new StringField(F_GENERATION, generation, Field.Store.NO));
+        doc.add(new TextField(F_TITLE, title, Field.Store.NO));
+        if (description != null) {
+            doc.add(new TextField(F_DESCRIPTION, description, Field.Store.NO));
+        }
+        try {
+            writer.updateDocument(new Term(F_ID, id.toString()), doc);
+        } catch (IOException e) {
+            log.error("Could not index task {}", id, e);
+        }
+    }
+
+    private synchronized void touch(Collection<Integer> ids) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.addAll(ids);
+        }
+    }
+
+    private static String markerOf(Iterable<Map.Entry<String, String>> commitData) {
+        if (commitData != null) {
+            for (Map.Entry<String, String> e : commitData) {
+                if (COMMIT_INDEXED_UNTIL.equals(e.getKey())) {
+                    return e.getValue();
+                }
+            }
+        }
+        return null;
+    }
+
+    private void release(IndexSearcher searcher) {
+        if (searcher == null) {
+            return;
+        }
+        try {
+            searcherManager.release(searcher);
+        } catch (IOException e) {
+            log.warn("Could not release index searcher", e);
+        }
+    }
+
+    // Giữ LATENCY_WINDOW mẫu gần nhất (vòng tròn) để tính p50/p99
+    private void recordLatency(long nanos) {
+        queries.increment();
+        int slot = (int) (latencySeq.getAndIncrement() % LATENCY_WINDOW);
+        latencyMicros.set(slot, nanos / 1_000);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) Math.ceil(p * sorted.length) - 1)];
+    }
+
+    public record Hits(List<Integer> ids, long totalHits) {}
+
+    public record LastRebuild(LocalDateTime finishedAt, long tasks, long durationMillis) {}
+
+    public record Stats(int docs, boolean rebuilding, long queries,
+                        long p50Micros, long p99Micros, long maxMicros, LastRebuild lastRebuild) {}
+}
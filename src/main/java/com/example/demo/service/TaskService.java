@@ -1,19 +1,42 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.TaskCursor;
+import com.example.demo.dto.TaskDto;
 import com.example.demo.entity.Task;
 import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ForbiddenException;
+import com.example.demo.exception.PreconditionFailedException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.TaskArchiveRepository;
+import com.example.demo.repository.TaskBatchWriter;
 import com.example.demo.repository.TaskRepository;
 import com.example.demo.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Slf4j
 @Service
@@ -22,23 +45,136 @@ public class TaskService {
 
     private final TaskRepository taskRepo;
     private final UserRepository userRepo;
+    private final TaskCounterStore counters;
+    private final TaskBatchWriter batchWriter;
+    private final TaskArchiveRepository archiveRepo;
+    private final TaskSearchIndex searchIndex;
+    private final TaskDeadlineScheduler deadlines;
+    private final Validator validator;
+    private final AuditLog audit;
+
+    @Value("${app.tasks.batch.max-items:1000}")
+    private int maxBatchItems;
+
+    @Value("${app.tasks.search.max-results:100}")
+    private int maxSearchResults;
 
     @Transactional
-    public Task create(Task task, User user) {
+    public Task create(Task task, Integer userId) {
         task.setId(null);
-        task.setUser(user);
+        // Chỉ cần khóa ngoại user_id, dùng reference để không phải SELECT lại user
+        task.setUser(userRepo.getReferenceById(userId));
         Task saved = taskRepo.save(task);
-        log.info("Task created: id={}, userId={}", saved.getId(), user.getId());
+        counters.created(userId, saved.getStatus());
+        if (mayBeOverdue(saved.getDeadline())) {
+            counters.invalidate(userId);
+        }
+        searchIndex.put(saved.getId(), userId, saved.getTitle(), saved.getDescription());
+        deadlines.schedule(saved.getId(), userId, saved.getDeadline(), saved.getStatus());
+        audit.record(AuditLog.EntityType.TASK, saved.getId(), AuditLog.Action.CREATE, null, snapshot(saved, userId));
+        log.info("Task created: id={}, userId={}", saved.getId(), userId);
         return saved;
     }
 
-    public Page<Task> findAll(Pageable pageable, Task.Status status) {
+    /**
+     * Tạo nhiều task trong một transaction. Task không hợp lệ được báo lỗi theo vị trí,
+     * các task hợp lệ được ghi bằng JDBC batch thay vì từng câu INSERT qua Hibernate.
+     */
+    @Transactional
+    public TaskDto.TaskBatchResponse createBatch(List<TaskDto.TaskCreateRequest> items, Integer userId) {
+        if (items == null || items.isEmpty()) {
+            throw new BadRequestException("Danh sách task không được để trống");
+        }
+        if (items.size() > maxBatchItems) {
+            throw new BadRequestException("Tối đa " + maxBatchItems + " task mỗi lần");
+        }
+
+        String[] errors = new String[items.size()];
+        List<Integer> validIndexes = new ArrayList<>(items.size());
+        List<Task> valid = toValidTasks(items, errors, validIndexes);
+        insertValid(valid, userId);
+
+        List<TaskDto.TaskBatchItemResult> results = new ArrayList<>(items.size());
+        Integer[] ids = new Integer[items.size()];
+        for (int k = 0; k < valid.size(); k++) {
+            ids[validIndexes.get(k)] = valid.get(k).getId();
+        }
+        for (int i = 0; i < items.size(); i++) {
+            results.add(new TaskDto.TaskBatchItemResult(i, ids[i], errors[i]));
+        }
+        log.info("Batch created {} tasks ({} invalid) for userId={}", valid.size(), items.size() - valid.size(), userId);
+        return new TaskDto.TaskBatchResponse(valid.size(), items.size() - valid.size(), results);
+    }
+
+    /**
+     * Một lô của import (TaskImporter): kiểm tra giống createBatch, ghi task hợp lệ bằng JDBC batch
+     * trong transaction riêng của lô. Trả về lỗi theo vị trí, null nghĩa là task đã được tạo.
+     */
+    @Transactional
+    public String[] importChunk(List<TaskDto.TaskCreateRequest> items, Integer userId) {
+        String[] errors = new String[items.size()];
+        insertValid(toValidTasks(items, errors, new ArrayList<>(items.size())), userId);
+        return errors;
+    }
+
+    private List<Task> toValidTasks(List<TaskDto.TaskCreateRequest> items, String[] errors, List<Integer> validIndexes) {
+        List<Task> valid = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            TaskDto.TaskCreateRequest item = items.get(i);
+            errors[i] = validate(item);
+            if (errors[i] == null) {
+                valid.add(Task.builder()
+                        .title(item.title())
+                        .description(item.description())
+                        .deadline(item.deadline())
+                        .status(item.status() != null ? Task.Status.valueOf(item.status().toUpperCase()) : Task.Status.PENDING)
+                        .build());
+                validIndexes.add(i);
+            }
+        }
+        return valid;
+    }
+
+    private void insertValid(List<Task> valid, Integer userId) {
+        if (valid.isEmpty()) {
+            return;
+        }
+        batchWriter.insertAll(valid, userId);
+        Map<Task.Status, Long> byStatus = new EnumMap<>(Task.Status.class);
+        valid.forEach(t -> byStatus.merge(t.getStatus(), 1L, Long::sum));
+        byStatus.forEach((status, n) -> counters.created(userId, status, n));
+        if (valid.stream().anyMatch(t -> mayBeOverdue(t.getDeadline()))) {
+            counters.invalidate(userId);
+        }
+        valid.forEach(t -> {
+            searchIndex.put(t.getId(), userId, t.getTitle(), t.getDescription());
+            deadlines.schedule(t.getId(), userId, t.getDeadline(), t.getStatus());
+        });
+        audit.recordAll(valid.stream()
+                .map(t -> new AuditLog.Change(AuditLog.EntityType.TASK, t.getId(), AuditLog.Action.CREATE,
+                        null, snapshot(t, userId)))
+                .toList());
+    }
+
+    /**
+     * Tổng số task lấy từ TaskCounterStore thay cho SELECT COUNT(*); dữ liệu trang đọc bằng Slice.
+     */
+    @Transactional(readOnly = true)
+    public Page<TaskDto.TaskResponse> findAll(Pageable pageable, Task.Status status) {
+        Slice<TaskDto.TaskResponse> slice = findAllSlice(pageable, status);
+        return new PageImpl<>(slice.getContent(), pageable, counters.countAll(status));
+    }
+
+    /** Chế độ Slice: chỉ biết còn trang sau hay không, không đếm tổng. */
+    @Transactional(readOnly = true)
+    public Slice<TaskDto.TaskResponse> findAllSlice(Pageable pageable, Task.Status status) {
         if (status != null) {
-            return taskRepo.findByStatus(status, pageable);
+            return taskRepo.findSliceByStatus(status, pageable);
         }
-        return taskRepo.findAll(pageable);
+        return taskRepo.findAllSliced(pageable);
     }
 
+    @Transactional(readOnly = true)
     public Page<Task> findByUser(User user, Pageable pageable, Task.Status status) {
         if (status != null) {
             return taskRepo.findByUserAndStatus(user, status, pageable);
@@ -46,22 +182,112 @@ public class TaskService {
         return taskRepo.findByUser(user, pageable);
     }
 
-    public Page<Task> findByUserId(Integer userId, Pageable pageable, Task.Status status) {
+    @Transactional(readOnly = true)
+    public Page<TaskDto.TaskResponse> findByUserId(Integer userId, Pageable pageable, Task.Status status) {
+        Slice<TaskDto.TaskResponse> slice = findByUserIdSlice(userId, pageable, status);
+        return new PageImpl<>(slice.getContent(), pageable, counters.count(userId, status));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<TaskDto.TaskResponse> findByUserIdSlice(Integer userId, Pageable pageable, Task.Status status) {
         if (status != null) {
-            return taskRepo.findByUser_IdAndStatus(userId, status, pageable);
+            return taskRepo.findSliceByUserIdAndStatus(userId, status, pageable);
+        }
+        return taskRepo.findSliceByUserId(userId, pageable);
+    }
+
+    /**
+     * Danh sách gộp task đang hoạt động và task đã lưu trữ (includeArchived). userId = null nghĩa là mọi user.
+     * Tổng = bộ đếm của bảng nóng + COUNT trên tasks_archive (bỏ qua khi lọc status khác COMPLETED).
+     */
+    @Transactional(readOnly = true)
+    public Page<TaskDto.TaskResponse> findWithArchived(Integer userId, Pageable pageable, Task.Status status) {
+        List<TaskDto.TaskResponse> content = archiveRepo.findWithArchived(
+                userId, status, pageable.getSort(), pageable.getOffset(), pageable.getPageSize());
+        long hot = userId == null ? counters.countAll(status) : counters.count(userId, status);
+        return new PageImpl<>(content, pageable, hot + archiveRepo.countArchived(userId, status));
+    }
+
+    @Transactional(readOnly = true)
+    public Slice<TaskDto.TaskResponse> findSliceWithArchived(Integer userId, Pageable pageable, Task.Status status) {
+        // Lấy dư một dòng để biết còn trang sau
+        List<TaskDto.TaskResponse> rows = archiveRepo.findWithArchived(
+                userId, status, pageable.getSort(), pageable.getOffset(), pageable.getPageSize() + 1);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    /**
+     * Phân trang theo keyset cho toàn bộ task (ADMIN). userId = null nghĩa là không lọc theo user.
+     */
+    @Transactional(readOnly = true)
+    public TaskDto.TaskCursorPage findAllByCursor(TaskCursor after, int size, Task.Status status) {
+        return seek(null, status, after, size);
+    }
+
+    @Transactional(readOnly = true)
+    public TaskDto.TaskCursorPage findByUserIdByCursor(Integer userId, TaskCursor after, int size, Task.Status status) {
+        return seek(userId, status, after, size);
+    }
+
+    /** Đọc task cho API GET: projection thẳng vào TaskResponse, không nạp entity. */
+    @Transactional(readOnly = true)
+    public TaskDto.TaskResponse getResponse(Integer id, Integer currentUserId, boolean isAdmin) {
+        TaskDto.TaskResponse task = taskRepo.findResponseById(id)
+                .orElseThrow(() -> {
+                    log.warn("Task not found: id={}", id);
+                    return new ResourceNotFoundException("Task không tồn tại với id: " + id);
+                });
+
+        if (!isAdmin && !task.userId().equals(currentUserId)) {
+            log.warn("Access denied: user {} tried to access task {}", currentUserId, id);
+            throw new ForbiddenException("Bạn không có quyền truy cập task này");
+        }
+
+        return task;
+    }
+
+    /**
+     * Tìm toàn văn trên title/description qua TaskSearchIndex, rồi đọc task từ DB theo id (giữ thứ tự liên quan).
+     * Không phải ADMIN thì chỉ tìm trong task của mình; quyền sở hữu được kiểm tra lại trên dữ liệu DB.
+     */
+    @Transactional(readOnly = true)
+    public TaskDto.TaskSearchResponse search(String q, int size, Integer currentUserId, boolean isAdmin) {
+        if (q == null || q.isBlank()) {
+            throw new BadRequestException("Từ khóa tìm kiếm không được để trống");
+        }
+        if (q.length() > 200) {
+            throw new BadRequestException("Từ khóa tìm kiếm tối đa 200 ký tự");
         }
-        return taskRepo.findByUser_Id(userId, pageable);
+        int limit = Math.max(1, Math.min(size, maxSearchResults));
+        TaskSearchIndex.Hits hits = searchIndex.search(q, isAdmin ? null : currentUserId, limit);
+        if (hits.ids().isEmpty()) {
+            return new TaskDto.TaskSearchResponse(List.of(), hits.totalHits());
+        }
+
+        Map<Integer, TaskDto.TaskResponse> byId = new HashMap<>();
+        for (TaskDto.TaskResponse t : taskRepo.findResponsesByIds(hits.ids())) {
+            if (isAdmin || t.userId().equals(currentUserId)) {
+                byId.put(t.id(), t);
+            }
+        }
+        List<TaskDto.TaskResponse> items = hits.ids().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .toList();
+        return new TaskDto.TaskSearchResponse(items, hits.totalHits());
     }
 
-    public Task findById(Integer id, User currentUser, boolean isAdmin) {
+    public Task findById(Integer id, Integer currentUserId, boolean isAdmin) {
         Task task = taskRepo.findById(id)
                 .orElseThrow(() -> {
                     log.warn("Task not found: id={}", id);
                     return new ResourceNotFoundException("Task không tồn tại với id: " + id);
                 });
 
-        if (!isAdmin && !task.getUser().getId().equals(currentUser.getId())) {
-            log.warn("Access denied: user {} tried to access task {}", currentUser.getId(), id);
+        // getUser().getId() đọc từ khóa ngoại của proxy, không khởi tạo User
+        if (!isAdmin && !task.getUser().getId().equals(currentUserId)) {
+            log.warn("Access denied: user {} tried to access task {}", currentUserId, id);
             throw new ForbiddenException("Bạn không có quyền truy cập task này");
         }
 
@@ -69,8 +295,11 @@ public class TaskService {
     }
 
     @Transactional
-    public Task update(Integer id, Task input, User currentUser, boolean isAdmin) {
-        Task task = findById(id, currentUser, isAdmin);
+    public Task update(Integer id, Task input, Integer currentUserId, boolean isAdmin) {
+        Task task = findById(id, currentUserId, isAdmin);
+        TaskDto.TaskResponse before = snapshot(task, task.getUser().getId());
+        Task.Status oldStatus = task.getStatus();
+        LocalDateTime oldDeadline = task.getDeadline();
 
         task.setTitle(input.getTitle());
         task.setDescription(input.getDescription());
@@ -80,14 +309,279 @@ public class TaskService {
         task.setDeadline(input.getDeadline());
 
         Task updated = taskRepo.save(task);
+        counters.statusChanged(updated.getUser().getId(), oldStatus, updated.getStatus());
+        if (mayBeOverdue(oldDeadline) || mayBeOverdue(updated.getDeadline())) {
+            counters.invalidate(updated.getUser().getId());
+        }
+        searchIndex.put(updated.getId(), updated.getUser().getId(), updated.getTitle(), updated.getDescription());
+        deadlines.schedule(updated.getId(), updated.getUser().getId(), updated.getDeadline(), updated.getStatus());
+        audit.record(AuditLog.EntityType.TASK, id, AuditLog.Action.UPDATE, before,
+                snapshot(updated, updated.getUser().getId()));
         log.info("Task updated: id={}", id);
         return updated;
     }
 
+    /**
+     * Cập nhật kèm If-Match: một câu UPDATE ... WHERE id = ? AND version = ?, không SELECT trước.
+     * Chỉ khi không có dòng nào bị sửa mới đọc lại task để phân biệt 404 / 403 / 412.
+     * Audit của đường này không có bản trước (before = null): bản trước là after của dòng audit trước đó.
+     */
+    @Transactional
+    public TaskDto.TaskResponse updateIfMatch(Integer id, Task input, int expectedVersion,
+                                              Integer currentUserId, boolean isAdmin) {
+        Integer owner = isAdmin ? null : currentUserId;
+        int updated = taskRepo.updateIfVersion(id, owner, expectedVersion,
+                input.getTitle(), input.getDescription(), input.getStatus(), input.getDeadline(),
+                LocalDateTime.now());
+        if (updated == 0) {
+            throw versionConflict(id, expectedVersion, getResponse(id, currentUserId, isAdmin).version());
+        }
+
+        TaskDto.TaskResponse res = taskRepo.findResponseById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Task không tồn tại với id: " + id));
+        // Đây là lần đọc duy nhất, sau UPDATE: status/deadline cũ đã bị ghi đè nên không có bản trước để dùng
+        // statusChanged/mayBeOverdue như update() (kể cả khi audit bật). Đánh dấu đếm lại user này;
+        // TaskCounterStore chỉ đếm lại khi đọc số của chính user đó hoặc trên thread nền
+        counters.invalidate(res.userId());
+        searchIndex.put(res);
+        deadlines.schedule(res.id(), res.userId(), res.deadline(), Task.Status.valueOf(res.status()));
+        audit.record(AuditLog.EntityType.TASK, id, AuditLog.Action.UPDATE, null, res);
+        log.info("Task updated: id={}, version={}", id, res.version());
+        return res;
+    }
+
     @Transactional
-    public void delete(Integer id, User currentUser, boolean isAdmin) {
-        Task task = findById(id, currentUser, isAdmin);
+    public void delete(Integer id, Integer currentUserId, boolean isAdmin) {
+        Task task = findById(id, currentUserId, isAdmin);
         taskRepo.deleteById(id);
+        counters.deleted(task.getUser().getId(), task.getStatus());
+        if (mayBeOverdue(task.getDeadline())) {
+            counters.invalidate(task.getUser().getId());
+        }
+        searchIndex.remove(List.of(id));
+        deadlines.cancel(List.of(id));
+        audit.record(AuditLog.EntityType.TASK, id, AuditLog.Action.DELETE, snapshot(task, task.getUser().getId()), null);
         log.info("Task deleted: id={}", id);
     }
-}
\ No newline at end of file
+
+    /**
+     * Đổi status của nhiều task bằng một câu UPDATE. Không phải ADMIN thì chỉ sửa được task của mình
+     * (điều kiện user_id nằm trong SQL); id bị từ chối được trả về thay vì ném lỗi.
+     */
+    @Transactional
+    public TaskDto.TaskBulkResponse bulkUpdateStatus(List<Integer> ids, Task.Status status,
+                                                     Integer currentUserId, boolean isAdmin) {
+        Integer owner = isAdmin ? null : currentUserId;
+        Set<Integer> requested = requireBulkIds(ids);
+        List<TaskRepository.TaskRefView> refs = taskRepo.lockRefs(requested, owner);
+        int affected = refs.isEmpty() ? 0
+                : taskRepo.updateStatusByIds(idsOf(refs), owner, status, LocalDateTime.now());
+        refs.forEach(r -> {
+            counters.statusChanged(r.getUserId(), r.getStatus(), status);
+            if (mayBeOverdue(r.getDeadline())) {
+                counters.invalidate(r.getUserId());
+            }
+            deadlines.schedule(r.getId(), r.getUserId(), r.getDeadline(), status);
+        });
+        audit.recordAll(refs.stream()
+                .map(r -> bulkChange(r, AuditLog.Action.UPDATE, "status", r.getStatus().name(), status.name()))
+                .toList());
+        log.info("Bulk status update: {} tasks -> {}, by userId={}", affected, status, currentUserId);
+        return new TaskDto.TaskBulkResponse(affected, rejected(requested, idsOf(refs)));
+    }
+
+    @Transactional
+    public TaskDto.TaskBulkResponse bulkUpdateDeadline(List<Integer> ids, LocalDateTime deadline,
+                                                       Integer currentUserId, boolean isAdmin) {
+        Integer owner = isAdmin ? null : currentUserId;
+        Set<Integer> requested = requireBulkIds(ids);
+        List<TaskRepository.TaskRefView> refs = taskRepo.lockRefs(requested, owner);
+        int affected = refs.isEmpty() ? 0
+                : taskRepo.updateDeadlineByIds(idsOf(refs), owner, deadline, LocalDateTime.now());
+        refs.forEach(r -> {
+            deadlines.schedule(r.getId(), r.getUserId(), deadline, r.getStatus());
+            if (mayBeOverdue(r.getDeadline()) || mayBeOverdue(deadline)) {
+                counters.invalidate(r.getUserId());
+            }
+        });
+        audit.recordAll(refs.stream()
+                .map(r -> bulkChange(r, AuditLog.Action.UPDATE, "deadline", r.getDeadline(), deadline))
+                .toList());
+        log.info("Bulk deadline update: {} tasks, by userId={}", affected, currentUserId);
+        return new TaskDto.TaskBulkResponse(affected, rejected(requested, idsOf(refs)));
+    }
+
+    @Transactional
+    public TaskDto.TaskBulkResponse bulkDelete(List<Integer> ids, Integer currentUserId, boolean isAdmin) {
+        Integer owner = isAdmin ? null : currentUserId;
+        Set<Integer> requested = requireBulkIds(ids);
+        List<TaskDto.TaskResponse> rows = taskRepo.lockResponses(requested, owner);
+        List<Integer> locked = rows.stream().map(TaskDto.TaskResponse::id).toList();
+        int affected = rows.isEmpty() ? 0 : taskRepo.deleteByIds(locked, owner);
+        rows.forEach(r -> {
+            counters.deleted(r.userId(), Task.Status.valueOf(r.status()));
+            if (mayBeOverdue(r.deadline())) {
+                counters.invalidate(r.userId());
+            }
+        });
+        searchIndex.remove(locked);
+        deadlines.cancel(locked);
+        audit.recordAll(rows.stream()
+                .map(r -> new AuditLog.Change(AuditLog.EntityType.TASK, r.id(), AuditLog.Action.DELETE, r, null))
+                .toList());
+        log.info("Bulk delete: {} tasks, by userId={}", affected, currentUserId);
+        return new TaskDto.TaskBulkResponse(affected, rejected(requested, locked));
+    }
+
+    /** Thống kê task của một user (theo status, quá hạn) từ TaskCounterStore, không GROUP BY trên bảng tasks. */
+    public TaskDto.TaskStatsResponse stats(Integer userId) {
+        return toStats(userId, counters.counts(userId));
+    }
+
+    /** Thống kê trên mọi user (ADMIN). */
+    public TaskDto.TaskStatsResponse statsAll() {
+        return toStats(null, counters.countsAll());
+    }
+
+    private static TaskDto.TaskStatsResponse toStats(Integer userId, TaskCounterStore.Counts counts) {
+        Map<String, Long> byStatus = new LinkedHashMap<>();
+        counts.byStatus().forEach((status, n) -> byStatus.put(status.name(), n));
+        return new TaskDto.TaskStatsResponse(userId, counts.total(), byStatus, counts.overdue());
+    }
+
+    private static PreconditionFailedException versionConflict(Integer id, int expected, Integer current) {
+        log.warn("Version conflict on task {}: expected {}, current {}", id, expected, current);
+        return new PreconditionFailedException("Task đã bị thay đổi bởi người khác, vui lòng tải lại (version hiện tại: "
+                + current + ")");
+    }
+
+    // Deadline đã qua: thêm/sửa/xóa task này làm đổi số task quá hạn (deadline tương lai thì
+    // TaskDeadlineScheduler báo khi tới hạn)
+    private static boolean mayBeOverdue(LocalDateTime deadline) {
+        return deadline != null && !deadline.isAfter(LocalDateTime.now());
+    }
+
+    // Snapshot cho AuditLog: record bất biến, chỉ chuyển sang JSON khi ghi
+    private static TaskDto.TaskResponse snapshot(Task t, Integer userId) {
+        return new TaskDto.TaskResponse(t.getId(), userId, t.getTitle(), t.getDescription(), t.getStatus(),
+                t.getDeadline(), t.getCreatedAt(), t.getUpdatedAt(), t.getVersion());
+    }
+
+    // Sửa hàng loạt chỉ đọc (id, userId, status, deadline) nên audit chỉ ghi trường bị đổi
+    private static AuditLog.Change bulkChange(TaskRepository.TaskRefView r, AuditLog.Action action,
+                                              String field, Object before, Object after) {
+        Map<String, Object> from = new LinkedHashMap<>();
+        from.put("userId", r.getUserId());
+        from.put(field, before);
+        Map<String, Object> to = new LinkedHashMap<>();
+        to.put("userId", r.getUserId());
+        to.put(field, after);
+        return new AuditLog.Change(AuditLog.EntityType.TASK, r.getId(), action, from, to);
+    }
+
+    private Set<Integer> requireBulkIds(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("Danh sách id không được để trống");
+        }
+        Set<Integer> unique = new LinkedHashSet<>(ids);
+        unique.remove(null);
+        if (unique.size() > maxBatchItems) {
+            throw new BadRequestException("Tối đa " + maxBatchItems + " task mỗi lần");
+        }
+        return unique;
+    }
+
+    private static List<Integer> idsOf(List<TaskRepository.TaskRefView> refs) {
+        return refs.stream().map(TaskRepository.TaskRefView::getId).toList();
+    }
+
+    private static List<Integer> rejected(Set<Integer> requested, List<Integer> locked) {
+        Set<Integer> found = new HashSet<>(locked);
+        return requested.stream().filter(id -> !found.contains(id)).toList();
+    }
+
+    private TaskDto.TaskCursorPage seek(Integer userId, Task.Status status, TaskCursor after, int size) {
+        // Lấy dư 1 dòng để biết còn trang sau hay không, không cần COUNT
+        List<TaskDto.TaskResponse> rows = new ArrayList<>(switch (after.sort()) {
+            case ID -> seekById(userId, status, after.id(), size + 1);
+            case CREATED_AT -> seekByCreatedAt(userId, status, after.key(), after.id(), size + 1);
+            case DEADLINE -> after.noDeadline()
+                    ? seekWithoutDeadline(userId, status, after.id(), size + 1)
+                    : seekByDeadline(userId, status, after.key(), after.id(), size + 1);
+        });
+        // Hết task có deadline thì đọc tiếp sang nhóm không có deadline trong cùng trang
+        if (after.sort() == TaskCursor.SortKey.DEADLINE && !after.noDeadline() && rows.size() <= size) {
+            rows.addAll(seekWithoutDeadline(userId, status, 0, size + 1 - rows.size()));
+        }
+
+        boolean hasNext = rows.size() > size;
+        List<TaskDto.TaskResponse> items = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? TaskCursor.after(after.sort(), items.get(items.size() - 1)).encode() : null;
+        return new TaskDto.TaskCursorPage(items, next, hasNext);
+    }
+
+    private List<TaskDto.TaskResponse> seekById(Integer userId, Task.Status status, Integer id, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (userId == null) {
+            return status == null ? taskRepo.seekAllById(id, page) : taskRepo.seekAllByStatusById(status, id, page);
+        }
+        return status == null
+                ? taskRepo.seekByUserById(userId, id, page)
+                : taskRepo.seekByUserAndStatusById(userId, status, id, page);
+    }
+
+    private List<TaskDto.TaskResponse> seekByCreatedAt(Integer userId, Task.Status status, LocalDateTime createdAt, Integer id, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (userId == null) {
+            return status == null
+                    ? taskRepo.seekAllByCreatedAt(createdAt, id, page)
+                    : taskRepo.seekAllByStatusByCreatedAt(status, createdAt, id, page);
+        }
+        return status == null
+                ? taskRepo.seekByUserByCreatedAt(userId, createdAt, id, page)
+                : taskRepo.seekByUserAndStatusByCreatedAt(userId, status, createdAt, id, page);
+    }
+
+    private List<TaskDto.TaskResponse> seekByDeadline(Integer userId, Task.Status status, LocalDateTime deadline, Integer id, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (userId == null) {
+            return status == null
+                    ? taskRepo.seekAllByDeadline(deadline, id, page)
+                    : taskRepo.seekAllByStatusByDeadline(status, deadline, id, page);
+        }
+        return status == null
+                ? taskRepo.seekByUserByDeadline(userId, deadline, id, page)
+                : taskRepo.seekByUserAndStatusByDeadline(userId, status, deadline, id, page);
+    }
+
+    private List<TaskDto.TaskResponse> seekWithoutDeadline(Integer userId, Task.Status status, Integer id, int limit) {
+        Pageable page = PageRequest.of(0, limit);
+        if (userId == null) {
+            return status == null
+                    ? taskRepo.seekAllWithoutDeadline(id, page)
+                    : taskRepo.seekAllByStatusWithoutDeadline(status, id, page);
+        }
+        return status == null
+                ? taskRepo.seekByUserWithoutDeadline(userId, id, page)
+                : taskRepo.seekByUserAndStatusWithoutDeadline(userId, status, id, page);
+    }
+
+    private String validate(TaskDto.TaskCreateRequest item) {
+        if (item == null) {
+            return "Task không được null";
+        }
+        Set<ConstraintViolation<TaskDto.TaskCreateRequest>> violations = validator.validate(item);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        if (item.status() != null) {
+            try {
+                Task.Status.valueOf(item.status().toUpperCase());
+            } catch (IllegalArgumentException e) {
+                return "Status không hợp lệ. Chỉ chấp nhận: PENDING, IN_PROGRESS, COMPLETED";
+            }
+        }
+        return null;
+    }
+
+}
@@ -0,0 +1,174 @@
+package com.example.demo.service;
+
+import java.util.function.Consumer;
+
+/**
+ * Timing wheel phân cấp: mỗi tầng có size ô, mỗi ô dài tickMs; tầng trên có tickMs = tickMs * size của tầng dưới
+ * (tầng trên chỉ được tạo khi có timer ở xa). Thêm và hủy timer là O(1) (danh sách liên kết đôi trong từng ô);
+ * mỗi tick chỉ duyệt một ô, timer ở tầng trên được hạ xuống tầng dưới khi ô của nó tới lượt.
+ * Không thread-safe: người dùng tự đồng bộ (xem TaskDeadlineScheduler).
+ */
+public class TimingWheel<T> {
+
+    private final Level root;
+    private int size;
+
+    public TimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be > 0 and wheelSize >= 2");
+        }
+        this.root = new Level(tickMs, wheelSize, startMs);
+    }
+
+    /** Thời điểm hiện tại của wheel (đã làm tròn xuống theo tick). */
+    public long currentTime() {
+        return root.currentTime;
+    }
+
+    /** Số timer đang chờ. */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Đặt timer hết hạn lúc expirationMs. Trả về null nếu thời điểm đó đã tới (nằm trong tick hiện tại):
+     * người gọi tự xử lý ngay, wheel không giữ timer.
+     */
+    public Timer<T> schedule(long expirationMs, T value) {
+        Timer<T> timer = new Timer<>(expirationMs, value);
+        if (!root.add(timer)) {
+            return null;
+        }
+        size++;
+        return timer;
+    }
+
+    /** Hủy timer chưa hết hạn. Trả về false nếu timer đã chạy hoặc đã bị hủy. */
+    public boolean cancel(Timer<T> timer) {
+        if (timer == null || timer.bucket == null) {
+            return false;
+        }
+        timer.bucket.remove(timer);
+        size--;
+        return true;
+    }
+
+    /** Tiến đồng hồ tới nowMs, gọi expired cho mọi timer đã tới hạn (theo thứ tự tick). */
+    public void advance(long nowMs, Consumer<T> expired) {
+        while (root.currentTime + root.tickMs <= nowMs) {
+            root.tick(expired);
+        }
+    }
+
+    private void reinsert(Timer<T> timer, Consumer<T> expired) {
+        if (!root.add(timer)) {
+            size--;
+            expired.accept(timer.value);
+        }
+    }
+
+    private final class Level {
+        final long tickMs;
+        final int wheelSize;
+        final long intervalMs;
+        final Bucket<T>[] buckets;
+        long currentTime;
+        Level overflow;
+
+        @SuppressWarnings("unchecked")
+        Level(long tickMs, int wheelSize, long startMs) {
+            this.tickMs = tickMs;
+            this.wheelSize = wheelSize;
+            this.intervalMs = tickMs * wheelSize;
+            this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+            this.buckets = new Bucket[wheelSize];
+            for (int i = 0; i < wheelSize; i++) {
+                buckets[i] = new Bucket<>();
+            }
+        }
+
+        boolean add(Timer<T> timer) {
+            long expiration = timer.expirationMs;
+            if (expiration < currentTime + tickMs) {
+                return false;
+            }
+            if (expiration < currentTime + intervalMs) {
+                // Trong một vòng, mỗi ô ứng với đúng một khoảng tickMs nên không có hai khoảng chung ô
+                buckets[(int) Math.floorMod(expiration / tickMs, (long) wheelSize)].add(timer);
+                return true;
+            }
+            if (overflow == null) {
+                overflow = new Level(intervalMs, wheelSize, currentTime);
+            }
+            return overflow.add(timer);
+        }
+
+        void tick(Consumer<T> expired) {
+            currentTime += tickMs;
+            if (overflow != null && Math.floorMod(currentTime, overflow.tickMs) == 0) {
+                // Tầng trên sang ô mới: hạ các timer của ô đó xuống (hoặc chạy nếu đã tới hạn)
+                overflow.tick(expired);
+            }
+            Bucket<T> bucket = buckets[(int) Math.floorMod(currentTime / tickMs, (long) wheelSize)];
+            for (Timer<T> timer = bucket.poll(); timer != null; timer = bucket.poll()) {
+                reinsert(timer, expired);
+            }
+        }
+    }
+
+    private static final class Bucket<T> {
+        // Nút đầu giả; danh sách vòng để thêm/xóa không cần xét trường hợp rỗng
+        private final Timer<T> head = new Timer<>(0, null);
+
+        Bucket() {
+            head.prev = head;
+            head.next = head;
+        }
+
+        void add(Timer<T> timer) {
+            timer.bucket = this;
+            timer.prev = head.prev;
+            timer.next = head;
+            head.prev.next = timer;
+            head.prev = timer;
+        }
+
+        void remove(Timer<T> timer) {
+            timer.prev.next = timer.next;
+            timer.next.prev = timer.prev;
+            timer.prev = null;
+            timer.next = null;
+            timer.bucket = null;
+        }
+
+        Timer<T> poll() {
+            Timer<T> first = head.next;
+            if (first == head) {
+                return null;
+            }
+            remove(first);
+            return first;
+        }
+    }
+
+    public static final class Timer<T> {
+        private final long expirationMs;
+        private final T value;
+        private Bucket<T> bucket;
+        private Timer<T> prev;
+        private Timer<T> next;
+
+        private Timer(long expirationMs, T value) {
+            this.expirationMs = expirationMs;
+            this.value = value;
+        }
+
+        public long expirationMs() {
+            return expirationMs;
+        }
+
+        public T value() {
+            return value;
+        }
+    }
+}
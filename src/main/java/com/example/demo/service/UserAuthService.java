@@ -2,14 +2,18 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AuthDto.LoginRequest;
 import com.example.demo.dto.AuthDto.RegisterRequest;
+import com.example.demo.dto.AuthDto.TokenResponse;
 import com.example.demo.entity.User;
 import com.example.demo.exception.DuplicateException;
 import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtService;
+import com.example.demo.security.PasswordHasher;
+import com.example.demo.security.PrincipalCache;
+import com.example.demo.security.TokenRevocationStore;
+import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 
 @Slf4j
@@ -18,7 +22,10 @@ import org.springframework.stereotype.Service;
 public class UserAuthService {
     private final UserRepository repo;
     private final JwtService jwt;
-    private final BCryptPasswordEncoder encoder;
+    private final PasswordHasher encoder;
+    private final PrincipalCache principalCache;
+    private final RefreshTokenService refreshTokens;
+    private final TokenRevocationStore revocations;
 
     public User register(RegisterRequest input) {
         if (repo.existsByEmail(input.email())) {
@@ -34,24 +41,52 @@ public class UserAuthService {
                 .build();
 
         User saved = repo.save(u);
+        principalCache.evict(saved.getEmail());
         log.info("User registered successfully: {}", saved.getEmail());
         return saved;
     }
 
-    public String login(String email, String rawPassword) {
+    public TokenResponse login(String email, String rawPassword) {
         var u = repo.findByEmail(email).orElseThrow(() -> {
             log.warn("Login failed: email not found: {}", email);
             return new UnauthorizedException("Email không tồn tại");
         });
+        // User đang chờ xóa: từ chối trước khi tốn một lần BCrypt
+        if (u.isDisabled()) {
+            log.warn("Login failed: user disabled: {}", email);
+            throw new UnauthorizedException("Tài khoản đã bị vô hiệu hóa");
+        }
 
         if (!encoder.matches(rawPassword, u.getPassword())) {
             log.warn("Login failed: wrong password for email: {}", email);
             throw new UnauthorizedException("Mật khẩu không đúng");
         }
 
-        String token = jwt.generateToken(u.getEmail(), u.getId());
+        String token = jwt.generateToken(u);
+        String refreshToken = refreshTokens.issue(u);
         log.info("User logged in successfully: {}", u.getEmail());
-        return token;
+        return new TokenResponse(token, refreshToken);
+    }
+
+    /**
+     * Cấp access token mới từ refresh token, không cần kiểm tra mật khẩu (không tốn BCrypt).
+     */
+    public TokenResponse refresh(String refreshToken) {
+        RefreshTokenService.Rotation rotation = refreshTokens.rotate(refreshToken);
+        return new TokenResponse(jwt.generateToken(rotation.user()), rotation.refreshToken());
     }
 
+    /**
+     * Đăng xuất: thu hồi access token hiện tại (theo jti) và family của refresh token nếu có.
+     */
+    @Transactional
+    public void logout(String accessToken, String refreshToken) {
+        var claims = jwt.verify(accessToken)
+                .orElseThrow(() -> new UnauthorizedException("Token không hợp lệ"));
+        revocations.revoke(claims);
+        if (refreshToken != null && !refreshToken.isBlank()) {
+            refreshTokens.revokeFamily(refreshToken);
+        }
+        log.info("User logged out: {}", claims.subject());
+    }
 }
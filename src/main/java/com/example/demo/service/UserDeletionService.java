@@ -0,0 +1,230 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserDto;
+import com.example.demo.entity.Task;
+import com.example.demo.repository.UserPurgeRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.PrincipalCache;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
+
+/**
+ * Xóa dữ liệu của user đã bị vô hiệu hóa (UserService.delete) trên một thread nền: task rồi task lưu trữ,
+ * mỗi lô batch-size dòng là một transaction ngắn, nghỉ pause-ms giữa các lô để request khác và replica
+ * theo kịp; cuối cùng mới xóa dòng users. Thay cho ON DELETE CASCADE xóa hết task trong một câu lệnh.
+ * User chưa xóa xong khi tắt ứng dụng (delete_requested_at còn giá trị) được xóa tiếp khi khởi động lại.
+ */
+@Slf4j
+@Component
+public class UserDeletionService {
+
+    private static final int MAX_FINISHED = 50;
+
+    private final UserRepository userRepository;
+    private final UserPurgeRepository purgeRepository;
+    private final TaskCounterStore counters;
+    private final TaskSearchIndex searchIndex;
+    private final TaskDeadlineScheduler deadlines;
+    private final PrincipalCache principalCache;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "user-deletion");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<Integer, Job> active = new ConcurrentHashMap<>();
+    private final Deque<Job> finished = new ConcurrentLinkedDeque<>();
+
+    public UserDeletionService(UserRepository userRepository,
+                               UserPurgeRepository purgeRepository,
+                               TaskCounterStore counters,
+                               TaskSearchIndex searchIndex,
+                               TaskDeadlineScheduler deadlines,
+                               PrincipalCache principalCache,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.users.deletion.batch-size:1000}") int batchSize,
+                               @Value("${app.users.deletion.pause-ms:50}") long pauseMillis) {
+        this.userRepository = userRepository;
+        this.purgeRepository = purgeRepository;
+        this.counters = counters;
+        this.searchIndex = searchIndex;
+        this.deadlines = deadlines;
+        this.principalCache = principalCache;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.pauseMillis = Math.max(0, pauseMillis);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        try {
+            List<Integer> pending = userRepository.findPendingDeletionIds();
+            pending.forEach(this::submit);
+            if (!pending.isEmpty()) {
+                log.info("Resumed deletion of {} users", pending.size());
+            }
+        } catch (Exception e) {
+            log.error("Could not resume pending user deletions", e);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+
+    /** Đưa user vào hàng đợi xóa; user đang chờ/đang xóa thì trả về job hiện có. */
+    public UserDto.UserDeletionStatus submit(Integer userId) {
+        Job job = new Job(userId);
+        Job existing = active.putIfAbsent(userId, job);
+        if (existing != null) {
+            return existing.toStatus();
+        }
+        executor.execute(() -> run(job));
+        return job.toStatus();
+    }
+
+    public Optional<UserDto.UserDeletionStatus> status(Integer userId) {
+        Job job = active.get(userId);
+        if (job == null) {
+            job = finished.stream().filter(j -> j.userId.equals(userId)).findFirst().orElse(null);
+        }
+        return Optional.ofNullable(job).map(Job::toStatus);
+    }
+
+    /** Job đang chờ/đang chạy và các job gần nhất đã xong, mới nhất trước. */
+    public List<UserDto.UserDeletionStatus> jobs() {
+        return Stream.concat(active.values().stream().sorted(Comparator.comparing((Job j) -> j.queuedAt).reversed()),
+                        finished.stream())
+                .map(Job::toStatus)
+                .toList();
+    }
+
+    private void run(Job job) {
+        long start = System.nanoTime();
+        try {
+            job.status = Status.RUNNING;
+            job.tasksTotal = counters.counts(job.userId).total();
+            int n;
+            do {
+                Integer deleted = tx.execute(s -> deleteTaskBatch(job.userId));
+                n = deleted == null ? 0 : deleted;
+                job.tasksDeleted += n;
+            } while (n == batchSize && pause());
+            do {
+                Integer deleted = tx.execute(s -> purgeRepository.deleteArchivedTasks(job.userId, batchSize));
+                n = deleted == null ? 0 : deleted;
+                job.archivedTasksDeleted += n;
+            } while (n == batchSize && pause());
+
+            // Xóa qua JPA để Hibernate bỏ user khỏi cache cấp 2 (theo id và theo email);
+            // refresh_tokens còn lại đi theo ON DELETE CASCADE, chỉ vài dòng
+            tx.executeWithoutResult(s -> userRepository.findById(job.userId).ifPresent(u -> {
+                principalCache.evict(u.getEmail());
+                userRepository.delete(u);
+            }));
+            counters.invalidate(job.userId);
+            job.finish(Status.COMPLETED, null);
+            log.info("User {} deleted: {} tasks, {} archived tasks in {} ms", job.userId, job.tasksDeleted,
+                    job.archivedTasksDeleted, (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            // User vẫn disabled và còn delete_requested_at: gọi xóa lại hoặc khởi động lại sẽ chạy tiếp
+            job.finish(Status.FAILED, e.getMessage());
+            log.error("Deletion of user {} failed after {} tasks", job.userId, job.tasksDeleted, e);
+        } finally {
+            // Thêm vào finished trước khi rời active để status() luôn tìm thấy job
+            finished.addFirst(job);
+            active.remove(job.userId, job);
+            while (finished.size() > MAX_FINISHED) {
+                finished.pollLast();
+            }
+        }
+    }
+
+    private int deleteTaskBatch(Integer userId) {
+        List<UserPurgeRepository.TaskRef> refs = purgeRepository.findTasks(userId, batchSize);
+        if (refs.isEmpty()) {
+            return 0;
+        }
+        List<Integer> ids = refs.stream().map(UserPurgeRepository.TaskRef::id).toList();
+        int deleted = purgeRepository.deleteTasks(ids);
+
+        // Index tìm kiếm, lịch nhắc deadline và bộ đếm cập nhật sau khi lô commit
+        searchIndex.remove(ids);
+        deadlines.cancel(ids);
+        Map<Task.Status, Long> byStatus = new EnumMap<>(Task.Status.class);
+        refs.forEach(r -> byStatus.merge(r.status(), 1L, Long::sum));
+        byStatus.forEach((status, n) -> counters.deleted(userId, status, n));
+        return deleted;
+    }
+
+    private boolean pause() {
+        if (pauseMillis > 0) {
+            try {
+                Thread.sleep(pauseMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("User deletion interrupted", e);
+            }
+        }
+        return true;
+    }
+
+    public Stats stats() {
+        long failed = finished.stream().filter(j -> j.status == Status.FAILED).count();
+        return new Stats(active.size(), finished.size() - failed, failed);
+    }
+
+    public record Stats(int active, long completed, long failed) {}
+
+    private enum Status { PENDING, RUNNING, COMPLETED, FAILED }
+
+    // Chỉ thread xóa ghi vào Job; volatile để API đọc được tiến độ mới
+    private static final class Job {
+        private final Integer userId;
+        private final LocalDateTime queuedAt = LocalDateTime.now();
+        private volatile Status status = Status.PENDING;
+        private volatile long tasksTotal;
+        private volatile long tasksDeleted;
+        private volatile long archivedTasksDeleted;
+        private volatile LocalDateTime finishedAt;
+        private volatile String error;
+
+        Job(Integer userId) {
+            this.userId = userId;
+        }
+
+        void finish(Status status, String error) {
+            this.error = error;
+            this.finishedAt = LocalDateTime.now();
+            this.status = status;
+        }
+
+        UserDto.UserDeletionStatus toStatus() {
+            return new UserDto.UserDeletionStatus(userId, status.name(), tasksTotal, tasksDeleted,
+                    archivedTasksDeleted, queuedAt, finishedAt, error);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserDto;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.util.Csv;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Ghi toàn bộ user (id, email, họ tên, role; không có mật khẩu) ra response dạng NDJSON hoặc CSV,
+ * đọc tuần tự từ UserRepository.streamForExport giống TaskExporter.
+ */
+@Slf4j
+@Component
+public class UserExporter {
+
+    private static final String CSV_HEADER = "id,email,fullName,role";
+
+    private final UserRepository userRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readTx;
+    private final int flushEveryRows;
+
+    public UserExporter(UserRepository userRepository,
+                        ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${app.users.export.flush-every-rows:1000}") int flushEveryRows) {
+        this.userRepository = userRepository;
+        this.objectMapper = objectMapper;
+        this.readTx = new TransactionTemplate(transactionManager);
+        this.readTx.setReadOnly(true);
+        this.flushEveryRows = Math.max(1, flushEveryRows);
+    }
+
+    /** Ghi mọi user ra out, trả về số dòng đã ghi. Không đóng out. */
+    public long export(OutputStream out, ExportFormat format) {
+        long start = System.nanoTime();
+        long[] rows = {0};
+        try {
+            readTx.executeWithoutResult(tx -> {
+                try (Stream<UserDto.UserResponse> users = userRepository.streamForExport()) {
+                    write(out, format, users.iterator(), rows);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.error("User export failed after {} rows", rows[0], e);
+            throw e;
+        }
+        log.info("Exported {} users as {} in {} ms", rows[0], format, (System.nanoTime() - start) / 1_000_000);
+        return rows[0];
+    }
+
+    private void write(OutputStream out, ExportFormat format, Iterator<UserDto.UserResponse> users, long[] rows)
+            throws IOException {
+        if (format == ExportFormat.CSV) {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            writer.write(CSV_HEADER);
+            writer.write("\r\n");
+            while (users.hasNext()) {
+                UserDto.UserResponse u = users.next();
+                writer.write(u.id() + "," + Csv.field(u.email()) + "," + Csv.field(u.fullName())
+                        + "," + Csv.field(u.role()) + "\r\n");
+                if (++rows[0] % flushEveryRows == 0) {
+                    writer.flush();
+                }
+            }
+            writer.flush();
+            return;
+        }
+        JsonGenerator gen = objectMapper.createGenerator(out);
+        gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        gen.setRootValueSeparator(null);
+        try (gen) {
+            while (users.hasNext()) {
+                gen.writeObject(users.next());
+                gen.writeRaw('\n');
+                if (++rows[0] % flushEveryRows == 0) {
+                    gen.flush();
+                }
+            }
+        }
+    }
+}
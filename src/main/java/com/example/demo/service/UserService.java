@@ -1,33 +1,74 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.UserCursor;
+import com.example.demo.dto.UserDto;
 import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ResourceNotFoundException;
 import com.example.demo.repository.UserRepository;
-import jakarta.transaction.Transactional;
+import com.example.demo.security.PrincipalCache;
+import com.example.demo.security.TokenVersionRegistry;
+import com.example.demo.util.AfterCommit;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class UserService {
     private final UserRepository repo;
+    private final PrincipalCache principalCache;
+    private final TokenVersionRegistry tokenVersions;
+    private final RefreshTokenService refreshTokens;
+    private final UserDeletionService deletions;
+    private final AuditLog audit;
 
     @Transactional
     public User create(User user) {
         user.setId(null);
         User saved = repo.save(user);
+        audit.record(AuditLog.EntityType.USER, saved.getId(), AuditLog.Action.CREATE, null, snapshot(saved));
         log.info("User created: id={}, email={}", saved.getId(), saved.getEmail());
         return saved;
     }
 
-    public List<User> findAll() {
-        return repo.findAll();
+    /**
+     * Một trang user theo keyset, lọc theo tiền tố email hoặc họ tên (chỉ một trong hai).
+     * Đọc qua projection nên không tải mật khẩu và không tạo entity.
+     */
+    @Transactional(readOnly = true)
+    public UserDto.UserCursorPage findByCursor(String emailPrefix, String namePrefix, String after, int size) {
+        boolean byEmail = emailPrefix != null && !emailPrefix.isBlank();
+        boolean byName = namePrefix != null && !namePrefix.isBlank();
+        if (byEmail && byName) {
+            throw new BadRequestException("Chỉ lọc theo email hoặc name, không dùng cả hai");
+        }
+        UserCursor.SortKey sort = byEmail ? UserCursor.SortKey.EMAIL : byName ? UserCursor.SortKey.NAME : UserCursor.SortKey.ID;
+        UserCursor cursor = UserCursor.decode(after, sort);
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<UserDto.UserResponse> rows = switch (sort) {
+            case ID -> repo.seekById(cursor.id(), limit);
+            case EMAIL -> repo.seekByEmailPrefix(likePrefix(emailPrefix), cursor.key(), limit);
+            case NAME -> repo.seekByNamePrefix(likePrefix(namePrefix), cursor.key(), cursor.id(), limit);
+        };
+        boolean hasNext = rows.size() > size;
+        List<UserDto.UserResponse> items = hasNext ? rows.subList(0, size) : rows;
+        String next = hasNext ? UserCursor.after(sort, items.get(items.size() - 1)).encode() : null;
+        return new UserDto.UserCursorPage(items, next, hasNext);
     }
 
+    @Transactional(readOnly = true)
     public User findById(Integer id) {
         return repo.findById(id)
                 .orElseThrow(() -> {
@@ -39,23 +80,89 @@ public class UserService {
     @Transactional
     public User update(Integer id, User input) {
         User u = findById(id);
+        if (u.isDisabled()) {
+            throw new BadRequestException("User đang bị xóa");
+        }
+        Map<String, Object> before = snapshot(u);
+        principalCache.evict(u.getEmail());
+        principalCache.evict(input.getEmail());
+        boolean credentialsChanged = !Objects.equals(u.getEmail(), input.getEmail())
+                || !Objects.equals(u.getRole(), input.getRole())
+                || input.getPassword() != null;
         u.setEmail(input.getEmail());
         u.setPassword(input.getPassword());
         u.setFullName(input.getFullName());
         u.setRole(input.getRole());
+        if (credentialsChanged) {
+            // Token cũ mang role/email cũ, tăng version để chúng bị từ chối
+            u.setTokenVersion(u.getTokenVersion() + 1);
+            tokenVersions.update(u.getId(), u.getTokenVersion());
+        }
         User updated = repo.save(u);
+        Map<String, Object> after = snapshot(updated);
+        after.put("passwordChanged", input.getPassword() != null);
+        audit.record(AuditLog.EntityType.USER, id, AuditLog.Action.UPDATE, before, after);
         log.info("User updated: id={}", id);
         return updated;
     }
 
+    /**
+     * Vô hiệu hóa user ngay (login và mọi JWT đã cấp bị từ chối, refresh token bị thu hồi) rồi giao
+     * cho UserDeletionService xóa task theo lô và xóa dòng users sau khi transaction này commit.
+     * Gọi lại với user đang chờ xóa (ví dụ job trước bị lỗi) sẽ chạy lại job.
+     */
     @Transactional
     public void delete(Integer id) {
-        if (!repo.existsById(id)) {
+        User u = repo.findById(id).orElseThrow(() -> {
             log.warn("User not found for deletion: id={}", id);
-            throw new ResourceNotFoundException("User không tồn tại với id: " + id);
+            return new ResourceNotFoundException("User không tồn tại với id: " + id);
+        });
+        if (!u.isDisabled()) {
+            audit.record(AuditLog.EntityType.USER, id, AuditLog.Action.DELETE, snapshot(u), null);
+            principalCache.evict(u.getEmail());
+            u.setDisabled(true);
+            u.setDeleteRequestedAt(LocalDateTime.now());
+            // Version mới trong DB để instance khởi động lại cũng từ chối token cũ
+            u.setTokenVersion(u.getTokenVersion() + 1);
+            repo.save(u);
+            tokenVersions.update(id, Integer.MAX_VALUE);
+            refreshTokens.revokeAllForUser(id);
         }
-        repo.deleteById(id);
-        log.info("User deleted: id={}", id);
+        AfterCommit.run(() -> deletions.submit(id));
+        log.info("User disabled and queued for deletion: id={}", id);
     }
 
+    /**
+     * Thu hồi mọi token của user: tăng token_version (access token cũ bị từ chối ngay)
+     * và thu hồi tất cả refresh token.
+     */
+    @Transactional
+    public void revokeAllTokens(Integer id) {
+        User u = findById(id);
+        int oldVersion = u.getTokenVersion();
+        u.setTokenVersion(oldVersion + 1);
+        repo.save(u);
+        audit.record(AuditLog.EntityType.USER, id, AuditLog.Action.UPDATE,
+                Map.of("tokenVersion", oldVersion), Map.of("tokenVersion", u.getTokenVersion()));
+        tokenVersions.update(u.getId(), u.getTokenVersion());
+        principalCache.evict(u.getEmail());
+        int refreshRevoked = refreshTokens.revokeAllForUser(id);
+        log.info("All tokens revoked: userId={}, refreshTokens={}", id, refreshRevoked);
+    }
+
+    // Snapshot cho AuditLog, không bao giờ chứa mật khẩu
+    private static Map<String, Object> snapshot(User u) {
+        Map<String, Object> fields = new LinkedHashMap<>();
+        fields.put("id", u.getId());
+        fields.put("email", u.getEmail());
+        fields.put("fullName", u.getFullName());
+        fields.put("role", u.getRole());
+        fields.put("disabled", u.isDisabled());
+        return fields;
+    }
+
+    // "abc" -> "abc%"; %, _ và ký tự escape "!" trong input được hiểu theo nghĩa đen
+    static String likePrefix(String prefix) {
+        return prefix.trim().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
 }
@@ -0,0 +1,26 @@
+package com.example.demo.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Chạy action sau khi transaction hiện tại commit (rollback thì bỏ qua); không có transaction thì chạy ngay.
+ * Dùng cho cache, bộ đếm, index... trong bộ nhớ để chúng chỉ thấy thay đổi đã commit.
+ */
+public final class AfterCommit {
+
+    private AfterCommit() {}
+
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.demo.util;
+
+/**
+ * Ghi một ô CSV cho các file export và đọc lại ô đó khi import.
+ */
+public final class Csv {
+
+    private static final String FORMULA_START = "=+-@\t\r";
+
+    private Csv() {}
+
+    // RFC 4180: bọc trong dấu nháy kép khi có dấu phẩy, nháy kép hoặc xuống dòng.
+    // Giá trị bắt đầu bằng = + - @ tab hoặc CR (kể cả sau các dấu ' sẵn có) được thêm ' phía trước
+    // để bảng tính không chạy nó như công thức; {@link #unescapeFormula} bỏ đúng dấu ' đó khi import.
+    public static String field(Object value) {
+        if (value == null) {
+            return "";
+        }
+        String s = value.toString();
+        if (looksLikeFormula(s)) {
+            s = "'" + s;
+        }
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0 && s.indexOf('\r') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    /** Ngược với phần chống công thức của {@link #field}: "'=A1" thành "=A1", "''=A1" thành "'=A1". */
+    public static String unescapeFormula(String s) {
+        if (s != null && s.startsWith("'") && looksLikeFormula(s)) {
+            return s.substring(1);
+        }
+        return s;
+    }
+
+    private static boolean looksLikeFormula(String s) {
+        int i = 0;
+        while (i < s.length() && s.charAt(i) == '\'') {
+            i++;
+        }
+        return i < s.length() && FORMULA_START.indexOf(s.charAt(i)) >= 0;
+    }
+}
@@ -0,0 +1,6 @@
+-- Xóa user theo nền (UserDeletionService): user bị đánh dấu disabled ngay (login, JWT bị từ chối),
+-- task và task lưu trữ bị xóa theo từng lô nhỏ, cuối cùng mới xóa dòng users.
+-- delete_requested_at khác null: đang chờ xóa, job được chạy tiếp khi ứng dụng khởi động lại.
+ALTER TABLE users ADD COLUMN disabled BOOLEAN NOT NULL DEFAULT FALSE;
+ALTER TABLE users ADD COLUMN delete_requested_at DATETIME NULL;
+CREATE INDEX idx_users_delete_requested ON users (delete_requested_at);
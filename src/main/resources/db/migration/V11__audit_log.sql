@@ -0,0 +1,28 @@
+-- Nhật ký thay đổi task/user (AuditLog), chỉ INSERT, không sửa/xóa dòng.
+-- before_json/after_json: trạng thái trước/sau (null khi tạo/xóa); actor_id null là tác vụ hệ thống.
+CREATE TABLE audit_log (
+  id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  occurred_at DATETIME(3) NOT NULL,
+  actor_id    INT NULL,
+  entity_type VARCHAR(20) NOT NULL,
+  entity_id   INT NOT NULL,
+  action      VARCHAR(20) NOT NULL,
+  before_json TEXT NULL,
+  after_json  TEXT NULL,
+  -- API admin đọc theo id giảm dần, lọc theo đối tượng hoặc người thực hiện
+  INDEX idx_audit_entity (entity_type, entity_id, id),
+  INDEX idx_audit_actor (actor_id, id)
+);
+
+-- Chế độ outbox (app.audit.mode=outbox): ghi cùng transaction với thay đổi, không index phụ để INSERT rẻ;
+-- thread nền chuyển sang audit_log theo lô rồi xóa khỏi đây.
+CREATE TABLE audit_outbox (
+  id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  occurred_at DATETIME(3) NOT NULL,
+  actor_id    INT NULL,
+  entity_type VARCHAR(20) NOT NULL,
+  entity_id   INT NOT NULL,
+  action      VARCHAR(20) NOT NULL,
+  before_json TEXT NULL,
+  after_json  TEXT NULL
+);
@@ -0,0 +1,2 @@
+-- Version token của user: tăng khi đổi email/role hoặc thu hồi mọi token, JWT mang version cũ bị từ chối.
+ALTER TABLE users ADD COLUMN token_version INT NOT NULL DEFAULT 0;
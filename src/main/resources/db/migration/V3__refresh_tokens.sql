@@ -0,0 +1,14 @@
+-- Bảng refresh_tokens: chỉ lưu SHA-256 của token; family_id gom các token xoay vòng từ cùng một lần đăng nhập
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+  id          BIGINT AUTO_INCREMENT PRIMARY KEY,
+  user_id     INT NOT NULL,
+  token_hash  CHAR(64) NOT NULL UNIQUE,
+  family_id   CHAR(36) NOT NULL,
+  expires_at  DATETIME NOT NULL,
+  used_at     DATETIME NULL,
+  revoked_at  DATETIME NULL,
+  created_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_refresh_tokens_family (family_id),
+  INDEX idx_refresh_tokens_expires (expires_at),
+  CONSTRAINT fk_refresh_tokens_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
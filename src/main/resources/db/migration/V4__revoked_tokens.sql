@@ -0,0 +1,8 @@
+-- Bảng revoked_tokens: jti của access token bị thu hồi, xóa khi token hết hạn
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+  jti         BIGINT PRIMARY KEY,
+  user_id     INT NOT NULL,
+  expires_at  DATETIME NOT NULL,
+  revoked_at  DATETIME NOT NULL,
+  INDEX idx_revoked_tokens_expires (expires_at)
+);
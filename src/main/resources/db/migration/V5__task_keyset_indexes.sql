@@ -0,0 +1,9 @@
+-- Index cho phân trang keyset (InnoDB tự nối thêm id vào cuối mỗi index phụ)
+CREATE INDEX idx_tasks_created ON tasks (created_at);
+CREATE INDEX idx_tasks_deadline ON tasks (deadline);
+CREATE INDEX idx_tasks_status_created ON tasks (status, created_at);
+CREATE INDEX idx_tasks_status_deadline ON tasks (status, deadline);
+CREATE INDEX idx_tasks_user_created ON tasks (user_id, created_at);
+CREATE INDEX idx_tasks_user_deadline ON tasks (user_id, deadline);
+CREATE INDEX idx_tasks_user_status_created ON tasks (user_id, status, created_at);
+CREATE INDEX idx_tasks_user_status_deadline ON tasks (user_id, status, deadline);
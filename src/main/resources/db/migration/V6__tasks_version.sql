@@ -0,0 +1,2 @@
+-- Version của task cho optimistic locking (@Version, ETag / If-Match)
+ALTER TABLE tasks ADD COLUMN version INT NOT NULL DEFAULT 0;
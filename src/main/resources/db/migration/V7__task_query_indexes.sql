@@ -0,0 +1,19 @@
+-- Index cho các truy vấn của TaskRepository còn thiếu ở V5.
+-- InnoDB tự nối id (khóa chính) vào cuối mỗi index phụ, nên (a, b) thực chất là (a, b, id):
+-- truy vấn "điều kiện bằng trên a, b + order by id" đọc thẳng theo thứ tự index, không filesort.
+--
+-- Truy vấn                                              | Index
+-- ------------------------------------------------------+------------------------------------
+-- status = ? [order by id]  (findByStatus, seek...ById) | idx_tasks_status
+-- user_id = ? [order by id] (findByUser_Id, seek...)    | idx_tasks_user
+-- user_id = ? and status = ? [order by id]              | idx_tasks_user_status
+-- count group by (user_id, status) (TaskCounterStore)   | idx_tasks_user_status (covering)
+-- ... order by created_at / deadline                    | các index *_created / *_deadline ở V5
+
+CREATE INDEX idx_tasks_status ON tasks (status);
+CREATE INDEX idx_tasks_user ON tasks (user_id);
+CREATE INDEX idx_tasks_user_status ON tasks (user_id, status);
+
+-- revokeAllForUser: user_id = ? and revoked_at is null.
+-- MySQL tự bỏ index ngầm của khóa ngoại fk_refresh_tokens_user khi đã có index này.
+CREATE INDEX idx_refresh_tokens_user_revoked ON refresh_tokens (user_id, revoked_at);
@@ -0,0 +1,20 @@
+-- Bảng lạnh cho task COMPLETED lâu ngày (TaskArchiver chuyển sang theo lô). Giữ nguyên id của task.
+-- Chỉ đọc qua danh sách includeArchived nên ít index hơn bảng tasks.
+CREATE TABLE tasks_archive (
+  id          INT PRIMARY KEY,
+  title       VARCHAR(200) NOT NULL,
+  description VARCHAR(1000) NULL,
+  status      ENUM('PENDING','IN_PROGRESS','COMPLETED') NOT NULL,
+  deadline    DATETIME NULL,
+  user_id     INT NOT NULL,
+  created_at  TIMESTAMP NOT NULL,
+  updated_at  TIMESTAMP NULL,
+  version     INT NOT NULL DEFAULT 0,
+  archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  INDEX idx_tasks_archive_created (created_at),
+  INDEX idx_tasks_archive_user_created (user_id, created_at),
+  CONSTRAINT fk_tasks_archive_user FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+-- Tìm task cần chuyển: status = 'COMPLETED' and updated_at < ? (updated_at là lần sửa cuối, tức lúc hoàn thành)
+CREATE INDEX idx_tasks_status_updated ON tasks (status, updated_at);
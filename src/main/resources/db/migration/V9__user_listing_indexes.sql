@@ -0,0 +1,10 @@
+-- Danh sách user phân trang theo keyset (UserRepository.seek...):
+--
+-- Truy vấn                                               | Index
+-- -------------------------------------------------------+------------------------------
+-- id > ? order by id                                     | khóa chính
+-- email like 'abc%' and email > ? order by email         | unique index của email (V1)
+-- full_name like 'abc%' and (full_name, id) > ... order  | idx_users_full_name
+--
+-- InnoDB tự nối id vào cuối index phụ nên idx_users_full_name là (full_name, id), đúng thứ tự seek.
+CREATE INDEX idx_users_full_name ON users (full_name);
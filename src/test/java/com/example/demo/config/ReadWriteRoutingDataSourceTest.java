@@ -0,0 +1,160 @@
+package com.example.demo.config;
+
+import com.example.demo.security.AuthenticatedUser;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Hai H2 nhúng đóng vai primary và replica; bảng db_role cho biết câu truy vấn chạy ở đâu
+@DisplayName("ReadWriteRoutingDataSource Tests")
+class ReadWriteRoutingDataSourceTest {
+
+    private EmbeddedDatabase primaryDb;
+    private EmbeddedDatabase replicaDb;
+    private FlakyDataSource replica;
+    private ReadWriteRoutingDataSource router;
+    private JdbcTemplate jdbc;
+    private TransactionTemplate writeTx;
+    private TransactionTemplate readTx;
+
+    @BeforeEach
+    void setUp() {
+        primaryDb = database("primary");
+        replicaDb = database("replica");
+        replica = new FlakyDataSource(replicaDb);
+        router = new ReadWriteRoutingDataSource(primaryDb, List.of(replica), 200, 1);
+
+        DataSource dataSource = new LazyConnectionDataSourceProxy(router);
+        jdbc = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager txManager = new DataSourceTransactionManager(dataSource);
+        writeTx = new TransactionTemplate(txManager);
+        readTx = new TransactionTemplate(txManager);
+        readTx.setReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+        primaryDb.shutdown();
+        replicaDb.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should send read-only transactions to replica and others to primary")
+    void testRouting() {
+        assertEquals("replica", readTx.execute(s -> role()));
+        assertEquals("primary", writeTx.execute(s -> role()));
+        assertEquals("primary", role());
+        assertEquals(1, router.stats().replicaConnections());
+    }
+
+    @Test
+    @DisplayName("Should close the replica pools but leave the primary to its own bean")
+    void testCloseReplicaPools() throws Exception {
+        // Given
+        HikariDataSource primaryPool = mock(HikariDataSource.class);
+        HikariDataSource replicaPool = mock(HikariDataSource.class);
+        ReadWriteRoutingDataSource owner = new ReadWriteRoutingDataSource(primaryPool, List.of(replicaPool), 200, 1);
+
+        // When
+        owner.close();
+
+        // Then
+        verify(replicaPool).close();
+        verify(primaryPool, never()).close();
+    }
+
+    @Test
+    @DisplayName("Should fall back to primary while replica is down and return after health check")
+    void testFallbackAndRecovery() {
+        // Given
+        replica.down = true;
+
+        // When & Then
+        assertEquals("primary", readTx.execute(s -> role()));
+        assertFalse(router.stats().replicas().get(0).healthy());
+        assertEquals(1, router.stats().fallbacks());
+
+        replica.down = false;
+        assertEquals("primary", readTx.execute(s -> role()));
+        router.checkHealth();
+        assertTrue(router.stats().replicas().get(0).healthy());
+        assertEquals("replica", readTx.execute(s -> role()));
+    }
+
+    @Test
+    @DisplayName("Should read from primary shortly after the same user's write")
+    void testReadYourWrites() throws Exception {
+        // Given
+        login(1);
+        writeTx.executeWithoutResult(s -> jdbc.update("UPDATE db_role SET name = name"));
+
+        // When & Then
+        assertEquals("primary", readTx.execute(s -> role()));
+
+        login(2);
+        assertEquals("replica", readTx.execute(s -> role()));
+
+        login(1);
+        Thread.sleep(250);
+        assertEquals("replica", readTx.execute(s -> role()));
+    }
+
+    private String role() {
+        return jdbc.queryForObject("SELECT name FROM db_role", String.class);
+    }
+
+    private static void login(int userId) {
+        AuthenticatedUser principal = new AuthenticatedUser(userId, "u" + userId + "@example.com", "User", "USER");
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(principal, null, List.of()));
+    }
+
+    private static EmbeddedDatabase database(String role) {
+        EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        JdbcTemplate jdbc = new JdbcTemplate(db);
+        jdbc.execute("CREATE TABLE db_role (name VARCHAR(20))");
+        jdbc.update("INSERT INTO db_role (name) VALUES (?)", role);
+        return db;
+    }
+
+    // Giả lập replica mất kết nối
+    private static class FlakyDataSource extends DelegatingDataSource {
+        volatile boolean down;
+
+        FlakyDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (down) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+}
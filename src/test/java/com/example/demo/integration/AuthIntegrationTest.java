@@ -57,11 +57,12 @@ class AuthIntegrationTest {
         assertTrue(passwordEncoder.matches("password123", registered.getPassword()));
 
         // When - Đăng nhập
-        String token = userAuthService.login("newuser@example.com", "password123");
+        AuthDto.TokenResponse tokens = userAuthService.login("newuser@example.com", "password123");
 
         // Then
-        assertNotNull(token);
-        assertFalse(token.isEmpty());
+        assertNotNull(tokens.token());
+        assertFalse(tokens.token().isEmpty());
+        assertNotNull(tokens.refreshToken());
     }
 
     @Test
@@ -0,0 +1,88 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Không chạy trong build mặc định: mvn test -Pbenchmark
+@Tag("benchmark")
+@DisplayName("TaskBatchWriter Benchmark")
+class TaskBatchWriterBenchmark {
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbc = new JdbcTemplate(db);
+        jdbc.execute("CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, email VARCHAR(150) NOT NULL)");
+        jdbc.execute("CREATE TABLE tasks (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(200) NOT NULL, description VARCHAR(1000), " +
+                "status VARCHAR(20) NOT NULL, deadline TIMESTAMP, user_id INT NOT NULL REFERENCES users(id), " +
+                "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP, version INT NOT NULL)");
+        jdbc.update("INSERT INTO users (email) VALUES ('batch@example.com')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    @DisplayName("Benchmark: batched insert vs one insert per request")
+    void benchmarkBatchVsSingleInsert() {
+        int rows = 5_000;
+        TaskBatchWriter writer = new TaskBatchWriter(jdbc, 500);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(db));
+
+        // Đường cũ: mỗi task một request, một transaction, một câu INSERT
+        TaskBatchWriter single = new TaskBatchWriter(jdbc, 1);
+        List<Task> one = tasks(rows);
+        long start = System.nanoTime();
+        for (Task t : one) {
+            tx.executeWithoutResult(s -> single.insertAll(List.of(t), 1));
+        }
+        long singleNanos = System.nanoTime() - start;
+
+        // Đường mới: cả lô trong một transaction, JDBC batch 500 dòng
+        List<Task> batch = tasks(rows);
+        start = System.nanoTime();
+        tx.executeWithoutResult(s -> writer.insertAll(batch, 1));
+        long batchNanos = System.nanoTime() - start;
+
+        System.out.printf("Benchmark single insert: %.0f rows/s, batch insert: %.0f rows/s%n",
+                rows * 1e9 / singleNanos, rows * 1e9 / batchNanos);
+        assertEquals(rows * 2, jdbc.queryForObject("SELECT COUNT(*) FROM tasks", Integer.class));
+    }
+
+    private static List<Task> tasks(int n) {
+        List<Task> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(Task.builder()
+                    .title("Task " + i)
+                    .description(i % 2 == 0 ? "Description " + i : null)
+                    .deadline(i % 3 == 0 ? null : LocalDateTime.now().plusDays(i))
+                    .build());
+        }
+        return list;
+    }
+}
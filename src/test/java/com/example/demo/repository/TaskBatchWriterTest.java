@@ -0,0 +1,78 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Chạy trên H2 nhúng: kiểm tra JDBC batch insert (so sánh tốc độ: TaskBatchWriterBenchmark)
+@DisplayName("TaskBatchWriter Tests")
+class TaskBatchWriterTest {
+
+    private EmbeddedDatabase db;
+    private JdbcTemplate jdbc;
+
+    @BeforeEach
+    void setUp() {
+        db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        jdbc = new JdbcTemplate(db);
+        jdbc.execute("CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, email VARCHAR(150) NOT NULL)");
+        jdbc.execute("CREATE TABLE tasks (" +
+                "id INT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(200) NOT NULL, description VARCHAR(1000), " +
+                "status VARCHAR(20) NOT NULL, deadline TIMESTAMP, user_id INT NOT NULL REFERENCES users(id), " +
+                "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP, version INT NOT NULL)");
+        jdbc.update("INSERT INTO users (email) VALUES ('batch@example.com')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        db.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should insert all tasks across chunks and assign generated ids in order")
+    void testInsertAllAssignsIds() {
+        // Given
+        TaskBatchWriter writer = new TaskBatchWriter(jdbc, 3);
+        List<Task> tasks = tasks(7);
+
+        // When
+        writer.insertAll(tasks, 1);
+
+        // Then
+        assertEquals(7, jdbc.queryForObject("SELECT COUNT(*) FROM tasks", Integer.class));
+        for (Task t : tasks) {
+            assertNotNull(t.getId());
+            assertEquals(t.getTitle(), jdbc.queryForObject("SELECT title FROM tasks WHERE id = ?", String.class, t.getId()));
+            assertNotNull(t.getCreatedAt());
+            assertEquals(0, t.getVersion());
+            assertEquals(0, jdbc.queryForObject("SELECT version FROM tasks WHERE id = ?", Integer.class, t.getId()));
+        }
+    }
+
+    private static List<Task> tasks(int n) {
+        List<Task> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            list.add(Task.builder()
+                    .title("Task " + i)
+                    .description(i % 2 == 0 ? "Description " + i : null)
+                    .deadline(i % 3 == 0 ? null : LocalDateTime.now().plusDays(i))
+                    .build());
+        }
+        return list;
+    }
+}
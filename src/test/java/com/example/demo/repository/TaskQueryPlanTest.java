@@ -0,0 +1,174 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Schema được tạo bằng chính các migration Flyway, sau đó EXPLAIN đúng câu SQL mà repository sinh ra.
+ * Test fail khi một truy vấn chuyển sang quét toàn bảng hoặc dùng index khác index đã thiết kế cho nó.
+ * Lưu ý: EXPLAIN chạy trên H2 chế độ MySQL, không phải MySQL. Optimizer của H2 khác InnoDB và không báo
+ * có filesort hay không, nên test chỉ chứng minh index thiết kế khớp với điều kiện của truy vấn;
+ * trên MySQL thật cần xem lại bằng EXPLAIN (cột key, không có "Using filesort" trong Extra).
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        // V1 (script gốc) bắt đầu bằng "USE task_management"; dấu \ của INIT được escape hai lần (chuỗi Java rồi properties)
+        "spring.datasource.url=jdbc:h2:mem:plans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                + ";INIT=CREATE SCHEMA IF NOT EXISTS task_management\\\\;SET SCHEMA task_management",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.demo.repository.TaskQueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("Task query plan Tests")
+class TaskQueryPlanTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 1, 1, 0, 0);
+    private static final Pageable TOP = PageRequest.of(0, 20);
+    private static final Pageable NEWEST = PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, "createdAt"));
+    // Sắp theo id: thứ tự mà index V7 (a, b) + id ngầm của InnoDB trả sẵn, không cần filesort
+    private static final Pageable BY_ID = PageRequest.of(0, 20, Sort.by("id"));
+    private static final Pattern INDEX_IN_PLAN = Pattern.compile("/\\* task_management\\.(\\w+)");
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // Đủ dòng để optimizer không coi bảng là rỗng (user 1..3 có sẵn từ V1)
+        jdbcTemplate.update("insert into tasks (user_id, title, status, deadline) " +
+                "select mod(r.n, 3) + 1, concat('Task ', r.n), " +
+                "case mod(r.n, 3) when 0 then 'PENDING' when 1 then 'IN_PROGRESS' else 'COMPLETED' end, " +
+                "case when mod(r.n, 4) = 0 then null else dateadd('DAY', r.n, timestamp '2025-01-01 00:00:00') end " +
+                "from (select \"X\" as n from system_range(1, 3000)) r");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    @DisplayName("Paged lists by user should filter on tasks.user_id without joining users")
+    void testUserPagesUseUserIndex() {
+        User user = userRepository.getReferenceById(2);
+
+        // Sắp theo createdAt thì index đúng là *_created (V5); H2 chọn index chỉ theo điều kiện WHERE
+        // nên không kiểm được trường hợp đó ở đây, chỉ kiểm thứ tự theo id mà index V7 phục vụ
+        assertUsesIndex(() -> taskRepository.findByUser_Id(2, BY_ID), "idx_tasks_user");
+        assertUsesIndex(() -> taskRepository.findByUser_IdAndStatus(2, Task.Status.PENDING, BY_ID), "idx_tasks_user_status");
+        assertUsesIndex(() -> taskRepository.findByUser(user, BY_ID), "idx_tasks_user");
+        assertUsesIndex(() -> taskRepository.findByUserAndStatus(user, Task.Status.PENDING, BY_ID), "idx_tasks_user_status");
+    }
+
+    @Test
+    @DisplayName("Paged lists by status should use a status index")
+    void testStatusPagesUseStatusIndex() {
+        assertUsesIndex(() -> taskRepository.findByStatus(Task.Status.PENDING, BY_ID), "idx_tasks_status");
+        assertUsesIndex(() -> taskRepository.findSliceByStatus(Task.Status.PENDING, TOP), "idx_tasks_status");
+    }
+
+    @Test
+    @DisplayName("Slices should use the index matching their filter or sort")
+    void testSlicesUseIndex() {
+        assertUsesIndex(() -> taskRepository.findAllSliced(NEWEST), "idx_tasks_created");
+        assertUsesIndex(() -> taskRepository.findSliceByUserId(2, TOP), "idx_tasks_user");
+        assertUsesIndex(() -> taskRepository.findSliceByUserIdAndStatus(2, Task.Status.PENDING, TOP), "idx_tasks_user_status");
+    }
+
+    @Test
+    @DisplayName("Keyset seeks should read along an index")
+    void testSeeksUseIndex() {
+        assertUsesIndex(() -> taskRepository.seekAllById(0, TOP), "primary_key");
+        assertUsesIndex(() -> taskRepository.seekAllByCreatedAt(NOW, 10, TOP), "idx_tasks_created");
+        assertUsesIndex(() -> taskRepository.seekAllByDeadline(NOW, 10, TOP), "idx_tasks_deadline");
+        assertUsesIndex(() -> taskRepository.seekAllWithoutDeadline(0, TOP), "idx_tasks_deadline");
+        assertUsesIndex(() -> taskRepository.seekAllByStatusById(Task.Status.PENDING, 0, TOP), "idx_tasks_status");
+        assertUsesIndex(() -> taskRepository.seekAllByStatusByCreatedAt(Task.Status.PENDING, NOW, 10, TOP), "idx_tasks_status_created");
+        assertUsesIndex(() -> taskRepository.seekByUserAndStatusById(2, Task.Status.PENDING, 0, TOP), "idx_tasks_user_status");
+        assertUsesIndex(() -> taskRepository.seekByUserAndStatusByDeadline(2, Task.Status.PENDING, NOW, 10, TOP), "idx_tasks_user_status_deadline");
+        assertUsesIndex(() -> taskRepository.seekByUserWithoutDeadline(2, 0, TOP), "idx_tasks_user_deadline");
+    }
+
+    @Test
+    @DisplayName("Deadline window loads should range-scan the deadline index")
+    void testDeadlineWindowUsesDeadlineIndex() {
+        assertUsesIndex(() -> taskRepository.findDeadlinesBetween(NOW, NOW.plusHours(3)), "idx_tasks_deadline");
+    }
+
+    @Test
+    @DisplayName("Counter queries should be answered from the (user_id, status) index")
+    void testCountersUseCoveringIndex() {
+        assertUsesIndex(() -> taskRepository.countGroupByStatusForUser(2), "idx_tasks_user_status");
+        assertUsesIndex(() -> taskRepository.countGroupByUserAndStatus(), "idx_tasks_user_status");
+        assertUsesIndex(() -> taskRepository.countOverdueForUser(2, NOW), "idx_tasks_user_deadline");
+    }
+
+    private void assertUsesIndex(Runnable query, String expectedIndex) {
+        SqlCapture.STATEMENTS.clear();
+        query.run();
+        assertFalse(SqlCapture.STATEMENTS.isEmpty(), "Repository không sinh câu SQL nào");
+
+        // Câu đầu tiên là truy vấn chính (Page còn có thêm câu count)
+        String sql = SqlCapture.STATEMENTS.get(0);
+        String plan = explain(sql);
+
+        assertFalse(plan.contains("tableScan"), () -> "Quét toàn bảng:\n" + plan);
+        assertFalse(plan.contains("\"users\""), () -> "Join thừa sang users:\n" + plan);
+        Matcher m = INDEX_IN_PLAN.matcher(plan);
+        assertTrue(m.find(), () -> "Không dùng index nào:\n" + plan);
+        // Index H2 tự đặt tên (khóa chính, khóa ngoại) có hậu tố "_INDEX_n" / "_n"
+        String index = m.group(1).toLowerCase().replaceAll("(_index)?_\\d+$", "");
+        // H2 luôn tạo index riêng (user_id) cho khóa ngoại, trùng cột với idx_tasks_user;
+        // MySQL dùng luôn idx_tasks_user cho khóa ngoại nên hai tên là cùng một index
+        String used = index.equals("fk_tasks_user") ? "idx_tasks_user" : index;
+        assertEquals(expectedIndex, used, () -> "Dùng " + used + " thay vì " + expectedIndex + ":\n" + plan);
+    }
+
+    private String explain(String sql) {
+        // Optimizer của H2 chọn index theo điều kiện, không theo giá trị tham số nên bind null là đủ
+        int params = (int) sql.chars().filter(c -> c == '?').count();
+        return jdbcTemplate.query("explain " + sql, ps -> {
+            for (int i = 1; i <= params; i++) {
+                ps.setObject(i, null);
+            }
+        }, rs -> {
+            rs.next();
+            return rs.getString(1);
+        });
+    }
+
+    public static class SqlCapture implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Không chạy trong build mặc định: mvn test -Pbenchmark
+// H2 nhúng thay cho MySQL; 200k dòng thay cho 1M để chạy được trong bộ nhớ của JVM test
+@Tag("benchmark")
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Task read path Benchmark")
+class TaskReadPathBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int USERS = 100;
+    private static final int PAGE = 50;
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 5_000;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readTx;
+
+    @BeforeEach
+    void setUp() {
+        readTx = new TransactionTemplate(transactionManager);
+        readTx.setReadOnly(true);
+        if (taskRepository.count() == 0) {
+            jdbc.update("INSERT INTO users (id, email, password, full_name, role, token_version, disabled, created_at) " +
+                    "SELECT X, CONCAT('user', X, '@example.com'), 'encoded', CONCAT('User ', X), 'USER', 0, FALSE, " +
+                    "CURRENT_TIMESTAMP FROM system_range(1, ?)", USERS);
+            jdbc.update("INSERT INTO tasks (user_id, title, description, status, deadline, created_at, updated_at, version) " +
+                    "SELECT MOD(X, ?) + 1, CONCAT('Task ', X), CONCAT('Mô tả cho task ', X), 'PENDING', " +
+                    "DATEADD('DAY', MOD(X, 30), CURRENT_TIMESTAMP), CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 0 " +
+                    "FROM system_range(1, ?)", USERS, ROWS);
+        }
+    }
+
+    @Test
+    @DisplayName("Benchmark: entity + mapping vs TaskResponse projection (GET /api/tasks/{id})")
+    void benchmarkGetById() {
+        Result entity = measure(() -> taskRepository.findById(randomId()).map(TaskReadPathBenchmark::map).orElseThrow());
+        Result projection = measure(() -> taskRepository.findResponseById(randomId()).orElseThrow());
+        print("get by id", entity, projection);
+    }
+
+    @Test
+    @DisplayName("Benchmark: entity + mapping vs TaskResponse projection (page of 50 tasks)")
+    void benchmarkPage() {
+        Result entity = measure(() -> taskRepository.findAllById(randomPage()).stream()
+                .map(TaskReadPathBenchmark::map).toList());
+        Result projection = measure(() -> taskRepository.findResponsesByIds(randomPage()));
+        print("page of " + PAGE, entity, projection);
+    }
+
+    // Mỗi request là một transaction chỉ đọc như TaskService; đo byte cấp phát của thread và độ trễ từng request
+    private Result measure(Supplier<Object> request) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        for (int i = 0; i < WARMUP; i++) {
+            assertNotNull(readTx.execute(s -> request.get()));
+        }
+        long[] nanos = new long[REQUESTS];
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < REQUESTS; i++) {
+            long start = System.nanoTime();
+            readTx.execute(s -> request.get());
+            nanos[i] = System.nanoTime() - start;
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        Arrays.sort(nanos);
+        return new Result(allocated / REQUESTS, nanos[REQUESTS / 2], nanos[(int) (REQUESTS * 0.99) - 1]);
+    }
+
+    // Như TaskService.mapToResponse trước khi dùng projection
+    private static TaskDto.TaskResponse map(Task t) {
+        return new TaskDto.TaskResponse(t.getId(), t.getUser().getId(), t.getTitle(), t.getDescription(),
+                t.getStatus(), t.getDeadline(), t.getCreatedAt(), t.getUpdatedAt(), t.getVersion());
+    }
+
+    private static int randomId() {
+        return ThreadLocalRandom.current().nextInt(1, ROWS + 1);
+    }
+
+    private static List<Integer> randomPage() {
+        int first = ThreadLocalRandom.current().nextInt(1, ROWS - PAGE + 2);
+        return IntStream.range(first, first + PAGE).boxed().toList();
+    }
+
+    private static void print(String path, Result entity, Result projection) {
+        System.out.printf("Benchmark %s: entity %d B/request, p50=%d us, p99=%d us; " +
+                        "projection %d B/request, p50=%d us, p99=%d us%n", path,
+                entity.bytesPerRequest(), entity.p50Nanos() / 1_000, entity.p99Nanos() / 1_000,
+                projection.bytesPerRequest(), projection.p50Nanos() / 1_000, projection.p99Nanos() / 1_000);
+    }
+
+    private record Result(long bytesPerRequest, long p50Nanos, long p99Nanos) {}
+}
@@ -0,0 +1,126 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Chạy trên H2 nhúng (DataJpaTest tự thay DataSource), mỗi thread dùng transaction riêng
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Task optimistic concurrency Tests")
+class TaskVersionConcurrencyTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 50;
+
+    @Autowired
+    private TaskRepository taskRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("Concurrent conditional updates on one task should not lose any update")
+    void testNoLostUpdates() throws Exception {
+        // Given: description giữ một bộ đếm, mỗi lần sửa thành công tăng thêm 1
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        User user = userRepository.save(User.builder()
+                .email("concurrency@example.com")
+                .password("encoded")
+                .fullName("Concurrency User")
+                .createdAt(LocalDateTime.now())
+                .build());
+        Task task = taskRepository.save(Task.builder()
+                .title("Counter")
+                .description("0")
+                .user(user)
+                .build());
+        Integer taskId = task.getId();
+        Integer userId = user.getId();
+
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+
+        // When: đọc -> UPDATE ... WHERE version = ? -> nếu 0 dòng thì đọc lại và thử lại (như client nhận 412)
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < INCREMENTS_PER_THREAD; i++) {
+                    while (true) {
+                        TaskDto.TaskResponse current = taskRepository.findResponseById(taskId).orElseThrow();
+                        String next = String.valueOf(Integer.parseInt(current.description()) + 1);
+                        Integer updated = tx.execute(s -> taskRepository.updateIfVersion(taskId, userId,
+                                current.version(), current.title(), next, null, null, LocalDateTime.now()));
+                        if (updated != null && updated == 1) {
+                            break;
+                        }
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        // Then
+        int expected = THREADS * INCREMENTS_PER_THREAD;
+        TaskDto.TaskResponse result = taskRepository.findResponseById(taskId).orElseThrow();
+        assertEquals(String.valueOf(expected), result.description());
+        assertEquals(expected, result.version());
+        assertEquals("PENDING", result.status());
+    }
+
+    @Test
+    @DisplayName("Conditional update should not touch a task owned by another user")
+    void testConditionalUpdateEnforcesOwner() {
+        // Given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        User owner = userRepository.save(User.builder()
+                .email("owner@example.com")
+                .password("encoded")
+                .fullName("Owner")
+                .createdAt(LocalDateTime.now())
+                .build());
+        Task task = taskRepository.save(Task.builder().title("Owned").user(owner).build());
+
+        // When
+        Integer updated = tx.execute(s -> taskRepository.updateIfVersion(task.getId(), owner.getId() + 1,
+                task.getVersion(), "Hijacked", null, null, null, LocalDateTime.now()));
+
+        // Then
+        assertEquals(0, updated);
+        assertEquals("Owned", taskRepository.findResponseById(task.getId()).orElseThrow().title());
+    }
+}
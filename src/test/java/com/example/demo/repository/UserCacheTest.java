@@ -0,0 +1,118 @@
+package com.example.demo.repository;
+
+import com.example.demo.entity.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// H2 nhúng, không bọc transaction để mỗi lần gọi repository là một session mới (chỉ cache cấp 2 còn giữ dữ liệu)
+@DataJpaTest(properties = {
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "spring.flyway.enabled=false",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.region_prefix=user-cache-test"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("User second-level cache Tests")
+class UserCacheTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Autowired
+    private RevokedTokenRepository revokedTokenRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        userRepository.deleteAll();
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should serve findByEmail and findById from cache without SQL")
+    void testLookupsHitCache() {
+        // Given
+        User user = userRepository.save(newUser("cached@example.com"));
+        userRepository.findByEmail("cached@example.com");
+        statistics.clear();
+
+        // When
+        User byEmail = userRepository.findByEmail("cached@example.com").orElseThrow();
+        User byId = userRepository.findById(user.getId()).orElseThrow();
+
+        // Then
+        assertEquals(user.getId(), byEmail.getId());
+        assertEquals("cached@example.com", byId.getEmail());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertTrue(statistics.getNaturalIdCacheHitCount() >= 1);
+        assertTrue(statistics.getSecondLevelCacheHitCount() >= 2);
+    }
+
+    @Test
+    @DisplayName("Should keep cached users when expired tokens are purged with native deletes")
+    void testTokenCleanupKeepsUserCache() {
+        // Given
+        userRepository.save(newUser("cleanup@example.com"));
+        userRepository.findByEmail("cleanup@example.com");
+
+        // When
+        refreshTokenRepository.deleteExpiredBatch(LocalDateTime.now(), 100);
+        revokedTokenRepository.deleteExpiredBatch(LocalDateTime.now(), 100);
+        statistics.clear();
+        userRepository.findByEmail("cleanup@example.com").orElseThrow();
+
+        // Then
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    @DisplayName("Should not return stale user after email update or delete")
+    void testInvalidationOnUpdateAndDelete() {
+        // Given
+        User user = userRepository.save(newUser("old@example.com"));
+        userRepository.findByEmail("old@example.com").orElseThrow();
+
+        // When: đổi email
+        user.setEmail("new@example.com");
+        userRepository.save(user);
+
+        // Then
+        assertTrue(userRepository.findByEmail("old@example.com").isEmpty());
+        assertEquals(user.getId(), userRepository.findByEmail("new@example.com").orElseThrow().getId());
+
+        // When: xóa
+        userRepository.deleteById(user.getId());
+
+        // Then
+        assertTrue(userRepository.findByEmail("new@example.com").isEmpty());
+        assertTrue(userRepository.findById(user.getId()).isEmpty());
+    }
+
+    private static User newUser(String email) {
+        return User.builder()
+                .email(email)
+                .password("encoded")
+                .fullName("Cache User")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.repository;
+
+import com.example.demo.dto.UserDto;
+import com.example.demo.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Giống TaskQueryPlanTest: schema từ migration Flyway trên H2 (chế độ MySQL), EXPLAIN câu SQL mà
+ * UserRepository sinh ra cho danh sách user theo keyset, và kiểm tra câu SQL không đọc cột password.
+ */
+@DataJpaTest(properties = {
+        "spring.flyway.enabled=true",
+        // V1 (script gốc) bắt đầu bằng "USE task_management"; dấu \ của INIT được escape hai lần (chuỗi Java rồi properties)
+        "spring.datasource.url=jdbc:h2:mem:userplans;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                + ";INIT=CREATE SCHEMA IF NOT EXISTS task_management\\\\;SET SCHEMA task_management",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.demo.repository.TaskQueryPlanTest$SqlCapture"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@DisplayName("User query plan Tests")
+class UserQueryPlanTest {
+
+    private static final Pageable TOP = PageRequest.of(0, 20);
+    private static final Pattern INDEX_IN_PLAN = Pattern.compile("/\\* task_management\\.(\\w+)");
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        // 3000 user, họ tên lặp lại (30 user cùng tên) để seek theo (full_name, id) phải dùng cả id.
+        // "analyze" commit luôn transaction của test nên chỉ nạp lần đầu
+        if (jdbcTemplate.queryForObject("select count(*) from users", Integer.class) > 3) {
+            return;
+        }
+        jdbcTemplate.update("insert into users (email, password, full_name, role) " +
+                "select concat('u', r.n, '@example.com'), 'secret-hash', concat('Name ', mod(r.n, 100)), 'USER' " +
+                "from (select \"X\" as n from system_range(1, 3000)) r");
+        jdbcTemplate.execute("analyze");
+    }
+
+    @Test
+    @DisplayName("Keyset seeks should read along an index and never select the password")
+    void testSeeksUseIndexWithoutPassword() {
+        assertUsesIndex(() -> userRepository.seekById(0, TOP), "primary_key");
+        assertUsesIndex(() -> userRepository.seekByEmailPrefix("u12%", "", TOP), "constraint");
+        assertUsesIndex(() -> userRepository.seekByNamePrefix("Name 1%", "", 0, TOP), "idx_users_full_name");
+    }
+
+    @Test
+    @DisplayName("Walking all pages of a name prefix should return each match exactly once, in order")
+    void testNamePrefixPagesAreComplete() {
+        // Given: "Name 1%" khớp Name 1, Name 10..19 -> 11 tên x 30 user
+        UserService service = new UserService(userRepository, null, null, null, null, null);
+        List<UserDto.UserResponse> all = new ArrayList<>();
+
+        // When
+        String after = null;
+        do {
+            UserDto.UserCursorPage page = service.findByCursor(null, "Name 1", after, 47);
+            all.addAll(page.items());
+            after = page.nextCursor();
+        } while (after != null);
+
+        // Then
+        assertEquals(330, all.size());
+        assertEquals(330, all.stream().map(UserDto.UserResponse::id).distinct().count());
+        for (int i = 1; i < all.size(); i++) {
+            UserDto.UserResponse prev = all.get(i - 1);
+            UserDto.UserResponse cur = all.get(i);
+            int cmp = prev.fullName().compareTo(cur.fullName());
+            assertTrue(cmp < 0 || (cmp == 0 && prev.id() < cur.id()), "Sai thứ tự tại " + i);
+        }
+    }
+
+    @Test
+    @DisplayName("Email prefix should treat LIKE wildcards literally")
+    void testEmailPrefixEscapesWildcards() {
+        UserService service = new UserService(userRepository, null, null, null, null, null);
+
+        UserDto.UserCursorPage page = service.findByCursor("u29", null, null, 100);
+        UserDto.UserCursorPage wildcard = service.findByCursor("u_9", null, null, 100);
+
+        // u29, u290..u299, u2900..u2999 = 111 user; trang đầu lấy 100
+        assertEquals(100, page.items().size());
+        assertTrue(page.hasNext());
+        assertTrue(page.items().stream().allMatch(u -> u.email().startsWith("u29")));
+        assertEquals(11, service.findByCursor("u29", null, page.nextCursor(), 100).items().size());
+        assertTrue(wildcard.items().isEmpty());
+    }
+
+    private void assertUsesIndex(Runnable query, String index) {
+        TaskQueryPlanTest.SqlCapture.STATEMENTS.clear();
+        query.run();
+        assertFalse(TaskQueryPlanTest.SqlCapture.STATEMENTS.isEmpty(), "Repository không sinh câu SQL nào");
+
+        String sql = TaskQueryPlanTest.SqlCapture.STATEMENTS.get(0);
+        assertFalse(sql.toLowerCase().contains("password"), () -> "Đọc cả cột password:\n" + sql);
+        String plan = explain(sql);
+        assertFalse(plan.contains("tableScan"), () -> "Quét toàn bảng:\n" + plan);
+        Matcher m = INDEX_IN_PLAN.matcher(plan);
+        assertTrue(m.find(), () -> "Không dùng index nào:\n" + plan);
+        // Index H2 tự đặt tên (khóa chính, unique) có hậu tố dạng "_6A", "_INDEX_6", "_6A_INDEX_8"
+        String used = m.group(1).toLowerCase().replaceAll("(_[0-9a-f]+)?(_index)?_[0-9a-f]+$", "");
+        assertEquals(index, used, () -> "Dùng " + m.group(1) + ":\n" + plan);
+    }
+
+    private String explain(String sql) {
+        int params = (int) sql.chars().filter(c -> c == '?').count();
+        return jdbcTemplate.query("explain " + sql, ps -> {
+            for (int i = 1; i <= params; i++) {
+                ps.setObject(i, null);
+            }
+        }, rs -> {
+            rs.next();
+            return rs.getString(1);
+        });
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BoundedTtlCache Tests")
+public class BoundedTtlCacheTest {
+
+    @Test
+    @DisplayName("Should drop expired entries before live ones when full")
+    void testEvictsExpiredFirst() {
+        // Given - 5 entry hết hạn lúc 100, 5 entry còn hạn tới 10_000
+        BoundedTtlCache<Integer, String> cache = new BoundedTtlCache<>(10);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "v" + i, i < 5 ? 100 : 10_000, 0);
+        }
+
+        // When
+        cache.put(10, "v10", 10_000, 500);
+
+        // Then
+        assertEquals(6, cache.stats().size());
+        assertEquals(5, cache.stats().evictions());
+        for (int i = 5; i <= 10; i++) {
+            assertEquals("v" + i, cache.get(i, 500));
+        }
+    }
+
+    @Test
+    @DisplayName("Should count an expired read as a miss and an eviction")
+    void testExpiredGet() {
+        // Given
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(10);
+        cache.put("a", "1", 100, 0);
+
+        // When & Then
+        assertEquals("1", cache.get("a", 99));
+        assertNull(cache.get("a", 100));
+        BoundedTtlCache.Stats stats = cache.stats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(1, stats.evictions());
+        assertEquals(0, stats.size());
+    }
+
+    @Test
+    @DisplayName("Should cache nothing when max size is 0")
+    void testDisabled() {
+        // Given
+        BoundedTtlCache<String, String> cache = new BoundedTtlCache<>(0);
+
+        // When
+        cache.put("a", "1", Long.MAX_VALUE, 0);
+
+        // Then
+        assertNull(cache.get("a", 0));
+        assertEquals(0, cache.stats().size());
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.demo.security;
+
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("JwtAuthFilter Tests")
+public class JwtAuthFilterTest {
+
+    private JwtService jwtService;
+    private UserRepository userRepository;
+    private TokenVersionRegistry tokenVersions;
+    private JwtAuthFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = mock(JwtService.class);
+        userRepository = mock(UserRepository.class);
+        tokenVersions = new TokenVersionRegistry(userRepository);
+        filter = new JwtAuthFilter(jwtService, userRepository, new PrincipalCache(300, 100), tokenVersions,
+                mock(TokenRevocationStore.class));
+        User user = User.builder().id(5).email("legacy@example.com").fullName("Legacy User").role("USER").build();
+        when(userRepository.findByEmail("legacy@example.com")).thenReturn(Optional.of(user));
+    }
+
+    @AfterEach
+    void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    @DisplayName("Should authenticate a token without role claim through the user lookup")
+    void testRoleLessTokenAuthenticated() throws Exception {
+        // Given - token cũ: không có role, không có ver
+        when(jwtService.verify("legacy")).thenReturn(Optional.of(legacyClaims()));
+
+        // When
+        Authentication auth = filter("legacy");
+
+        // Then
+        assertNotNull(auth);
+        assertEquals(5, ((AuthenticatedUser) auth.getPrincipal()).id());
+    }
+
+    @Test
+    @DisplayName("Should reject a token without role claim once the user's token version moved on")
+    void testRoleLessTokenRejectedAfterVersionBump() throws Exception {
+        // Given - user đã đăng xuất mọi nơi (version 1), token cũ mang version 0
+        when(jwtService.verify("legacy")).thenReturn(Optional.of(legacyClaims()));
+        tokenVersions.update(5, 1);
+
+        // When
+        Authentication auth = filter("legacy");
+
+        // Then
+        assertNull(auth);
+    }
+
+    private Authentication filter(String token) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest();
+        req.addHeader("Authorization", "Bearer " + token);
+        filter.doFilter(req, new MockHttpServletResponse(), new MockFilterChain());
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    private static JwtClaims legacyClaims() {
+        return new JwtClaims(0, "legacy@example.com", null, null, null, 0, Instant.now().plusSeconds(60));
+    }
+}
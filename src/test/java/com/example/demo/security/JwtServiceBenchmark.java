@@ -0,0 +1,57 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Không chạy trong build mặc định: mvn test -Pbenchmark
+@Tag("benchmark")
+@DisplayName("JwtService Benchmark")
+class JwtServiceBenchmark {
+
+    @Test
+    @DisplayName("Benchmark: per-request auth cost before/after cache")
+    void benchmarkVerifyCost() {
+        // Given
+        JwtService jwtService = newService(10_000);
+        String token = jwtService.generateToken("bench@example.com", 1);
+        int iterations = 20_000;
+
+        // Trước: mỗi request gọi valid() + email(), mỗi lần parse + verify HMAC
+        JwtService uncached = newService(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            uncached.valid(token);
+            uncached.email(token);
+        }
+        long beforeNs = (System.nanoTime() - start) / iterations;
+
+        // Sau: một lần verify(), token lặp lại lấy từ cache
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            jwtService.verify(token);
+        }
+        long afterNs = (System.nanoTime() - start) / iterations;
+
+        System.out.printf("JWT auth cost per request: before=%d ns, after=%d ns%n", beforeNs, afterNs);
+        assertEquals(iterations - 1, jwtService.cacheStats().hits());
+    }
+
+    private static JwtService newService(int cacheMaxSize) {
+        JwtService service = new JwtService();
+        try {
+            java.lang.reflect.Field secretField = JwtService.class.getDeclaredField("secret");
+            secretField.setAccessible(true);
+            secretField.set(service, "test-secret-key-for-testing-purposes-32-chars");
+            java.lang.reflect.Field sizeField = JwtService.class.getDeclaredField("cacheMaxSize");
+            sizeField.setAccessible(true);
+            sizeField.set(service, cacheMaxSize);
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+        service.init();
+        return service;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.demo.security;
 
+import com.example.demo.entity.User;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -96,4 +97,89 @@ public class JwtServiceTest {
         // Then
         assertFalse(isValid);
     }
+
+    @Test
+    @DisplayName("Should verify once and return typed claims")
+    void testVerifyReturnsClaims() {
+        // Given
+        String token = jwtService.generateToken("test@example.com", 7);
+
+        // When
+        JwtClaims claims = jwtService.verify(token).orElseThrow();
+
+        // Then
+        assertEquals("test@example.com", claims.subject());
+        assertEquals(7, claims.uid());
+        assertTrue(claims.expiresAt().toEpochMilli() > System.currentTimeMillis());
+    }
+
+    @Test
+    @DisplayName("Should embed uid, role and version in user token")
+    void testSelfContainedToken() {
+        // Given
+        User user = User.builder()
+                .id(5)
+                .email("admin@example.com")
+                .fullName("Admin User")
+                .role("ADMIN")
+                .tokenVersion(3)
+                .build();
+
+        // When
+        JwtClaims claims = jwtService.verify(jwtService.generateToken(user)).orElseThrow();
+
+        // Then
+        assertTrue(claims.isSelfContained());
+        assertEquals(5, claims.uid());
+        assertEquals("ADMIN", claims.role());
+        assertEquals("Admin User", claims.name());
+        assertEquals(3, claims.version());
+    }
+
+    @Test
+    @DisplayName("Should serve repeated token from cache")
+    void testVerifyUsesCache() {
+        // Given
+        String token = jwtService.generateToken("test@example.com", 1);
+
+        // When
+        jwtService.verify(token);
+        jwtService.verify(token);
+        jwtService.verify(token);
+
+        // Then
+        BoundedTtlCache.Stats stats = jwtService.cacheStats();
+        assertEquals(1, stats.misses());
+        assertEquals(2, stats.hits());
+        assertEquals(1, stats.size());
+    }
+
+    @Test
+    @DisplayName("Should not cache invalid token")
+    void testVerifyInvalidToken() {
+        // When
+        boolean present = jwtService.verify("invalid.token.here").isPresent();
+
+        // Then
+        assertFalse(present);
+        assertEquals(0, jwtService.cacheStats().size());
+    }
+
+    @Test
+    @DisplayName("Should evict entries when cache is full")
+    void testCacheEviction() {
+        // Given
+        VerifiedTokenCache cache = new VerifiedTokenCache(10);
+        long now = System.currentTimeMillis();
+        JwtClaims claims = new JwtClaims(1L, "a@example.com", 1, "A", "USER", 0, java.time.Instant.ofEpochMilli(now + 60_000));
+
+        // When
+        for (int i = 0; i < 25; i++) {
+            cache.put("token-" + i, claims, now);
+        }
+
+        // Then
+        assertTrue(cache.stats().size() <= 10);
+        assertTrue(cache.stats().evictions() > 0);
+    }
 }
@@ -0,0 +1,92 @@
+package com.example.demo.security;
+
+import com.example.demo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PasswordHasher Tests")
+public class PasswordHasherTest {
+
+    private PasswordHasher hasher;
+
+    @AfterEach
+    void tearDown() {
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should encode and match on the hashing pool")
+    void testEncodeAndMatch() {
+        // Given
+        hasher = new PasswordHasher(new BCryptPasswordEncoder(4), 1, 4, 5000, 2);
+
+        // When
+        String hash = hasher.encode("password123");
+
+        // Then
+        assertTrue(hasher.matches("password123", hash));
+        assertFalse(hasher.matches("wrong", hash));
+        assertEquals(3, hasher.stats().completed());
+    }
+
+    @Test
+    @DisplayName("Should fast-fail with 503 when the queue is full")
+    void testRejectWhenQueueFull() throws Exception {
+        // Given - 1 thread, hàng đợi 1 chỗ, encoder bị chặn cho tới khi mở latch
+        CountDownLatch release = new CountDownLatch(1);
+        BCryptPasswordEncoder slow = new BCryptPasswordEncoder(4) {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return super.encode(rawPassword);
+            }
+        };
+        hasher = new PasswordHasher(slow, 1, 1, 5000, 3);
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        AtomicInteger unavailable = new AtomicInteger();
+
+        // When
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(callers.submit(() -> {
+                try {
+                    hasher.encode("password123");
+                } catch (ServiceUnavailableException e) {
+                    assertEquals(3, e.getRetryAfterSeconds());
+                    unavailable.incrementAndGet();
+                }
+            }));
+        }
+        while (unavailable.get() < 2) {
+            Thread.sleep(10);
+        }
+        release.countDown();
+        for (Future<?> f : futures) {
+            f.get(5, TimeUnit.SECONDS);
+        }
+        callers.shutdown();
+
+        // Then - 1 đang chạy + 1 trong hàng đợi, 2 request còn lại bị từ chối
+        assertEquals(2, unavailable.get());
+        assertEquals(2, hasher.stats().rejected());
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PrincipalCache Tests")
+public class PrincipalCacheTest {
+
+    private final AuthenticatedUser user = new AuthenticatedUser(1, "test@example.com", "Test User", "USER");
+
+    @Test
+    @DisplayName("Should return cached principal until evicted")
+    void testPutGetEvict() {
+        // Given
+        PrincipalCache cache = new PrincipalCache(300, 100);
+        cache.put(user);
+
+        // When & Then
+        assertEquals(user, cache.get("test@example.com"));
+        cache.evict("test@example.com");
+        assertNull(cache.get("test@example.com"));
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after TTL")
+    void testTtl() {
+        // Given - TTL = 0 giây
+        PrincipalCache cache = new PrincipalCache(0, 100);
+        cache.put(user);
+
+        // When & Then
+        assertNull(cache.get("test@example.com"));
+    }
+
+    @Test
+    @DisplayName("Should stay within max size")
+    void testMaxSize() {
+        // Given
+        PrincipalCache cache = new PrincipalCache(300, 10);
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            cache.put(new AuthenticatedUser(i, "user" + i + "@example.com", "User " + i, "USER"));
+        }
+
+        // Then
+        assertTrue(cache.stats().size() <= 10);
+    }
+}
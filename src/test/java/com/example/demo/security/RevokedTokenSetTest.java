@@ -0,0 +1,79 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RevokedTokenSet Tests")
+public class RevokedTokenSetTest {
+
+    private final long future = System.currentTimeMillis() + 60_000;
+
+    @Test
+    @DisplayName("Should contain revoked ids only")
+    void testAddAndContains() {
+        // Given
+        RevokedTokenSet set = new RevokedTokenSet();
+
+        // When
+        set.add(42L, future);
+        set.add(-7L, future);
+
+        // Then
+        assertTrue(set.contains(42L));
+        assertTrue(set.contains(-7L));
+        assertFalse(set.contains(43L));
+        assertFalse(set.contains(0L));
+        assertEquals(2, set.size());
+    }
+
+    @Test
+    @DisplayName("Should handle bulk load without false negatives")
+    void testBulkLoad() {
+        // Given
+        Random random = new Random(1);
+        long[] ids = new long[10_000];
+        long[] exps = new long[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = random.nextLong() | 1;
+            exps[i] = future;
+        }
+        RevokedTokenSet set = new RevokedTokenSet();
+
+        // When
+        set.addAll(ids, exps);
+
+        // Then
+        for (long id : ids) {
+            assertTrue(set.contains(id));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (set.contains(random.nextLong())) {
+                falsePositives++;
+            }
+        }
+        assertEquals(0, falsePositives);
+    }
+
+    @Test
+    @DisplayName("Should drop expired entries")
+    void testPurgeExpired() throws InterruptedException {
+        // Given
+        RevokedTokenSet set = new RevokedTokenSet();
+        set.add(2L, future);
+        set.add(1L, System.currentTimeMillis() + 20);
+        Thread.sleep(50);
+
+        // When
+        int purged = set.purgeExpired();
+
+        // Then
+        assertEquals(1, purged);
+        assertFalse(set.contains(1L));
+        assertTrue(set.contains(2L));
+    }
+}
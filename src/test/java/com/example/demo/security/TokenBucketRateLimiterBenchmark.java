@@ -0,0 +1,64 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Không chạy trong build mặc định: mvn test -Pbenchmark
+@Tag("benchmark")
+@DisplayName("TokenBucketRateLimiter Benchmark")
+class TokenBucketRateLimiterBenchmark {
+
+    @Test
+    @DisplayName("Benchmark: contention at high thread count never over-admits")
+    void benchmarkContention() throws InterruptedException {
+        // Given - 64 thread cùng đánh vào 1 key nóng và 1024 key khác nhau
+        int threads = 64;
+        int opsPerThread = 50_000;
+        int capacity = 1_000;
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(capacity, 1_000);
+        LongAdder hotAllowed = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        if (limiter.tryAcquire("hot", System.nanoTime()).allowed()) {
+                            hotAllowed.increment();
+                        }
+                        limiter.tryAcquire("k" + ((id * 31 + i) & 1023), System.nanoTime());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        // When
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long elapsedNanos = System.nanoTime() - begin;
+
+        // Then - số request được nhận trên key nóng không vượt quá burst + lượng nạp lại trong thời gian chạy
+        long maxAllowed = capacity + (elapsedNanos / 1_000_000) + 1;
+        long totalOps = 2L * threads * opsPerThread;
+        System.out.printf("Rate limiter: %d threads, %.1f M ops/s, hot key allowed=%d (max %d)%n",
+                threads, totalOps * 1_000.0 / elapsedNanos, hotAllowed.sum(), maxAllowed);
+        assertTrue(hotAllowed.sum() <= maxAllowed);
+        assertTrue(hotAllowed.sum() >= capacity);
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.demo.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TokenBucketRateLimiter Tests")
+public class TokenBucketRateLimiterTest {
+
+    @Test
+    @DisplayName("Should allow burst up to capacity then reject")
+    void testBurst() {
+        // Given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(5, 1);
+        long now = System.nanoTime();
+
+        // When & Then
+        for (int i = 0; i < 5; i++) {
+            TokenBucketRateLimiter.Decision d = limiter.tryAcquire("u:1", now);
+            assertTrue(d.allowed());
+            assertEquals(4 - i, d.remaining());
+        }
+        TokenBucketRateLimiter.Decision rejected = limiter.tryAcquire("u:1", now);
+        assertFalse(rejected.allowed());
+        assertEquals(1, rejected.retryAfterSeconds());
+        // Key khác có bucket riêng
+        assertTrue(limiter.tryAcquire("u:2", now).allowed());
+    }
+
+    @Test
+    @DisplayName("Should refill over time")
+    void testRefill() {
+        // Given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(1, 10);
+        long now = System.nanoTime();
+        assertTrue(limiter.tryAcquire("ip:1", now).allowed());
+        assertFalse(limiter.tryAcquire("ip:1", now).allowed());
+
+        // When - sau 100ms nạp lại 1 token
+        boolean allowed = limiter.tryAcquire("ip:1", now + TimeUnit.MILLISECONDS.toNanos(100)).allowed();
+
+        // Then
+        assertTrue(allowed);
+    }
+
+    @Test
+    @DisplayName("Should evict idle buckets")
+    void testEvictIdle() {
+        // Given
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 10);
+        long now = System.nanoTime();
+        limiter.tryAcquire("a", now);
+        limiter.tryAcquire("b", now);
+
+        // When
+        int evicted = limiter.evictIdle(now + TimeUnit.SECONDS.toNanos(1));
+
+        // Then
+        assertEquals(2, evicted);
+        assertEquals(0, limiter.stats().buckets());
+    }
+
+    @Test
+    @DisplayName("Should never over-admit a hot key under contention")
+    void testContentionNeverOverAdmits() throws InterruptedException {
+        // Given - 16 thread cùng đánh vào 1 key nóng và 1024 key khác nhau (đo tốc độ: TokenBucketRateLimiterBenchmark)
+        int threads = 16;
+        int opsPerThread = 5_000;
+        int capacity = 1_000;
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(capacity, 1_000);
+        LongAdder hotAllowed = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        if (limiter.tryAcquire("hot", System.nanoTime()).allowed()) {
+                            hotAllowed.increment();
+                        }
+                        limiter.tryAcquire("k" + ((id * 31 + i) & 1023), System.nanoTime());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+            worker.start();
+        }
+
+        // When
+        long begin = System.nanoTime();
+        start.countDown();
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        long elapsedNanos = System.nanoTime() - begin;
+
+        // Then - số request được nhận trên key nóng không vượt quá burst + lượng nạp lại trong thời gian chạy
+        long maxAllowed = capacity + (elapsedNanos / 1_000_000) + 1;
+        assertTrue(hotAllowed.sum() <= maxAllowed);
+        assertTrue(hotAllowed.sum() >= capacity);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.RevokedTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TokenRevocationStore Tests")
+public class TokenRevocationStoreTest {
+
+    private RevokedTokenRepository repo;
+    private TokenRevocationStore store;
+
+    @BeforeEach
+    void setUp() {
+        repo = mock(RevokedTokenRepository.class);
+        store = new TokenRevocationStore(repo, 1000);
+    }
+
+    @Test
+    @DisplayName("Should pick up tokens revoked on other instances on refresh")
+    void testRefreshLoadsNewRevocations() {
+        // Given - lúc khởi động có token 11; sau đó instance khác thu hồi token 12
+        when(repo.findActive(any())).thenReturn(List.of(view(11)));
+        store.load();
+        when(repo.findActiveRevokedAfter(any(), any())).thenReturn(List.of(view(11), view(12)));
+
+        // When
+        store.refresh();
+
+        // Then - chỉ đọc các dòng mới, không nạp lại toàn bộ, không nhân đôi token 11
+        assertTrue(store.isRevoked(11));
+        assertTrue(store.isRevoked(12));
+        assertEquals(2, store.size());
+        verify(repo, times(1)).findActive(any());
+    }
+
+    @Test
+    @DisplayName("Should fall back to a full load when the startup load failed")
+    void testRefreshAfterFailedLoad() {
+        // Given
+        when(repo.findActive(any())).thenThrow(new IllegalStateException("db down"));
+        store.load();
+        reset(repo);
+        when(repo.findActive(any())).thenReturn(List.of(view(11)));
+
+        // When
+        store.refresh();
+
+        // Then
+        assertTrue(store.isRevoked(11));
+        verify(repo, never()).findActiveRevokedAfter(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should not write tokens without a jti")
+    void testRevokeWithoutJti() {
+        // Given
+        JwtClaims claims = new JwtClaims(0, "user1@gmail.com", 2, "User", "USER", 0,
+                Instant.now().plusSeconds(600));
+
+        // When
+        store.revoke(claims);
+
+        // Then
+        verify(repo, never()).save(any());
+    }
+
+    private static RevokedTokenRepository.RevokedView view(long jti) {
+        return new RevokedTokenRepository.RevokedView() {
+            @Override
+            public Long getJti() {
+                return jti;
+            }
+
+            @Override
+            public LocalDateTime getExpiresAt() {
+                return LocalDateTime.now().plusMinutes(10);
+            }
+        };
+    }
+}
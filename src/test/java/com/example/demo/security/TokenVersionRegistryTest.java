@@ -0,0 +1,71 @@
+package com.example.demo.security;
+
+import com.example.demo.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TokenVersionRegistry Tests")
+public class TokenVersionRegistryTest {
+
+    private UserRepository userRepository;
+    private TokenVersionRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        registry = new TokenVersionRegistry(userRepository);
+    }
+
+    @Test
+    @DisplayName("Should pick up versions bumped elsewhere on refresh without lowering local ones")
+    void testRefreshMergesVersions() {
+        // Given - instance này vừa tăng user 5 lên 3; DB (đọc trước đó) còn 2, user 7 do instance khác tăng lên 1
+        registry.update(5, 3);
+        when(userRepository.findByTokenVersionGreaterThan(0)).thenReturn(List.of(view(5, 2), view(7, 1)));
+
+        // When
+        registry.refresh();
+
+        // Then
+        assertFalse(registry.isCurrent(5, 2));
+        assertTrue(registry.isCurrent(5, 3));
+        assertFalse(registry.isCurrent(7, 0));
+        assertTrue(registry.isCurrent(7, 1));
+        assertEquals(2, registry.size());
+    }
+
+    @Test
+    @DisplayName("Should keep the current map when refresh fails")
+    void testRefreshFailure() {
+        // Given
+        registry.update(5, 1);
+        when(userRepository.findByTokenVersionGreaterThan(0)).thenThrow(new IllegalStateException("db down"));
+
+        // When
+        assertDoesNotThrow(registry::refresh);
+
+        // Then
+        assertFalse(registry.isCurrent(5, 0));
+        assertEquals(1, registry.size());
+    }
+
+    private static UserRepository.TokenVersionView view(Integer id, Integer version) {
+        return new UserRepository.TokenVersionView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getTokenVersion() {
+                return version;
+            }
+        };
+    }
+}
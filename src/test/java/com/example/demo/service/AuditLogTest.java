@@ -0,0 +1,184 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.AuditDto;
+import com.example.demo.dto.TaskDto;
+import com.example.demo.repository.AuditLogRepository;
+import com.example.demo.security.AuthenticatedUser;
+import com.example.demo.security.SecurityUtil;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+// Chạy trên H2 (chế độ MySQL) với schema tạo từ chính các migration Flyway
+@DisplayName("AuditLog Tests")
+class AuditLogTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private DataSourceTransactionManager transactionManager;
+    private ObjectMapper objectMapper;
+    private AuditLog audit;
+
+    @BeforeEach
+    void setUp() {
+        // V1 (script gốc) bắt đầu bằng "USE task_management": tạo sẵn schema đó và dùng làm schema mặc định
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:audit-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                + ";INIT=CREATE SCHEMA IF NOT EXISTS task_management\\;SET SCHEMA task_management", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                new AuthenticatedUser(7, "admin@gmail.com", "Admin User", "ADMIN"), null, List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (audit != null) {
+            audit.close();
+        }
+        SecurityContextHolder.clearContext();
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("Should write committed changes in the background and page them newest first")
+    void testAsyncWriteAndPage() throws Exception {
+        // Given
+        audit = newAuditLog("async", 100);
+        TaskDto.TaskResponse task = new TaskDto.TaskResponse(5, 2, "Viết báo cáo", null, "PENDING",
+                LocalDateTime.of(2026, 1, 1, 9, 0), null, null, 0);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // When: 25 thay đổi đã commit, 1 thay đổi bị rollback
+        tx.executeWithoutResult(s -> audit.record(AuditLog.EntityType.TASK, 5, AuditLog.Action.CREATE, null, task));
+        for (int i = 0; i < 24; i++) {
+            audit.record(AuditLog.EntityType.USER, 100 + i, AuditLog.Action.UPDATE,
+                    Map.of("role", "USER"), Map.of("role", "ADMIN"));
+        }
+        tx.executeWithoutResult(s -> {
+            audit.record(AuditLog.EntityType.TASK, 6, AuditLog.Action.DELETE, task, null);
+            s.setRollbackOnly();
+        });
+        awaitTrue(() -> audit.stats().written() == 25);
+
+        // Then
+        assertEquals(25, jdbc.queryForObject("SELECT COUNT(*) FROM audit_log", Integer.class));
+        AuditDto.AuditPage taskPage = audit.find("task", 5, null, null, 10);
+        assertEquals(1, taskPage.items().size());
+        AuditDto.AuditEntry entry = taskPage.items().get(0);
+        assertEquals(7, entry.actorId());
+        assertEquals("CREATE", entry.action());
+        assertNull(entry.before());
+        JsonNode after = objectMapper.readTree(entry.after());
+        assertEquals("Viết báo cáo", after.get("title").asText());
+        assertEquals("2026-01-01T09:00:00", after.get("deadline").asText());
+        assertTrue(audit.find("TASK", 6, null, null, 10).items().isEmpty());
+
+        AuditDto.AuditPage first = audit.find(null, null, 7, null, 20);
+        AuditDto.AuditPage second = audit.find(null, null, 7, first.nextCursor(), 20);
+        assertTrue(first.hasNext());
+        assertEquals(5, second.items().size());
+        assertFalse(second.hasNext());
+        assertTrue(first.items().get(19).id() > second.items().get(0).id());
+    }
+
+    @Test
+    @DisplayName("Should drop new entries instead of blocking when the buffer is full")
+    void testBufferOverflowDrops() throws Exception {
+        // Given: writer bị treo ở lô đầu tiên, hàng đợi chỉ chứa 2 dòng
+        AuditLogRepository repository = mock(AuditLogRepository.class);
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(inv -> {
+            writing.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return null;
+        }).when(repository).insert(anyList());
+        audit = new AuditLog(repository, new SecurityUtil(null), objectMapper, transactionManager, "async", 2, 10, 10);
+        audit.start();
+
+        // When
+        audit.record(AuditLog.EntityType.TASK, 1, AuditLog.Action.CREATE, null, Map.of("title", "a"));
+        assertTrue(writing.await(10, TimeUnit.SECONDS));
+        long start = System.nanoTime();
+        for (int i = 2; i <= 6; i++) {
+            audit.record(AuditLog.EntityType.TASK, i, AuditLog.Action.CREATE, null, Map.of("title", "a"));
+        }
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        // Then: 2 dòng vào hàng đợi, 3 dòng bị bỏ, request không phải chờ writer
+        assertTrue(elapsedMillis < 1000, "record() bị chặn " + elapsedMillis + " ms");
+        assertEquals(2, audit.stats().buffered());
+        assertEquals(3, audit.stats().dropped());
+        release.countDown();
+        awaitTrue(() -> audit.stats().written() == 3);
+    }
+
+    @Test
+    @DisplayName("Should write to the outbox inside the transaction and relay it to the audit log")
+    void testOutboxMode() throws Exception {
+        // Given
+        audit = newAuditLog("outbox", 100);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        // When
+        tx.executeWithoutResult(s -> {
+            audit.recordAll(List.of(
+                    new AuditLog.Change(AuditLog.EntityType.TASK, 1, AuditLog.Action.CREATE, null, Map.of("title", "a")),
+                    new AuditLog.Change(AuditLog.EntityType.TASK, 2, AuditLog.Action.CREATE, null, Map.of("title", "b"))));
+        });
+        tx.executeWithoutResult(s -> {
+            audit.record(AuditLog.EntityType.TASK, 3, AuditLog.Action.CREATE, null, Map.of("title", "c"));
+            s.setRollbackOnly();
+        });
+        awaitTrue(() -> jdbc.queryForObject("SELECT COUNT(*) FROM audit_log", Integer.class) == 2);
+
+        // Then: dòng rollback không bao giờ xuất hiện, outbox đã được dọn
+        awaitTrue(() -> jdbc.queryForObject("SELECT COUNT(*) FROM audit_outbox", Integer.class) == 0);
+        assertEquals(List.of(2, 1), audit.find("TASK", null, null, null, 10).items().stream()
+                .map(AuditDto.AuditEntry::entityId).toList());
+        assertEquals(2, audit.stats().written());
+    }
+
+    private AuditLog newAuditLog(String mode, int bufferSize) {
+        AuditLog log = new AuditLog(new AuditLogRepository(jdbc), new SecurityUtil(null), objectMapper,
+                transactionManager, mode, bufferSize, 10, 10);
+        log.start();
+        return log;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "Điều kiện không thỏa sau 10 giây");
+            Thread.sleep(10);
+        }
+    }
+}
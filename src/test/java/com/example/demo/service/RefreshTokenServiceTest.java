@@ -0,0 +1,129 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.RefreshToken;
+import com.example.demo.entity.User;
+import com.example.demo.exception.UnauthorizedException;
+import com.example.demo.repository.RefreshTokenRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("RefreshTokenService Tests")
+@ExtendWith(MockitoExtension.class)
+public class RefreshTokenServiceTest {
+
+    @Mock
+    private RefreshTokenRepository repo;
+
+    private RefreshTokenService service;
+    private User testUser;
+
+    @BeforeEach
+    void setUp() {
+        service = new RefreshTokenService(repo, 14, 100);
+        testUser = User.builder().id(1).email("test@example.com").role("USER").build();
+    }
+
+    @Test
+    @DisplayName("Should store only the hash of issued token")
+    void testIssueStoresHash() {
+        // When
+        String raw = service.issue(testUser);
+
+        // Then
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(repo).save(captor.capture());
+        assertNotEquals(raw, captor.getValue().getTokenHash());
+        assertEquals(64, captor.getValue().getTokenHash().length());
+    }
+
+    @Test
+    @DisplayName("Should rotate a valid refresh token within the same family")
+    void testRotate() {
+        // Given
+        RefreshToken stored = RefreshToken.builder()
+                .id(10L).user(testUser).familyId("family-1")
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .build();
+        when(repo.findByTokenHashWithUser(anyString())).thenReturn(Optional.of(stored));
+        when(repo.markUsed(eq(10L), any())).thenReturn(1);
+
+        // When
+        RefreshTokenService.Rotation rotation = service.rotate("raw-token");
+
+        // Then
+        assertEquals(testUser, rotation.user());
+        assertNotNull(rotation.refreshToken());
+        ArgumentCaptor<RefreshToken> captor = ArgumentCaptor.forClass(RefreshToken.class);
+        verify(repo).save(captor.capture());
+        assertEquals("family-1", captor.getValue().getFamilyId());
+    }
+
+    @Test
+    @DisplayName("Should reject refresh of a disabled user without treating it as reuse")
+    void testRotateDisabledUser() {
+        // Given: user đang chờ xóa, token đã bị thu hồi khi vô hiệu hóa
+        User disabled = User.builder().id(1).email("test@example.com").role("USER").disabled(true).build();
+        RefreshToken stored = RefreshToken.builder()
+                .id(10L).user(disabled).familyId("family-1")
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .revokedAt(LocalDateTime.now().minusMinutes(5))
+                .build();
+        when(repo.findByTokenHashWithUser(anyString())).thenReturn(Optional.of(stored));
+
+        // When & Then
+        assertThrows(UnauthorizedException.class, () -> service.rotate("raw-token"));
+        verify(repo, never()).markUsed(any(), any());
+        verify(repo, never()).revokeFamily(any(), any());
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should revoke whole family when a used token is replayed")
+    void testReuseDetection() {
+        // Given
+        RefreshToken stored = RefreshToken.builder()
+                .id(10L).user(testUser).familyId("family-1")
+                .expiresAt(LocalDateTime.now().plusDays(1))
+                .usedAt(LocalDateTime.now().minusMinutes(5))
+                .build();
+        when(repo.findByTokenHashWithUser(anyString())).thenReturn(Optional.of(stored));
+        when(repo.markUsed(eq(10L), any())).thenReturn(0);
+
+        // When & Then
+        assertThrows(UnauthorizedException.class, () -> service.rotate("raw-token"));
+        verify(repo).revokeFamily(eq("family-1"), any());
+        verify(repo, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Should reject unknown or expired refresh token")
+    void testRejectInvalid() {
+        // Given
+        RefreshToken expired = RefreshToken.builder()
+                .id(11L).user(testUser).familyId("family-2")
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+        when(repo.findByTokenHashWithUser(anyString()))
+                .thenReturn(Optional.empty())
+                .thenReturn(Optional.of(expired));
+
+        // When & Then
+        assertThrows(UnauthorizedException.class, () -> service.rotate("unknown"));
+        assertThrows(UnauthorizedException.class, () -> service.rotate("expired"));
+        verify(repo, never()).markUsed(any(), any());
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskArchiveRepository;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Chạy trên H2 (chế độ MySQL) với schema tạo từ chính các migration Flyway
+@DisplayName("TaskArchiver Tests")
+class TaskArchiverTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 6, 1, 12, 0);
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private TaskArchiveRepository archiveRepository;
+    private TaskCounterStore counters;
+    private TaskSearchIndex searchIndex;
+
+    @BeforeEach
+    void setUp() {
+        // V1 (script gốc) bắt đầu bằng "USE task_management": tạo sẵn schema đó và dùng làm schema mặc định
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:archive-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                + ";INIT=CREATE SCHEMA IF NOT EXISTS task_management\\;SET SCHEMA task_management", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("DELETE FROM tasks");
+        archiveRepository = new TaskArchiveRepository(jdbc);
+        counters = mock(TaskCounterStore.class);
+        searchIndex = mock(TaskSearchIndex.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("Should move only old completed tasks, in chunks, and update counters")
+    void testArchiveMovesOldCompletedTasks() {
+        // Given: 5 task COMPLETED cũ (user 2 và 3), 1 task COMPLETED mới, 1 task PENDING cũ
+        for (int i = 1; i <= 5; i++) {
+            insert(i, i <= 3 ? 2 : 3, Task.Status.COMPLETED, NOW.minusDays(100 + i));
+        }
+        insert(6, 2, Task.Status.COMPLETED, NOW.minusDays(1));
+        insert(7, 2, Task.Status.PENDING, NOW.minusDays(200));
+        TaskArchiver archiver = archiver(2);
+
+        // When
+        long moved = archiver.archive(NOW.minusDays(90));
+
+        // Then
+        assertEquals(5, moved);
+        assertEquals(List.of(6, 7), jdbc.queryForList("SELECT id FROM tasks ORDER BY id", Integer.class));
+        assertEquals(List.of(1, 2, 3, 4, 5), jdbc.queryForList("SELECT id FROM tasks_archive ORDER BY id", Integer.class));
+        assertEquals("Task 1", jdbc.queryForObject("SELECT title FROM tasks_archive WHERE id = 1", String.class));
+
+        // 3 lô (2 + 2 + 1), mỗi lô trừ bộ đếm COMPLETED theo từng user
+        verify(counters, atLeastOnce()).deleted(eq(2), eq(Task.Status.COMPLETED), anyLong());
+        verify(counters, atLeastOnce()).deleted(eq(3), eq(Task.Status.COMPLETED), anyLong());
+        verify(searchIndex, times(3)).remove(anyList());
+        TaskArchiver.Stats stats = archiver.stats();
+        assertEquals(1, stats.runs());
+        assertEquals(5, stats.rowsMoved());
+        assertEquals(5, stats.lastRun().rowsMoved());
+    }
+
+    @Test
+    @DisplayName("Should do nothing when no task is old enough")
+    void testArchiveNothingToMove() {
+        // Given
+        insert(1, 2, Task.Status.COMPLETED, NOW.minusDays(10));
+
+        // When
+        long moved = archiver(100).archive(NOW.minusDays(90));
+
+        // Then
+        assertEquals(0, moved);
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM tasks", Integer.class));
+        verifyNoInteractions(counters);
+    }
+
+    @Test
+    @DisplayName("Should list active and archived tasks together in sort order")
+    void testFindWithArchivedMergesBothTables() {
+        // Given: task 1, 3 được lưu trữ; 2, 4, 5 còn ở bảng nóng
+        for (int i = 1; i <= 5; i++) {
+            insert(i, 2, i % 2 == 1 && i < 5 ? Task.Status.COMPLETED : Task.Status.PENDING, NOW.minusDays(200 - i));
+        }
+        archiver(100).archive(NOW.minusDays(90));
+        assertEquals(2, archiveRepository.countArchived(2, null));
+
+        // When
+        List<TaskDto.TaskResponse> page1 = archiveRepository.findWithArchived(2, null, Sort.by("id"), 0, 3);
+        List<TaskDto.TaskResponse> page2 = archiveRepository.findWithArchived(2, null, Sort.by("id"), 3, 3);
+        List<TaskDto.TaskResponse> newest = archiveRepository.findWithArchived(
+                null, null, Sort.by(Sort.Direction.DESC, "createdAt"), 0, 5);
+        List<TaskDto.TaskResponse> pending = archiveRepository.findWithArchived(
+                2, Task.Status.PENDING, Sort.unsorted(), 0, 10);
+
+        // Then
+        assertEquals(List.of(1, 2, 3), page1.stream().map(TaskDto.TaskResponse::id).toList());
+        assertEquals(List.of(4, 5), page2.stream().map(TaskDto.TaskResponse::id).toList());
+        assertEquals(List.of(5, 4, 3, 2, 1), newest.stream().map(TaskDto.TaskResponse::id).toList());
+        assertEquals(List.of(2, 4, 5), pending.stream().map(TaskDto.TaskResponse::id).toList());
+        assertEquals(0, archiveRepository.countArchived(2, Task.Status.PENDING));
+    }
+
+    private TaskArchiver archiver(int batchSize) {
+        return new TaskArchiver(archiveRepository, counters, searchIndex, new DataSourceTransactionManager(dataSource),
+                true, 90, batchSize);
+    }
+
+    private void insert(int id, int userId, Task.Status status, LocalDateTime at) {
+        jdbc.update("INSERT INTO tasks (id, user_id, title, status, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?)",
+                id, userId, "Task " + id, status.name(), Timestamp.valueOf(at), Timestamp.valueOf(at));
+    }
+}
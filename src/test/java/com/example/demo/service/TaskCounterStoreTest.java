@@ -0,0 +1,147 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Không có transaction nên các thay đổi áp dụng ngay
+@DisplayName("TaskCounterStore Tests")
+class TaskCounterStoreTest {
+
+    private TaskRepository taskRepository;
+    private TaskCounterStore store;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        when(taskRepository.countGroupByUserAndStatus()).thenReturn(List.of(
+                statusCount(1, Task.Status.PENDING, 3),
+                statusCount(1, Task.Status.COMPLETED, 2),
+                statusCount(2, Task.Status.IN_PROGRESS, 4)));
+        when(taskRepository.countOverdueGroupByUser(any())).thenReturn(List.of(overdueCount(1, 1)));
+        store = new TaskCounterStore(taskRepository);
+        store.reload();
+    }
+
+    @Test
+    @DisplayName("Should serve per-user and global stats from memory after one load")
+    void testCountsAfterLoad() {
+        // When
+        TaskCounterStore.Counts user1 = store.counts(1);
+        TaskCounterStore.Counts all = store.countsAll();
+        TaskCounterStore.Counts unknown = store.counts(99);
+
+        // Then
+        assertEquals(5, user1.total());
+        assertEquals(3, user1.byStatus().get(Task.Status.PENDING));
+        assertEquals(0, user1.byStatus().get(Task.Status.IN_PROGRESS));
+        assertEquals(1, user1.overdue());
+        assertEquals(9, all.total());
+        assertEquals(1, all.overdue());
+        assertEquals(0, unknown.total());
+        verify(taskRepository, times(1)).countGroupByUserAndStatus();
+    }
+
+    @Test
+    @DisplayName("Should apply create, status change and delete without querying")
+    void testIncrementalUpdates() {
+        // When
+        store.created(2, Task.Status.PENDING);
+        store.statusChanged(1, Task.Status.PENDING, Task.Status.COMPLETED);
+        store.deleted(1, Task.Status.COMPLETED);
+
+        // Then
+        assertEquals(2, store.counts(1).byStatus().get(Task.Status.COMPLETED));
+        assertEquals(2, store.counts(1).byStatus().get(Task.Status.PENDING));
+        assertEquals(5, store.counts(2).total());
+        assertEquals(9, store.countsAll().total());
+        verify(taskRepository, never()).countGroupByStatusForUser(any());
+    }
+
+    @Test
+    @DisplayName("Should recount only the affected user when one of its tasks becomes overdue")
+    void testOverdueEventRecountsUser() {
+        // Given
+        when(taskRepository.countGroupByStatusForUser(2)).thenReturn(List.of(statusCount(2, Task.Status.IN_PROGRESS, 4)));
+        when(taskRepository.countOverdueForUser(eq(2), any())).thenReturn(1L);
+
+        // When
+        store.onDeadline(new TaskDeadlineEvent(TaskDeadlineEvent.Type.DUE_SOON, 7, 2, LocalDateTime.now()));
+        assertEquals(0, store.counts(2).overdue());
+        store.onDeadline(new TaskDeadlineEvent(TaskDeadlineEvent.Type.OVERDUE, 7, 2, LocalDateTime.now()));
+
+        // Then
+        assertEquals(1, store.counts(2).overdue());
+        assertEquals(2, store.countsAll().overdue());
+        assertEquals(1, store.counts(1).overdue());
+        verify(taskRepository, times(1)).countOverdueForUser(eq(2), any());
+        verify(taskRepository, never()).countOverdueForUser(eq(1), any());
+    }
+
+    @Test
+    @DisplayName("Should leave dirty users to the background recount when reading totals or other users")
+    void testTotalsRecountInBackground() {
+        // Given
+        when(taskRepository.countGroupByStatusForUser(2)).thenReturn(List.of(statusCount(2, Task.Status.IN_PROGRESS, 4)));
+        when(taskRepository.countOverdueForUser(eq(2), any())).thenReturn(1L);
+        store.onDeadline(new TaskDeadlineEvent(TaskDeadlineEvent.Type.OVERDUE, 7, 2, LocalDateTime.now()));
+
+        // When: đọc số tổng và số của user khác không truy vấn DB
+        assertEquals(1, store.countsAll().overdue());
+        assertEquals(9, store.countAll(null));
+        assertEquals(1, store.counts(1).overdue());
+        verify(taskRepository, never()).countGroupByStatusForUser(any());
+
+        store.recountDirty();
+        store.recountDirty();
+
+        // Then: thread nền đếm lại đúng một lần, lần đọc user 2 sau đó không phải đếm nữa
+        assertEquals(2, store.countsAll().overdue());
+        assertEquals(1, store.counts(2).overdue());
+        verify(taskRepository, times(1)).countGroupByStatusForUser(2);
+        verify(taskRepository, times(1)).countOverdueForUser(eq(2), any());
+    }
+
+    private static TaskRepository.StatusCountView statusCount(Integer userId, Task.Status status, long total) {
+        return new TaskRepository.StatusCountView() {
+            @Override
+            public Integer getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Task.Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+
+    private static TaskRepository.OverdueCountView overdueCount(Integer userId, long total) {
+        return new TaskRepository.OverdueCountView() {
+            @Override
+            public Integer getUserId() {
+                return userId;
+            }
+
+            @Override
+            public long getTotal() {
+                return total;
+            }
+        };
+    }
+}
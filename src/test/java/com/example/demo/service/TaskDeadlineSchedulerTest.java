@@ -0,0 +1,156 @@
+package com.example.demo.service;
+
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+// Không có transaction nên schedule/cancel áp dụng ngay; thời gian được tiến tay qua advanceTo
+@DisplayName("TaskDeadlineScheduler Tests")
+class TaskDeadlineSchedulerTest {
+
+    private TaskRepository taskRepository;
+    private ApplicationEventPublisher publisher;
+    private TaskDeadlineScheduler scheduler;
+    private LocalDateTime now;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        publisher = mock(ApplicationEventPublisher.class);
+        // due-soon 60 phút, cửa sổ 180 phút, tick 1 giây
+        scheduler = new TaskDeadlineScheduler(taskRepository, publisher, true, 60, 180, 1000);
+        now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        when(taskRepository.findDeadlinesBetween(any(), any())).thenReturn(List.of());
+        scheduler.loadWindow(now);
+    }
+
+    @Test
+    @DisplayName("Should emit DUE_SOON then OVERDUE for a task in the window")
+    void testDueSoonThenOverdue() {
+        // Given
+        scheduler.schedule(1, 2, now.plusMinutes(90), Task.Status.PENDING);
+
+        // When & Then: trước 30 phút chưa có gì
+        scheduler.advanceTo(millis(now.plusMinutes(29)));
+        verifyNoInteractions(publisher);
+
+        scheduler.advanceTo(millis(now.plusMinutes(31)));
+        assertEquals(List.of(TaskDeadlineEvent.Type.DUE_SOON), publishedTypes());
+
+        scheduler.advanceTo(millis(now.plusMinutes(91)));
+        assertEquals(List.of(TaskDeadlineEvent.Type.DUE_SOON, TaskDeadlineEvent.Type.OVERDUE), publishedTypes());
+        assertEquals(0, scheduler.stats().tasks());
+    }
+
+    @Test
+    @DisplayName("Should emit DUE_SOON immediately when the deadline is already close")
+    void testImmediateDueSoon() {
+        // When
+        scheduler.schedule(1, 2, now.plusMinutes(10), Task.Status.IN_PROGRESS);
+
+        // Then
+        assertEquals(List.of(TaskDeadlineEvent.Type.DUE_SOON), publishedTypes());
+        assertEquals(1, scheduler.stats().tasks());
+    }
+
+    @Test
+    @DisplayName("Should not emit DUE_SOON again when a due-soon task is edited without moving its deadline")
+    void testEditDueSoonTaskOnce() {
+        // Given
+        scheduler.schedule(1, 2, now.plusMinutes(10), Task.Status.PENDING);
+
+        // When: sửa tiêu đề hai lần, deadline giữ nguyên
+        scheduler.schedule(1, 2, now.plusMinutes(10), Task.Status.PENDING);
+        scheduler.schedule(1, 2, now.plusMinutes(10), Task.Status.IN_PROGRESS);
+
+        // Then: chỉ một DUE_SOON, OVERDUE vẫn đến đúng hạn
+        assertEquals(List.of(TaskDeadlineEvent.Type.DUE_SOON), publishedTypes());
+        scheduler.advanceTo(millis(now.plusMinutes(11)));
+        assertEquals(List.of(TaskDeadlineEvent.Type.DUE_SOON, TaskDeadlineEvent.Type.OVERDUE), publishedTypes());
+    }
+
+    @Test
+    @DisplayName("Should drop reminders when the task is completed, rescheduled or deleted")
+    void testCancelAndReschedule() {
+        // Given
+        scheduler.schedule(1, 2, now.plusMinutes(90), Task.Status.PENDING);
+        scheduler.schedule(2, 2, now.plusMinutes(90), Task.Status.PENDING);
+        scheduler.schedule(3, 2, now.plusMinutes(90), Task.Status.PENDING);
+
+        // When: 1 hoàn thành, 2 dời deadline ra ngoài cửa sổ, 3 bị xóa
+        scheduler.schedule(1, 2, now.plusMinutes(90), Task.Status.COMPLETED);
+        scheduler.schedule(2, 2, now.plusDays(2), Task.Status.PENDING);
+        scheduler.cancel(List.of(3));
+        scheduler.advanceTo(millis(now.plusMinutes(100)));
+
+        // Then
+        verifyNoInteractions(publisher);
+        assertEquals(0, scheduler.stats().timers());
+    }
+
+    @Test
+    @DisplayName("Should load only the new part of the window from the DB on reload")
+    void testReloadReadsNextWindowOnly() {
+        // Given: lần nạp sau 30 phút chỉ đọc [now + 180', now + 210')
+        LocalDateTime later = now.plusMinutes(30);
+        TaskRepository.DeadlineView row = view(5, 3, now.plusMinutes(200));
+        when(taskRepository.findDeadlinesBetween(now.plusMinutes(180), later.plusMinutes(180))).thenReturn(List.of(row));
+
+        // When
+        scheduler.loadWindow(later);
+        scheduler.advanceTo(millis(now.plusMinutes(201)));
+
+        // Then
+        verify(taskRepository).findDeadlinesBetween(now, now.plusMinutes(180));
+        verify(taskRepository).findDeadlinesBetween(now.plusMinutes(180), later.plusMinutes(180));
+        assertEquals(List.of(TaskDeadlineEvent.Type.DUE_SOON, TaskDeadlineEvent.Type.OVERDUE), publishedTypes());
+        assertEquals(later.plusMinutes(180), scheduler.stats().loadedUntil());
+    }
+
+    private List<TaskDeadlineEvent.Type> publishedTypes() {
+        ArgumentCaptor<TaskDeadlineEvent> events = ArgumentCaptor.forClass(TaskDeadlineEvent.class);
+        verify(publisher, atLeastOnce()).publishEvent(events.capture());
+        return events.getAllValues().stream().map(TaskDeadlineEvent::type).toList();
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static TaskRepository.DeadlineView view(Integer id, Integer userId, LocalDateTime deadline) {
+        return new TaskRepository.DeadlineView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getUserId() {
+                return userId;
+            }
+
+            @Override
+            public String getTitle() {
+                return "Task " + id;
+            }
+
+            @Override
+            public LocalDateTime getDeadline() {
+                return deadline;
+            }
+        };
+    }
+}
@@ -0,0 +1,146 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.repository.TaskRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TaskExporter Tests")
+class TaskExporterTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 3, 1, 8, 30, 15);
+
+    private TaskRepository taskRepository;
+    private ObjectMapper objectMapper;
+    private TaskExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(TaskRepository.class);
+        // Cấu hình giống ObjectMapper của Spring Boot: ngày giờ dạng ISO
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        exporter = new TaskExporter(taskRepository, objectMapper, mock(PlatformTransactionManager.class), 2);
+    }
+
+    @Test
+    @DisplayName("Should write one JSON object per line and close the DB stream")
+    void testExportNdjson() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(taskRepository.streamForExport(Task.Status.PENDING, null, null)).thenReturn(
+                Stream.of(task(1, "Viết báo cáo", null), task(2, "Họp", "Phòng 3")).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exporter.export(out, ExportFormat.NDJSON, Task.Status.PENDING, null, null);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        assertEquals(2, lines.length);
+        JsonNode first = objectMapper.readTree(lines[0]);
+        assertEquals(1, first.get("id").asInt());
+        assertEquals("Viết báo cáo", first.get("title").asText());
+        assertEquals("2025-03-01T08:30:15", first.get("createdAt").asText());
+        assertEquals("Phòng 3", objectMapper.readTree(lines[1]).get("description").asText());
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Should write CSV with header and RFC 4180 quoting")
+    void testExportCsv() {
+        // Given
+        when(taskRepository.streamForExport(isNull(), any(), any())).thenReturn(
+                Stream.of(task(1, "Mua sữa, bánh", "Nói \"nhanh\"\nlên")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exporter.export(out, ExportFormat.CSV, null, CREATED.minusDays(1), CREATED.plusDays(1));
+
+        // Then
+        assertEquals("id,userId,title,description,status,deadline,createdAt,updatedAt,version\r\n" +
+                        "1,2,\"Mua sữa, bánh\",\"Nói \"\"nhanh\"\"\nlên\",PENDING,,2025-03-01T08:30:15,2025-03-01T08:30:15,0\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should neutralize values that a spreadsheet would run as formulas")
+    void testExportCsvNeutralizesFormulas() {
+        // Given
+        when(taskRepository.streamForExport(any(), any(), any())).thenReturn(Stream.of(
+                task(1, "=HYPERLINK(\"http://x\",\"y\")", "+1"), task(2, "-2", "@SUM(A1)"), task(3, "\tTab", "a=b")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exporter.export(out, ExportFormat.CSV, null, null, null);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertTrue(lines[1].startsWith("1,2,\"'=HYPERLINK(\"\"http://x\"\",\"\"y\"\")\",'+1,"));
+        assertTrue(lines[2].startsWith("2,2,'-2,'@SUM(A1),"));
+        assertTrue(lines[3].startsWith("3,2,'\tTab,a=b,"));
+    }
+
+    @Test
+    @DisplayName("Should stream rows without collecting them")
+    void testExportLargeStreamIsNotBuffered() {
+        // Given: một triệu dòng sinh dần, output chỉ đếm byte
+        int total = 1_000_000;
+        when(taskRepository.streamForExport(any(), any(), any()))
+                .thenReturn(IntStream.rangeClosed(1, total).mapToObj(i -> task(i, "Task " + i, null)));
+        long[] bytes = {0};
+        OutputStream counting = new OutputStream() {
+            @Override
+            public void write(int b) {
+                bytes[0]++;
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                bytes[0] += len;
+            }
+        };
+
+        // When
+        long rows = exporter.export(counting, ExportFormat.NDJSON, null, null, null);
+
+        // Then
+        assertEquals(total, rows);
+        assertTrue(bytes[0] > total * 100L);
+    }
+
+    @Test
+    @DisplayName("Should reject unknown format and empty date range")
+    void testValidation() {
+        assertThrows(BadRequestException.class, () -> ExportFormat.fromParam("xml"));
+        assertEquals(ExportFormat.CSV, ExportFormat.fromParam("csv"));
+        assertEquals(ExportFormat.NDJSON, ExportFormat.fromParam(null));
+        assertThrows(BadRequestException.class, () -> exporter.validate(CREATED, CREATED));
+        assertDoesNotThrow(() -> exporter.validate(CREATED, null));
+    }
+
+    private static TaskDto.TaskResponse task(int id, String title, String description) {
+        return new TaskDto.TaskResponse(id, 2, title, description, Task.Status.PENDING, null, CREATED, CREATED, 0);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.repository.TaskArchiveRepository;
+import com.example.demo.repository.TaskBatchWriter;
+import com.example.demo.repository.TaskRepository;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+// Không chạy trong build mặc định: mvn test -Pbenchmark
+@Tag("benchmark")
+@DisplayName("TaskImporter Benchmark")
+class TaskImporterBenchmark {
+
+    @Test
+    @DisplayName("Benchmark: streaming NDJSON import through TaskService into H2")
+    void benchmarkImportThroughput() {
+        int rows = 50_000;
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        EmbeddedDatabase db = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .build();
+        try (ValidatorFactory validation = Validation.buildDefaultValidatorFactory()) {
+            JdbcTemplate jdbc = new JdbcTemplate(db);
+            jdbc.execute("CREATE TABLE users (id INT AUTO_INCREMENT PRIMARY KEY, email VARCHAR(150) NOT NULL)");
+            jdbc.execute("CREATE TABLE tasks (" +
+                    "id INT AUTO_INCREMENT PRIMARY KEY, title VARCHAR(200) NOT NULL, description VARCHAR(1000), " +
+                    "status VARCHAR(20) NOT NULL, deadline TIMESTAMP, user_id INT NOT NULL REFERENCES users(id), " +
+                    "created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP)");
+            jdbc.update("INSERT INTO users (email) VALUES ('import@example.com')");
+            TaskService service = new TaskService(mock(TaskRepository.class), mock(UserRepository.class),
+                    mock(TaskCounterStore.class), new TaskBatchWriter(jdbc, 500), mock(TaskArchiveRepository.class),
+                    mock(TaskSearchIndex.class), mock(TaskDeadlineScheduler.class), validation.getValidator(), mock(AuditLog.class));
+            TaskImporter importer = new TaskImporter(service, objectMapper, 1000, 1000, 65536);
+
+            // When: dữ liệu sinh dần khi được đọc, không có sẵn cả file trong bộ nhớ
+            TaskDto.TaskImportResponse res = importer.importTasks(generated(rows), ExportFormat.NDJSON, 1);
+
+            // Then
+            System.out.printf("Benchmark import: %d rows in %d ms, %.0f rows/s%n",
+                    res.rows(), res.durationMillis(), res.rowsPerSecond());
+            assertEquals(rows, res.created());
+            assertEquals(rows, jdbc.queryForObject("SELECT COUNT(*) FROM tasks", Integer.class));
+        } finally {
+            db.shutdown();
+        }
+    }
+
+    private static InputStream generated(int rows) {
+        return new InputStream() {
+            private int row;
+            private byte[] line = new byte[0];
+            private int pos;
+
+            @Override
+            public int read() {
+                if (pos == line.length) {
+                    if (row == rows) {
+                        return -1;
+                    }
+                    line = ("{\"title\":\"Task " + row + "\",\"description\":\"Imported row " + row
+                            + "\",\"status\":\"PENDING\",\"deadline\":\"2030-01-01T00:00:00\"}\n")
+                            .getBytes(StandardCharsets.UTF_8);
+                    row++;
+                    pos = 0;
+                }
+                return line[pos++];
+            }
+        };
+    }
+}
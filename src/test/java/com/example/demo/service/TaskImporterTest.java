@@ -0,0 +1,181 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.exception.BadRequestException;
+import com.example.demo.util.Csv;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@DisplayName("TaskImporter Tests")
+class TaskImporterTest {
+
+    private TaskService taskService;
+    private ObjectMapper objectMapper;
+    // Bản sao từng lô gửi vào importChunk (TaskImporter dùng lại List sau mỗi lô)
+    private final List<List<TaskDto.TaskCreateRequest>> chunks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        taskService = mock(TaskService.class);
+        // Giống ObjectMapper của Spring Boot: bỏ qua field lạ (id, userId... của file export)
+        objectMapper = new ObjectMapper().findAndRegisterModules()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        // Giả lập validate của TaskService: title trống là lỗi
+        when(taskService.importChunk(anyList(), eq(1))).thenAnswer(inv -> {
+            List<TaskDto.TaskCreateRequest> items = inv.getArgument(0);
+            chunks.add(List.copyOf(items));
+            return items.stream()
+                    .map(t -> t.title() == null || t.title().isBlank() ? "Title không được để trống" : null)
+                    .toArray(String[]::new);
+        });
+    }
+
+    @Test
+    @DisplayName("Should import NDJSON line by line and report bad lines by line number")
+    void testImportNdjson() {
+        // Given
+        String body = """
+                {"title":"Viết báo cáo","status":"PENDING","deadline":"2025-06-01T09:00:00"}
+
+                {"title":"Họp", "description":"Phòng 3"
+                {"title":""}
+                {"title":"Gọi khách","id":99}
+                """;
+
+        // When
+        TaskDto.TaskImportResponse res = importer(1000, 1000, 65536).importTasks(stream(body), ExportFormat.NDJSON, 1);
+
+        // Then
+        assertEquals(4, res.rows());
+        assertEquals(2, res.created());
+        assertEquals(2, res.failed());
+        assertEquals(List.of(3L, 4L), res.errors().stream().map(TaskDto.TaskImportError::row).toList());
+        assertTrue(res.errors().get(0).error().startsWith("JSON không hợp lệ"));
+        assertEquals("Title không được để trống", res.errors().get(1).error());
+        assertEquals(LocalDateTime.of(2025, 6, 1, 9, 0), chunks.get(0).get(0).deadline());
+    }
+
+    @Test
+    @DisplayName("Should parse CSV with BOM, header mapping and RFC 4180 quoting")
+    void testImportCsv() {
+        // Given: cột theo thứ tự khác, có cột thừa của file export; dòng 3 có xuống dòng trong ô
+        String body = "\uFEFFid,Deadline,title,description,status\r\n" +
+                "7,,\"Mua sữa, bánh\",\"Nói \"\"nhanh\"\"\",COMPLETED\r\n" +
+                "8,2025-06-01T09:00:00,Dọn kho,\"Dòng 1\r\nDòng 2\",\r\n" +
+                "9,ngày mai,Sai deadline,,\r\n" +
+                "\r\n" +
+                "10,,Cuối file,,";
+
+        // When
+        TaskDto.TaskImportResponse res = importer(1000, 1000, 65536).importTasks(stream(body), ExportFormat.CSV, 1);
+
+        // Then
+        assertEquals(4, res.rows());
+        assertEquals(3, res.created());
+        assertEquals(List.of(new TaskDto.TaskImportError(5, "Deadline không hợp lệ, cần dạng yyyy-MM-ddTHH:mm:ss")),
+                res.errors());
+        List<TaskDto.TaskCreateRequest> tasks = chunks.get(0);
+        assertEquals(new TaskDto.TaskCreateRequest("Mua sữa, bánh", "Nói \"nhanh\"", "COMPLETED", null), tasks.get(0));
+        assertEquals(new TaskDto.TaskCreateRequest("Dọn kho", "Dòng 1\r\nDòng 2", null,
+                LocalDateTime.of(2025, 6, 1, 9, 0)), tasks.get(1));
+        assertEquals("Cuối file", tasks.get(2).title());
+    }
+
+    @Test
+    @DisplayName("Should read back values that the CSV export prefixed against formulas unchanged")
+    void testCsvFormulaRoundTrip() {
+        // Given: ô được ghi bằng Csv.field như file export
+        List<String> titles = List.of("-2 ngày", "+1", "=SUM(A1)", "@Nam", "\tTab", "'=đã có nháy", "'thường", "a-b");
+        StringBuilder body = new StringBuilder("title,description\r\n");
+        titles.forEach(t -> body.append(Csv.field(t)).append(',').append(Csv.field("-" + t)).append("\r\n"));
+
+        // When
+        TaskDto.TaskImportResponse res = importer(1000, 1000, 65536)
+                .importTasks(stream(body.toString()), ExportFormat.CSV, 1);
+
+        // Then
+        assertEquals(titles.size(), res.created());
+        assertEquals(titles, chunks.get(0).stream().map(TaskDto.TaskCreateRequest::title).toList());
+        assertEquals(titles.stream().map(t -> "-" + t).toList(),
+                chunks.get(0).stream().map(TaskDto.TaskCreateRequest::description).toList());
+    }
+
+    @Test
+    @DisplayName("Should write in chunks of chunk-size and record progress")
+    void testChunking() {
+        // Given
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 25; i++) {
+            body.append("{\"title\":\"Task ").append(i).append("\"}\n");
+        }
+        TaskImporter importer = importer(10, 1000, 65536);
+
+        // When
+        TaskDto.TaskImportResponse res = importer.importTasks(stream(body.toString()), ExportFormat.NDJSON, 1);
+
+        // Then
+        assertEquals(List.of(10, 10, 5), chunks.stream().map(List::size).toList());
+        assertEquals(25, res.created());
+        List<TaskDto.TaskImportProgress> progress = importer.progress(1);
+        assertEquals(1, progress.size());
+        assertEquals("COMPLETED", progress.get(0).status());
+        assertEquals(25, progress.get(0).created());
+        assertNotNull(progress.get(0).finishedAt());
+        assertTrue(importer.progress(2).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should cap reported errors and skip over-long records")
+    void testErrorCapAndRecordLimit() {
+        // Given: giới hạn 40 ký tự mỗi bản ghi, báo tối đa 2 lỗi
+        String body = "{\"title\":\"" + "x".repeat(100) + "\"}\n" +
+                "{\"title\":\"\"}\n{\"title\":\"\"}\n{\"title\":\"OK\"}\n";
+
+        // When
+        TaskDto.TaskImportResponse res = importer(1000, 2, 40).importTasks(stream(body), ExportFormat.NDJSON, 1);
+
+        // Then
+        assertEquals(4, res.rows());
+        assertEquals(1, res.created());
+        assertEquals(3, res.failed());
+        assertEquals(2, res.errors().size());
+        assertEquals("Dòng dài quá 40 ký tự", res.errors().get(0).error());
+        assertTrue(res.errorsTruncated());
+    }
+
+    @Test
+    @DisplayName("Should reject CSV without title column and mark the import failed")
+    void testCsvWithoutTitle() {
+        // Given
+        TaskImporter importer = importer(1000, 1000, 65536);
+
+        // When & Then
+        assertThrows(BadRequestException.class,
+                () -> importer.importTasks(stream("name,status\nA,PENDING\n"), ExportFormat.CSV, 1));
+        assertEquals("FAILED", importer.progress(null).get(0).status());
+        verifyNoInteractions(taskService);
+    }
+
+    private TaskImporter importer(int chunkSize, int maxErrors, int maxRecordChars) {
+        return new TaskImporter(taskService, objectMapper, chunkSize, maxErrors, maxRecordChars);
+    }
+
+    private static InputStream stream(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
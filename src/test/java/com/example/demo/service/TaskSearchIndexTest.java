@@ -0,0 +1,186 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.TaskDto;
+import com.example.demo.entity.Task;
+import com.example.demo.repository.TaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Index trong bộ nhớ (index-dir để trống); không có transaction nên put/remove ghi ngay
+@DisplayName("TaskSearchIndex Tests")
+class TaskSearchIndexTest {
+
+    private TaskRepository taskRepository;
+    private TaskSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        taskRepository = mock(TaskRepository.class);
+        index = new TaskSearchIndex(taskRepository, mock(PlatformTransactionManager.class), "", false, 2);
+        index.open();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        index.close();
+    }
+
+    @Test
+    @DisplayName("Should find tasks by title and description, ranking title matches first")
+    void testSearchByTitleAndDescription() {
+        // Given
+        index.put(1, 2, "Viết báo cáo", "Gửi cho quản lý");
+        index.put(2, 2, "Họp nhóm", "Chuẩn bị báo cáo tuần");
+        index.put(3, 2, "Đi chợ", null);
+        index.refresh();
+
+        // When
+        TaskSearchIndex.Hits hits = index.search("báo cáo", null, 10);
+
+        // Then
+        assertEquals(List.of(1, 2), hits.ids());
+        assertEquals(2, hits.totalHits());
+    }
+
+    @Test
+    @DisplayName("Should match queries without Vietnamese diacritics")
+    void testSearchIgnoresDiacritics() {
+        // Given
+        index.put(1, 2, "Học Spring Boot", null);
+        index.refresh();
+
+        // When & Then
+        assertEquals(List.of(1), index.search("hoc spring", null, 10).ids());
+        assertEquals(List.of(1), index.search("HỌC", null, 10).ids());
+    }
+
+    @Test
+    @DisplayName("Should only return tasks of the given owner")
+    void testSearchFiltersByOwner() {
+        // Given
+        index.put(1, 2, "Deploy server", null);
+        index.put(2, 3, "Deploy server", null);
+        index.refresh();
+
+        // When & Then
+        assertEquals(List.of(2), index.search("deploy", 3, 10).ids());
+        assertEquals(2, index.search("deploy", null, 10).totalHits());
+    }
+
+    @Test
+    @DisplayName("Should reflect updates and removals after refresh")
+    void testUpdateAndRemove() {
+        // Given
+        index.put(1, 2, "Sửa lỗi đăng nhập", null);
+        index.put(2, 2, "Sửa lỗi đăng ký", null);
+        index.refresh();
+
+        // When
+        index.put(1, 2, "Viết tài liệu", null);
+        index.remove(List.of(2));
+        index.refresh();
+
+        // Then
+        assertTrue(index.search("lỗi", null, 10).ids().isEmpty());
+        assertEquals(List.of(1), index.search("tài liệu", null, 10).ids());
+        assertEquals(1, index.stats().docs());
+    }
+
+    @Test
+    @DisplayName("Should rebuild from DB in batches and drop documents of deleted tasks")
+    void testRebuildDropsStaleDocuments() throws Exception {
+        // Given: index còn doc của task 9 đã bị xóa khỏi DB
+        index.put(9, 2, "Task đã xóa", null);
+        index.refresh();
+        when(taskRepository.seekAllById(eq(0), any(Pageable.class)))
+                .thenReturn(List.of(response(1, "Task một"), response(2, "Task hai")));
+        when(taskRepository.seekAllById(eq(2), any(Pageable.class)))
+                .thenReturn(List.of(response(3, "Task ba")));
+        when(taskRepository.seekAllById(eq(3), any(Pageable.class))).thenReturn(List.of());
+
+        // When
+        long rebuilt = index.rebuild();
+
+        // Then
+        assertEquals(3, rebuilt);
+        assertEquals(List.of(1, 2, 3), index.search("task", null, 10).ids().stream().sorted().toList());
+        TaskSearchIndex.Stats stats = index.stats();
+        assertEquals(3, stats.docs());
+        assertEquals(3, stats.lastRebuild().tasks());
+    }
+
+    @Test
+    @DisplayName("Should not re-add a task removed while the rebuild batch holding it was being read")
+    void testRebuildSkipsTasksRemovedMeanwhile() throws Exception {
+        // Given: lô đầu được đọc trước khi task 2 bị xóa, lệnh xóa tới index trong lúc dựng lại
+        when(taskRepository.seekAllById(eq(0), any(Pageable.class))).thenAnswer(inv -> {
+            index.remove(List.of(2));
+            return List.of(response(1, "Task một"), response(2, "Task hai"));
+        });
+        when(taskRepository.seekAllById(eq(2), any(Pageable.class))).thenReturn(List.of());
+
+        // When
+        index.rebuild();
+
+        // Then
+        TaskSearchIndex.Hits hits = index.search("task", null, 10);
+        assertEquals(List.of(1), hits.ids());
+        assertEquals(1, hits.totalHits());
+    }
+
+    @Test
+    @DisplayName("Should rebuild on startup only when the index is behind its last commit marker")
+    void testRebuildIfStale() throws Exception {
+        // Given: index đã commit 1 doc, DB có 1 task và không đổi gì sau đó
+        index.put(1, 2, "Task một", null);
+        index.commit();
+        when(taskRepository.count()).thenReturn(1L);
+        when(taskRepository.existsByUpdatedAtAfter(any())).thenReturn(false);
+
+        // When & Then
+        index.rebuildIfNeeded();
+        verify(taskRepository, after(200).never()).seekAllById(any(), any());
+
+        // Given: task được sửa sau commit cuối (thay đổi chưa commit bị mất khi crash)
+        when(taskRepository.existsByUpdatedAtAfter(any())).thenReturn(true);
+        when(taskRepository.seekAllById(any(), any())).thenReturn(List.of());
+
+        // When & Then
+        index.rebuildIfNeeded();
+        verify(taskRepository, timeout(2000)).seekAllById(eq(0), any(Pageable.class));
+    }
+
+    @Test
+    @DisplayName("Should record query latency percentiles")
+    void testStatsRecordsLatency() {
+        // Given
+        index.put(1, 2, "Task", null);
+        index.refresh();
+
+        // When
+        for (int i = 0; i < 50; i++) {
+            index.search("task", 2, 10);
+        }
+
+        // Then
+        TaskSearchIndex.Stats stats = index.stats();
+        assertEquals(50, stats.queries());
+        assertTrue(stats.p50Micros() <= stats.p99Micros());
+        assertTrue(stats.p99Micros() <= stats.maxMicros());
+    }
+
+    private static TaskDto.TaskResponse response(int id, String title) {
+        return new TaskDto.TaskResponse(id, 2, title, null, Task.Status.PENDING, null, null, null, 0);
+    }
+}
@@ -1,28 +1,44 @@
 package com.example.demo.service;
 
+import com.example.demo.dto.TaskCursor;
+import com.example.demo.dto.TaskDto;
 import com.example.demo.entity.Task;
 import com.example.demo.entity.User;
+import com.example.demo.exception.BadRequestException;
 import com.example.demo.exception.ForbiddenException;
+import com.example.demo.exception.PreconditionFailedException;
 import com.example.demo.exception.ResourceNotFoundException;
+import com.example.demo.repository.TaskBatchWriter;
 import com.example.demo.repository.TaskRepository;
 import com.example.demo.repository.UserRepository;
+import jakarta.validation.Validator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @DisplayName("TaskService Tests")
@@ -35,6 +51,24 @@ public class TaskServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private TaskCounterStore taskCounterStore;
+
+    @Mock
+    private TaskBatchWriter taskBatchWriter;
+
+    @Mock
+    private Validator validator;
+
+    @Mock
+    private TaskSearchIndex taskSearchIndex;
+
+    @Mock
+    private TaskDeadlineScheduler taskDeadlineScheduler;
+
+    @Mock
+    private AuditLog auditLog;
+
     @InjectMocks
     private TaskService taskService;
 
@@ -75,7 +109,7 @@ public class TaskServiceTest {
         when(taskRepository.save(any(Task.class))).thenReturn(testTask);
 
         // When
-        Task result = taskService.create(newTask, testUser);
+        Task result = taskService.create(newTask, testUser.getId());
 
         // Then
         assertNotNull(result);
@@ -91,7 +125,7 @@ public class TaskServiceTest {
         when(taskRepository.findById(1)).thenReturn(Optional.of(testTask));
 
         // When
-        Task result = taskService.findById(1, adminUser, true);
+        Task result = taskService.findById(1, adminUser.getId(), true);
 
         // Then
         assertNotNull(result);
@@ -106,7 +140,7 @@ public class TaskServiceTest {
         when(taskRepository.findById(1)).thenReturn(Optional.of(testTask));
 
         // When
-        Task result = taskService.findById(1, testUser, false);
+        Task result = taskService.findById(1, testUser.getId(), false);
 
         // Then
         assertNotNull(result);
@@ -123,7 +157,7 @@ public class TaskServiceTest {
 
         // When & Then
         assertThrows(ForbiddenException.class, () -> {
-            taskService.findById(1, otherUser, false);
+            taskService.findById(1, otherUser.getId(), false);
         });
     }
 
@@ -135,7 +169,7 @@ public class TaskServiceTest {
 
         // When & Then
         assertThrows(ResourceNotFoundException.class, () -> {
-            taskService.findById(999, testUser, false);
+            taskService.findById(999, testUser.getId(), false);
         });
     }
 
@@ -161,7 +195,7 @@ public class TaskServiceTest {
         when(taskRepository.save(any(Task.class))).thenReturn(updatedTask);
 
         // When
-        Task result = taskService.update(1, input, testUser, false);
+        Task result = taskService.update(1, input, testUser.getId(), false);
 
         // Then
         assertNotNull(result);
@@ -169,6 +203,30 @@ public class TaskServiceTest {
         verify(taskRepository, times(1)).save(any(Task.class));
     }
 
+    @Test
+    @DisplayName("Should audit an update with the task before and after the change")
+    void testUpdateTaskIsAudited() {
+        // Given
+        Task input = Task.builder().title("Updated Task").status(Task.Status.COMPLETED).build();
+        when(taskRepository.findById(1)).thenReturn(Optional.of(testTask));
+        when(taskRepository.save(any(Task.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        taskService.update(1, input, testUser.getId(), false);
+
+        // Then
+        ArgumentCaptor<Object> before = ArgumentCaptor.forClass(Object.class);
+        ArgumentCaptor<Object> after = ArgumentCaptor.forClass(Object.class);
+        verify(auditLog).record(eq(AuditLog.EntityType.TASK), eq(1), eq(AuditLog.Action.UPDATE),
+                before.capture(), after.capture());
+        TaskDto.TaskResponse from = (TaskDto.TaskResponse) before.getValue();
+        TaskDto.TaskResponse to = (TaskDto.TaskResponse) after.getValue();
+        assertEquals("Test Task", from.title());
+        assertEquals("PENDING", from.status());
+        assertEquals("Updated Task", to.title());
+        assertEquals("COMPLETED", to.status());
+    }
+
     @Test
     @DisplayName("Should delete task successfully")
     void testDeleteTask() {
@@ -176,9 +234,353 @@ public class TaskServiceTest {
         when(taskRepository.findById(1)).thenReturn(Optional.of(testTask));
 
         // When
-        taskService.delete(1, testUser, false);
+        taskService.delete(1, testUser.getId(), false);
 
         // Then
         verify(taskRepository, times(1)).deleteById(1);
     }
+
+    @Test
+    @DisplayName("Should recount the owner's overdue tasks when deleting an overdue task")
+    void testDeleteOverdueTaskInvalidatesCounters() {
+        // Given
+        testTask.setDeadline(LocalDateTime.now().minusDays(1));
+        when(taskRepository.findById(1)).thenReturn(Optional.of(testTask));
+
+        // When
+        taskService.delete(1, testUser.getId(), false);
+
+        // Then
+        verify(taskCounterStore).deleted(1, Task.Status.PENDING);
+        verify(taskCounterStore).invalidate(1);
+        verify(taskDeadlineScheduler).cancel(List.of(1));
+    }
+
+    @Test
+    @DisplayName("Should map counter snapshot to stats response")
+    void testStats() {
+        // Given
+        when(taskCounterStore.counts(1)).thenReturn(new TaskCounterStore.Counts(5,
+                Map.of(Task.Status.PENDING, 3L, Task.Status.IN_PROGRESS, 0L, Task.Status.COMPLETED, 2L), 1));
+
+        // When
+        TaskDto.TaskStatsResponse res = taskService.stats(1);
+
+        // Then
+        assertEquals(1, res.userId());
+        assertEquals(5, res.total());
+        assertEquals(3L, res.byStatus().get("PENDING"));
+        assertEquals(1, res.overdue());
+        verifyNoInteractions(taskRepository);
+    }
+
+    @Test
+    @DisplayName("Should return next cursor when cursor page has more rows")
+    void testFindByUserIdByCursorHasNext() {
+        // Given
+        LocalDateTime now = LocalDateTime.now();
+        TaskDto.TaskResponse top = response(1, null, now);
+        TaskDto.TaskResponse second = response(2, null, now.minusMinutes(1));
+        TaskDto.TaskResponse third = response(3, null, now.minusMinutes(2));
+        TaskCursor first = TaskCursor.first(TaskCursor.SortKey.CREATED_AT);
+        when(taskRepository.seekByUserByCreatedAt(eq(1), eq(first.key()), eq(first.id()), any(Pageable.class)))
+                .thenReturn(List.of(top, second, third));
+
+        // When
+        TaskDto.TaskCursorPage result = taskService.findByUserIdByCursor(1, first, 2, null);
+
+        // Then
+        assertEquals(2, result.items().size());
+        assertTrue(result.hasNext());
+        TaskCursor next = TaskCursor.decode(result.nextCursor(), TaskCursor.SortKey.CREATED_AT);
+        assertEquals(2, next.id());
+        assertEquals(second.createdAt(), next.key());
+    }
+
+    @Test
+    @DisplayName("Should continue with tasks without deadline after the last deadline")
+    void testFindAllByCursorDeadlineNullsLast() {
+        // Given
+        TaskDto.TaskResponse dated = response(1, LocalDateTime.now().plusDays(1), LocalDateTime.now());
+        TaskDto.TaskResponse noDeadline = response(5, null, LocalDateTime.now());
+        TaskCursor first = TaskCursor.first(TaskCursor.SortKey.DEADLINE);
+        when(taskRepository.seekAllByDeadline(eq(first.key()), eq(0), any(Pageable.class)))
+                .thenReturn(List.of(dated));
+        when(taskRepository.seekAllWithoutDeadline(eq(0), any(Pageable.class)))
+                .thenReturn(List.of(noDeadline));
+
+        // When
+        TaskDto.TaskCursorPage result = taskService.findAllByCursor(first, 5, null);
+
+        // Then
+        assertEquals(List.of(dated, noDeadline), result.items());
+        assertFalse(result.hasNext());
+        assertNull(result.nextCursor());
+    }
+
+    @Test
+    @DisplayName("Should take page totals from counter store instead of COUNT query")
+    void testFindByUserIdUsesCounters() {
+        // Given
+        Pageable pageable = PageRequest.of(0, 1);
+        when(taskRepository.findSliceByUserId(1, pageable))
+                .thenReturn(new SliceImpl<>(List.of(response(1, null, LocalDateTime.now())), pageable, true));
+        when(taskCounterStore.count(1, null)).thenReturn(7L);
+
+        // When
+        Page<TaskDto.TaskResponse> result = taskService.findByUserId(1, pageable, null);
+
+        // Then
+        assertEquals(7, result.getTotalElements());
+        assertEquals(7, result.getTotalPages());
+        verify(taskRepository, never()).findByUser_Id(any(), any());
+    }
+
+    @Test
+    @DisplayName("Should update counters when task status changes")
+    void testUpdateTaskUpdatesCounters() {
+        // Given
+        Task input = Task.builder().title("Updated").status(Task.Status.COMPLETED).build();
+        when(taskRepository.findById(1)).thenReturn(Optional.of(testTask));
+        when(taskRepository.save(any(Task.class))).thenAnswer(inv -> inv.getArgument(0));
+
+        // When
+        taskService.update(1, input, testUser.getId(), false);
+
+        // Then
+        verify(taskCounterStore).statusChanged(1, Task.Status.PENDING, Task.Status.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Should reject projected task owned by another user")
+    void testGetResponseForbidden() {
+        // Given
+        when(taskRepository.findResponseById(1)).thenReturn(Optional.of(response(1, null, LocalDateTime.now())));
+
+        // When & Then
+        assertThrows(ForbiddenException.class, () -> taskService.getResponse(1, 99, false));
+        verify(taskRepository, never()).findById(any());
+    }
+
+    @Test
+    @DisplayName("Should batch insert valid tasks and report invalid ones by index")
+    void testCreateBatchPartial() {
+        // Given
+        ReflectionTestUtils.setField(taskService, "maxBatchItems", 10);
+        List<TaskDto.TaskCreateRequest> items = List.of(
+                new TaskDto.TaskCreateRequest("A", null, null, null),
+                new TaskDto.TaskCreateRequest("B", null, "DONE", null),
+                new TaskDto.TaskCreateRequest("C", null, "completed", null));
+        doAnswer(inv -> {
+            List<Task> tasks = inv.getArgument(0);
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).setId(100 + i);
+            }
+            return null;
+        }).when(taskBatchWriter).insertAll(anyList(), eq(1));
+
+        // When
+        TaskDto.TaskBatchResponse result = taskService.createBatch(items, 1);
+
+        // Then
+        assertEquals(2, result.created());
+        assertEquals(1, result.failed());
+        assertEquals(100, result.items().get(0).id());
+        assertNull(result.items().get(1).id());
+        assertNotNull(result.items().get(1).error());
+        assertEquals(101, result.items().get(2).id());
+        verify(taskCounterStore).created(1, Task.Status.PENDING, 1L);
+        verify(taskCounterStore).created(1, Task.Status.COMPLETED, 1L);
+    }
+
+    @Test
+    @DisplayName("Should reject batch larger than the configured limit")
+    void testCreateBatchTooLarge() {
+        // Given
+        ReflectionTestUtils.setField(taskService, "maxBatchItems", 1);
+        List<TaskDto.TaskCreateRequest> items = List.of(
+                new TaskDto.TaskCreateRequest("A", null, null, null),
+                new TaskDto.TaskCreateRequest("B", null, null, null));
+
+        // When & Then
+        assertThrows(BadRequestException.class, () -> taskService.createBatch(items, 1));
+        verifyNoInteractions(taskBatchWriter);
+    }
+
+    @Test
+    @DisplayName("Should bulk delete owned tasks and return rejected ids")
+    void testBulkDeleteRejectsForeignIds() {
+        // Given
+        ReflectionTestUtils.setField(taskService, "maxBatchItems", 10);
+        TaskDto.TaskResponse first = response(1, null, LocalDateTime.now());
+        TaskDto.TaskResponse third = new TaskDto.TaskResponse(3, 1, "Task 3", "Mô tả", Task.Status.COMPLETED,
+                null, null, null, 2);
+        when(taskRepository.lockResponses(Set.of(1, 2, 3), 1)).thenReturn(List.of(first, third));
+        when(taskRepository.deleteByIds(List.of(1, 3), 1)).thenReturn(2);
+
+        // When
+        TaskDto.TaskBulkResponse result = taskService.bulkDelete(List.of(1, 2, 3, 1), 1, false);
+
+        // Then
+        assertEquals(2, result.affected());
+        assertEquals(List.of(2), result.rejectedIds());
+        verify(taskCounterStore).deleted(1, Task.Status.PENDING);
+        verify(taskCounterStore).deleted(1, Task.Status.COMPLETED);
+        // Bản trước là cả task (title, description...), không chỉ status
+        verify(auditLog).recordAll(List.of(
+                new AuditLog.Change(AuditLog.EntityType.TASK, 1, AuditLog.Action.DELETE, first, null),
+                new AuditLog.Change(AuditLog.EntityType.TASK, 3, AuditLog.Action.DELETE, third, null)));
+    }
+
+    @Test
+    @DisplayName("Should skip owner predicate for admin bulk status update")
+    void testBulkUpdateStatusAsAdmin() {
+        // Given
+        ReflectionTestUtils.setField(taskService, "maxBatchItems", 10);
+        when(taskRepository.lockRefs(Set.of(7), null)).thenReturn(List.of(ref(7, 2, Task.Status.PENDING)));
+        when(taskRepository.updateStatusByIds(eq(List.of(7)), isNull(), eq(Task.Status.COMPLETED), any()))
+                .thenReturn(1);
+
+        // When
+        TaskDto.TaskBulkResponse result = taskService.bulkUpdateStatus(List.of(7), Task.Status.COMPLETED, 1, true);
+
+        // Then
+        assertEquals(1, result.affected());
+        assertTrue(result.rejectedIds().isEmpty());
+        verify(taskCounterStore).statusChanged(2, Task.Status.PENDING, Task.Status.COMPLETED);
+    }
+
+    @Test
+    @DisplayName("Should apply If-Match update with a single conditional UPDATE")
+    void testUpdateIfMatchSuccess() {
+        // Given
+        Task input = Task.builder().title("Updated").status(Task.Status.COMPLETED).build();
+        when(taskRepository.updateIfVersion(eq(1), eq(1), eq(3), eq("Updated"), isNull(),
+                eq(Task.Status.COMPLETED), isNull(), any())).thenReturn(1);
+        when(taskRepository.findResponseById(1)).thenReturn(Optional.of(response(1, null, LocalDateTime.now())));
+
+        // When
+        TaskDto.TaskResponse result = taskService.updateIfMatch(1, input, 3, 1, false);
+
+        // Then: không SELECT trước UPDATE, chỉ đọc lại một lần; không biết status cũ nên bộ đếm được đánh dấu đếm lại
+        assertEquals(1, result.id());
+        InOrder order = inOrder(taskRepository);
+        order.verify(taskRepository).updateIfVersion(any(), any(), any(), any(), any(), any(), any(), any());
+        order.verify(taskRepository).findResponseById(1);
+        verify(taskRepository, times(1)).findResponseById(1);
+        verify(taskRepository, never()).findById(any());
+        verify(taskCounterStore).invalidate(1);
+        verify(taskCounterStore, never()).statusChanged(any(), any(), any());
+        verify(auditLog).record(AuditLog.EntityType.TASK, 1, AuditLog.Action.UPDATE, null, result);
+    }
+
+    @Test
+    @DisplayName("Should pass a null status to keep the current one on If-Match update without status")
+    void testUpdateIfMatchKeepsStatus() {
+        // Given
+        Task input = Task.builder().title("Updated").status(null).build();
+        when(taskRepository.updateIfVersion(eq(1), eq(1), eq(3), eq("Updated"), isNull(), isNull(), isNull(), any()))
+                .thenReturn(1);
+        when(taskRepository.findResponseById(1)).thenReturn(Optional.of(response(1, null, LocalDateTime.now())));
+
+        // When
+        TaskDto.TaskResponse result = taskService.updateIfMatch(1, input, 3, 1, false);
+
+        // Then
+        assertEquals("PENDING", result.status());
+    }
+
+    @Test
+    @DisplayName("Should throw PreconditionFailedException when version does not match")
+    void testUpdateIfMatchConflict() {
+        // Given
+        Task input = Task.builder().title("Updated").build();
+        when(taskRepository.updateIfVersion(eq(1), eq(1), eq(3), any(), any(), any(), any(), any())).thenReturn(0);
+        when(taskRepository.findResponseById(1)).thenReturn(Optional.of(response(1, null, LocalDateTime.now())));
+
+        // When & Then
+        assertThrows(PreconditionFailedException.class, () -> taskService.updateIfMatch(1, input, 3, 1, false));
+        verify(taskCounterStore, never()).invalidate(any());
+    }
+
+    @Test
+    @DisplayName("Should throw ResourceNotFoundException when If-Match update targets missing task")
+    void testUpdateIfMatchNotFound() {
+        // Given
+        Task input = Task.builder().title("Updated").build();
+        when(taskRepository.updateIfVersion(eq(999), eq(1), eq(0), any(), any(), any(), any(), any())).thenReturn(0);
+        when(taskRepository.findResponseById(999)).thenReturn(Optional.empty());
+
+        // When & Then
+        assertThrows(ResourceNotFoundException.class, () -> taskService.updateIfMatch(999, input, 0, 1, false));
+    }
+
+    @Test
+    @DisplayName("Should return search hits in index order and drop tasks not owned by user")
+    void testSearchKeepsOrderAndOwnership() {
+        // Given: index trả 3, 1, 2 nhưng task 2 đã đổi chủ trong DB
+        ReflectionTestUtils.setField(taskService, "maxSearchResults", 100);
+        when(taskSearchIndex.search("report", 1, 20)).thenReturn(new TaskSearchIndex.Hits(List.of(3, 1, 2), 3));
+        TaskDto.TaskResponse other = new TaskDto.TaskResponse(2, 5, "Task 2", null, Task.Status.PENDING, null, null, null, 0);
+        when(taskRepository.findResponsesByIds(List.of(3, 1, 2)))
+                .thenReturn(List.of(response(1, null, null), other, response(3, null, null)));
+
+        // When
+        TaskDto.TaskSearchResponse res = taskService.search("report", 20, 1, false);
+
+        // Then
+        assertEquals(List.of(3, 1), res.items().stream().map(TaskDto.TaskResponse::id).toList());
+        assertEquals(3, res.totalHits());
+    }
+
+    @Test
+    @DisplayName("Should search all owners for admin and clamp size to max-results")
+    void testSearchAdminClampsSize() {
+        // Given
+        ReflectionTestUtils.setField(taskService, "maxSearchResults", 50);
+        when(taskSearchIndex.search("report", null, 50)).thenReturn(new TaskSearchIndex.Hits(List.of(), 0));
+
+        // When
+        TaskDto.TaskSearchResponse res = taskService.search("report", 1000, 1, true);
+
+        // Then
+        assertTrue(res.items().isEmpty());
+        verify(taskRepository, never()).findResponsesByIds(any());
+    }
+
+    @Test
+    @DisplayName("Should reject blank search query")
+    void testSearchBlankQuery() {
+        // When & Then
+        assertThrows(BadRequestException.class, () -> taskService.search("  ", 20, 1, false));
+        verifyNoInteractions(taskSearchIndex);
+    }
+
+    private static TaskRepository.TaskRefView ref(Integer id, Integer userId, Task.Status status) {
+        return new TaskRepository.TaskRefView() {
+            @Override
+            public Integer getId() {
+                return id;
+            }
+
+            @Override
+            public Integer getUserId() {
+                return userId;
+            }
+
+            @Override
+            public Task.Status getStatus() {
+                return status;
+            }
+
+            @Override
+            public LocalDateTime getDeadline() {
+                return null;
+            }
+        };
+    }
+
+    private static TaskDto.TaskResponse response(int id, LocalDateTime deadline, LocalDateTime createdAt) {
+        return new TaskDto.TaskResponse(id, 1, "Task " + id, null, Task.Status.PENDING, deadline, createdAt, createdAt, 0);
+    }
 }
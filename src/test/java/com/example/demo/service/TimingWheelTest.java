@@ -0,0 +1,93 @@
+package com.example.demo.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TimingWheel Tests")
+class TimingWheelTest {
+
+    @Test
+    @DisplayName("Should fire timers in the tick they expire, including ones cascaded from upper levels")
+    void testFiresAtExpiration() {
+        // Given: tick 10ms, 4 ô/tầng -> tầng 0 phủ 40ms, tầng 1 phủ 160ms, tầng 2 phủ 640ms
+        TimingWheel<Long> wheel = new TimingWheel<>(10, 4, 0);
+        long[] expirations = {15, 39, 40, 155, 161, 630, 2_000};
+        for (long e : expirations) {
+            assertNotNull(wheel.schedule(e, e));
+        }
+        List<long[]> fired = new ArrayList<>();
+
+        // When: tiến từng tick, ghi lại thời điểm wheel chạy timer
+        for (long now = 0; now <= 2_100; now += 10) {
+            long at = now;
+            wheel.advance(now, e -> fired.add(new long[]{e, at}));
+        }
+
+        // Then: mỗi timer chạy đúng một lần, trong tick chứa thời điểm hết hạn
+        assertEquals(expirations.length, fired.size());
+        for (long[] f : fired) {
+            assertEquals(f[0] - f[0] % 10, f[1], "timer " + f[0]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should not fire cancelled timers")
+    void testCancel() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 0);
+        TimingWheel.Timer<String> near = wheel.schedule(25, "near");
+        TimingWheel.Timer<String> far = wheel.schedule(500, "far");
+        wheel.schedule(30, "kept");
+        List<String> fired = new ArrayList<>();
+
+        // When
+        assertTrue(wheel.cancel(near));
+        assertTrue(wheel.cancel(far));
+        assertFalse(wheel.cancel(far));
+        wheel.advance(1_000, fired::add);
+
+        // Then
+        assertEquals(List.of("kept"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should refuse timers that are already due")
+    void testAlreadyDue() {
+        TimingWheel<String> wheel = new TimingWheel<>(10, 4, 100);
+
+        assertNull(wheel.schedule(50, "past"));
+        assertNull(wheel.schedule(105, "current tick"));
+        assertNotNull(wheel.schedule(110, "next tick"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    @DisplayName("Should fire random timers in expiration order across a large jump")
+    void testRandomTimersFireInOrder() {
+        // Given
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 8, 0);
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            long e = 1 + random.nextInt(100_000);
+            wheel.schedule(e, e);
+        }
+        List<Long> fired = new ArrayList<>();
+
+        // When: một lần advance dài (như sau khi JVM bị dừng)
+        wheel.advance(100_000, fired::add);
+
+        // Then
+        assertEquals(10_000, fired.size());
+        for (int i = 1; i < fired.size(); i++) {
+            assertTrue(fired.get(i - 1) <= fired.get(i));
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.example.demo.service;
 
 import com.example.demo.dto.AuthDto.LoginRequest;
 import com.example.demo.dto.AuthDto.RegisterRequest;
+import com.example.demo.dto.AuthDto.TokenResponse;
 import com.example.demo.entity.User;
 import com.example.demo.exception.DuplicateException;
 import com.example.demo.exception.UnauthorizedException;
 import com.example.demo.repository.UserRepository;
 import com.example.demo.security.JwtService;
+import com.example.demo.security.PasswordHasher;
+import com.example.demo.security.PrincipalCache;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -14,11 +17,11 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
@@ -33,7 +36,13 @@ public class UserAuthServiceTest {
     private JwtService jwtService;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordHasher passwordEncoder;
+
+    @Mock
+    private PrincipalCache principalCache;
+
+    @Mock
+    private RefreshTokenService refreshTokenService;
 
     @InjectMocks
     private UserAuthService userAuthService;
@@ -104,15 +113,17 @@ public class UserAuthServiceTest {
 
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(rawPassword, encodedPassword)).thenReturn(true);
-        when(jwtService.generateToken(email, 1)).thenReturn(token);
+        when(jwtService.generateToken(user)).thenReturn(token);
+        when(refreshTokenService.issue(user)).thenReturn("refresh_token_here");
 
         // When
-        String result = userAuthService.login(email, rawPassword);
+        TokenResponse result = userAuthService.login(email, rawPassword);
 
         // Then
-        assertEquals(token, result);
+        assertEquals(token, result.token());
+        assertEquals("refresh_token_here", result.refreshToken());
         verify(userRepository, times(1)).findByEmail(email);
-        verify(jwtService, times(1)).generateToken(email, 1);
+        verify(jwtService, times(1)).generateToken(user);
     }
 
     @Test
@@ -154,4 +165,30 @@ public class UserAuthServiceTest {
             userAuthService.login(email, rawPassword);
         });
     }
+
+    @Test
+    @DisplayName("Should reject login of a disabled user even with the right password")
+    void testLoginDisabledUser() {
+        // Given: user đang chờ xóa
+        String email = "user@gmail.com";
+        User user = User.builder()
+                .id(1)
+                .email(email)
+                .password("encoded")
+                .fullName("Test User")
+                .role("USER")
+                .disabled(true)
+                .build();
+
+        when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+
+        // When
+        UnauthorizedException ex = assertThrows(UnauthorizedException.class,
+                () -> userAuthService.login(email, "password123"));
+
+        // Then: từ chối trước khi băm mật khẩu
+        assertEquals("Tài khoản đã bị vô hiệu hóa", ex.getMessage());
+        verify(passwordEncoder, never()).matches(any(), any());
+        verify(jwtService, never()).generateToken(any());
+    }
 }
@@ -0,0 +1,174 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserDto;
+import com.example.demo.entity.Task;
+import com.example.demo.entity.User;
+import com.example.demo.repository.UserPurgeRepository;
+import com.example.demo.repository.UserRepository;
+import com.example.demo.security.PrincipalCache;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+// Chạy trên H2 (chế độ MySQL) với schema tạo từ chính các migration Flyway; xóa dòng users đi qua UserRepository (mock)
+@DisplayName("UserDeletionService Tests")
+class UserDeletionServiceTest {
+
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbc;
+    private UserRepository userRepository;
+    private TaskCounterStore counters;
+    private TaskSearchIndex searchIndex;
+    private TaskDeadlineScheduler deadlines;
+    private PrincipalCache principalCache;
+    private UserDeletionService service;
+
+    @BeforeEach
+    void setUp() {
+        // V1 (script gốc) bắt đầu bằng "USE task_management": tạo sẵn schema đó và dùng làm schema mặc định
+        dataSource = new DriverManagerDataSource("jdbc:h2:mem:deletion-" + UUID.randomUUID()
+                + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1"
+                + ";INIT=CREATE SCHEMA IF NOT EXISTS task_management\\;SET SCHEMA task_management", "sa", "");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbc = new JdbcTemplate(dataSource);
+        jdbc.update("DELETE FROM tasks");
+        userRepository = mock(UserRepository.class);
+        counters = mock(TaskCounterStore.class);
+        searchIndex = mock(TaskSearchIndex.class);
+        deadlines = mock(TaskDeadlineScheduler.class);
+        principalCache = mock(PrincipalCache.class);
+        when(counters.counts(any())).thenReturn(new TaskCounterStore.Counts(0, Map.of(), 0));
+        // Lô 1000 dòng, không nghỉ giữa các lô
+        service = new UserDeletionService(userRepository, new UserPurgeRepository(jdbc), counters, searchIndex,
+                deadlines, principalCache, new DataSourceTransactionManager(dataSource), 1000, 0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+        jdbc.execute("SHUTDOWN");
+    }
+
+    @Test
+    @DisplayName("Should delete tasks and archived tasks in batches, then the user row")
+    void testPurgeInBatches() throws Exception {
+        // Given: user 2 có 2500 task và 1200 task lưu trữ, user 3 có 3 task
+        insertTasks(2, 2500);
+        insertTasks(3, 3);
+        jdbc.update("INSERT INTO tasks_archive (id, user_id, title, status, created_at) " +
+                "SELECT \"X\" + 100000, 2, 'Old', 'COMPLETED', CURRENT_TIMESTAMP FROM system_range(1, 1200)");
+        User user = User.builder().id(2).email("user1@gmail.com").disabled(true).build();
+        when(userRepository.findById(2)).thenReturn(Optional.of(user));
+
+        // When
+        service.submit(2);
+        UserDto.UserDeletionStatus status = awaitFinished(2);
+
+        // Then
+        assertEquals("COMPLETED", status.status());
+        assertEquals(2500, status.tasksDeleted());
+        assertEquals(1200, status.archivedTasksDeleted());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM tasks WHERE user_id = 2", Integer.class));
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM tasks_archive", Integer.class));
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM tasks WHERE user_id = 3", Integer.class));
+        verify(searchIndex, times(3)).remove(anyList());
+        verify(deadlines, times(3)).cancel(anyList());
+        verify(counters, times(3)).deleted(eq(2), eq(Task.Status.PENDING), anyLong());
+        verify(principalCache).evict("user1@gmail.com");
+        verify(userRepository).delete(user);
+        assertEquals(status, service.status(2).orElseThrow());
+    }
+
+    @Test
+    @DisplayName("Should keep the user and report FAILED when a batch fails")
+    void testFailureKeepsUser() throws Exception {
+        // Given
+        insertTasks(2, 10);
+        when(userRepository.findById(2)).thenThrow(new IllegalStateException("DB down"));
+
+        // When
+        service.submit(2);
+        UserDto.UserDeletionStatus status = awaitFinished(2);
+
+        // Then: task đã xóa, user còn lại để chạy lại sau
+        assertEquals("FAILED", status.status());
+        assertEquals("DB down", status.error());
+        assertEquals(10, status.tasksDeleted());
+        verify(userRepository, never()).delete(any());
+        assertEquals(1, service.stats().failed());
+    }
+
+    @Test
+    @DisplayName("Should report FAILED and leave the active set when counting tasks fails")
+    void testCountFailureDoesNotStickJob() throws Exception {
+        // Given: bộ đếm phải đếm lại từ DB và DB lỗi
+        insertTasks(2, 3);
+        when(counters.counts(2)).thenThrow(new IllegalStateException("DB down"));
+
+        // When
+        service.submit(2);
+        UserDto.UserDeletionStatus status = awaitFinished(2);
+
+        // Then: job không kẹt ở RUNNING trong danh sách đang chạy
+        assertEquals("FAILED", status.status());
+        assertEquals("DB down", status.error());
+        assertEquals(0, service.stats().active());
+        assertEquals(3, jdbc.queryForObject("SELECT COUNT(*) FROM tasks WHERE user_id = 2", Integer.class));
+    }
+
+    @Test
+    @DisplayName("Should run submitted deletions in the background and resume pending ones on startup")
+    void testSubmitAndResume() throws Exception {
+        // Given
+        insertTasks(2, 5);
+        when(userRepository.findPendingDeletionIds()).thenReturn(List.of(2));
+        when(userRepository.findById(2)).thenReturn(Optional.of(User.builder().id(2).email("user1@gmail.com").build()));
+
+        // When
+        service.resumePending();
+        UserDto.UserDeletionStatus again = service.submit(2);
+
+        // Then
+        assertEquals(2, again.userId());
+        assertEquals("COMPLETED", awaitFinished(2).status());
+        assertEquals(0, jdbc.queryForObject("SELECT COUNT(*) FROM tasks WHERE user_id = 2", Integer.class));
+        verify(userRepository, atLeastOnce()).delete(any());
+    }
+
+    // Chờ job của user chạy xong trên thread nền (COMPLETED hoặc FAILED) và đã rời danh sách đang chạy
+    private UserDto.UserDeletionStatus awaitFinished(Integer userId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (true) {
+            UserDto.UserDeletionStatus status = service.status(userId).orElseThrow();
+            boolean done = "COMPLETED".equals(status.status()) || "FAILED".equals(status.status());
+            if (done && service.stats().active() == 0) {
+                return status;
+            }
+            assertTrue(System.nanoTime() < deadline, "Job không xong sau 10 giây");
+            Thread.sleep(10);
+        }
+    }
+
+    private void insertTasks(int userId, int n) {
+        jdbc.update("INSERT INTO tasks (user_id, title, status) " +
+                "SELECT ?, CONCAT('Task ', \"X\"), 'PENDING' FROM system_range(1, ?)", userId, n);
+    }
+}
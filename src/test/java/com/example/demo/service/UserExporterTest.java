@@ -0,0 +1,87 @@
+package com.example.demo.service;
+
+import com.example.demo.dto.UserDto;
+import com.example.demo.repository.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@DisplayName("UserExporter Tests")
+class UserExporterTest {
+
+    private UserRepository userRepository;
+    private ObjectMapper objectMapper;
+    private UserExporter exporter;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        objectMapper = new ObjectMapper();
+        exporter = new UserExporter(userRepository, objectMapper, mock(PlatformTransactionManager.class), 1);
+    }
+
+    @Test
+    @DisplayName("Should write one user per line without password and close the DB stream")
+    void testExportNdjson() throws Exception {
+        // Given
+        AtomicBoolean closed = new AtomicBoolean();
+        when(userRepository.streamForExport()).thenReturn(Stream.of(
+                new UserDto.UserResponse(1, "admin@gmail.com", "Admin User", "ADMIN"),
+                new UserDto.UserResponse(2, "user1@gmail.com", "Nguyễn Văn A", "USER")).onClose(() -> closed.set(true)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        long rows = exporter.export(out, ExportFormat.NDJSON);
+
+        // Then
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, rows);
+        JsonNode second = objectMapper.readTree(lines[1]);
+        assertEquals("Nguyễn Văn A", second.get("fullName").asText());
+        assertFalse(second.has("password"));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("Should write CSV with header and quoting")
+    void testExportCsv() {
+        // Given
+        when(userRepository.streamForExport()).thenReturn(Stream.of(
+                new UserDto.UserResponse(3, "b@example.com", "Trần, Thị \"B\"", "USER")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exporter.export(out, ExportFormat.CSV);
+
+        // Then
+        assertEquals("id,email,fullName,role\r\n3,b@example.com,\"Trần, Thị \"\"B\"\"\",USER\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should neutralize a full name that a spreadsheet would run as a formula")
+    void testExportCsvNeutralizesFormulas() {
+        // Given
+        when(userRepository.streamForExport()).thenReturn(Stream.of(
+                new UserDto.UserResponse(4, "c@example.com", "=cmd|' /C calc'!A0", "USER")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // When
+        exporter.export(out, ExportFormat.CSV);
+
+        // Then
+        assertEquals("id,email,fullName,role\r\n4,c@example.com,'=cmd|' /C calc'!A0,USER\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+}